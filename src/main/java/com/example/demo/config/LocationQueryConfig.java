@@ -0,0 +1,27 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+public class LocationQueryConfig {
+
+    @Value("${location.bootstrap.pool-size:4}")
+    private int poolSize;
+
+    // Runs the independent sub-queries of the location page bootstrap in parallel
+    @Bean(name = "locationQueryExecutor")
+    public Executor locationQueryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("LocationQuery-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,35 +1,117 @@
 package com.example.demo.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final WebSocketSessionMetrics sessionMetrics;
+
+    // simple = in-process broker, relay = external STOMP broker (RabbitMQ, ActiveMQ, Artemis ...)
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    // A session that cannot drain its queue within these limits is closed instead of
+    // stalling the outbound channel for everyone else
+    @Value("${websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+
+    @Value("${websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${websocket.inbound.core-pool-size:4}")
+    private int inboundCorePoolSize;
+
+    @Value("${websocket.inbound.max-pool-size:8}")
+    private int inboundMaxPoolSize;
+
+    @Value("${websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${websocket.outbound.max-pool-size:16}")
+    private int outboundMaxPoolSize;
+
+    @Value("${websocket.outbound.queue-capacity:5000}")
+    private int outboundQueueCapacity;
+
+    public WebSocketConfig(WebSocketSessionMetrics sessionMetrics) {
+        this.sessionMetrics = sessionMetrics;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Clients subscribe to /topic/** (broadcast) and /queue/** (1:1 if needed)
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // Same destinations, fanned out by the external broker instead of this JVM
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+        } else {
+            // Clients subscribe to /topic/** (broadcast) and /queue/** (1:1 if needed)
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         // All client->server messages must be prefixed with /app
         config.setApplicationDestinationPrefixes("/app");
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
-        // --- Primary endpoint (/ws) ---
-        // Native WebSocket
-        registry.addEndpoint("/ws").setAllowedOriginPatterns("*");
-        // SockJS fallback
-        registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
-
-        // --- Alerts endpoint (/ws-alerts) ---
-        // Native WebSocket
-        registry.addEndpoint("/ws-alerts").setAllowedOriginPatterns("*");
-        // SockJS fallback
-        registry.addEndpoint("/ws-alerts").setAllowedOriginPatterns("*").withSockJS();
+        // Native WebSocket on /ws and /ws-alerts
+        registry.addEndpoint("/ws", "/ws-alerts").setAllowedOriginPatterns("*");
+        // SockJS fallback on the same paths
+        registry.addEndpoint("/ws", "/ws-alerts").setAllowedOriginPatterns("*").withSockJS();
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(sessionMetrics);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
     }
 }
@@ -0,0 +1,85 @@
+package com.example.demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts STOMP sessions and, in particular, the ones the transport terminates because
+ * they could not keep up (send time or buffer limit exceeded -> SESSION_NOT_RELIABLE).
+ */
+@Slf4j
+@Component
+public class WebSocketSessionMetrics implements WebSocketHandlerDecoratorFactory {
+
+    private final AtomicLong activeSessions = new AtomicLong();
+    private final AtomicLong totalSessions = new AtomicLong();
+    private final AtomicLong slowSessionsTerminated = new AtomicLong();
+    private final AtomicLong transportErrors = new AtomicLong();
+
+    // Looked up lazily: the stats bean depends on the handler this factory decorates
+    private final ObjectProvider<WebSocketMessageBrokerStats> brokerStats;
+
+    public WebSocketSessionMetrics(ObjectProvider<WebSocketMessageBrokerStats> brokerStats) {
+        this.brokerStats = brokerStats;
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                activeSessions.incrementAndGet();
+                totalSessions.incrementAndGet();
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                transportErrors.incrementAndGet();
+                super.handleTransportError(session, exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                activeSessions.decrementAndGet();
+                if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(closeStatus)) {
+                    slowSessionsTerminated.incrementAndGet();
+                    log.warn("Terminated slow WebSocket session {} from {}: {}",
+                            session.getId(), session.getRemoteAddress(), closeStatus.getReason());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeSessions", activeSessions.get());
+        stats.put("totalSessions", totalSessions.get());
+        stats.put("slowSessionsTerminated", slowSessionsTerminated.get());
+        stats.put("transportErrors", transportErrors.get());
+
+        WebSocketMessageBrokerStats broker = brokerStats.getIfAvailable();
+        if (broker != null) {
+            stats.put("sessions", broker.getWebSocketSessionStatsInfo());
+            stats.put("stompSubProtocol", broker.getStompSubProtocolStatsInfo());
+            stats.put("stompBrokerRelay", broker.getStompBrokerRelayStatsInfo());
+            stats.put("inboundChannel", broker.getClientInboundExecutorStatsInfo());
+            stats.put("outboundChannel", broker.getClientOutboundExecutorStatsInfo());
+            stats.put("sockJsScheduler", broker.getSockJsTaskSchedulerStatsInfo());
+        }
+        return stats;
+    }
+}
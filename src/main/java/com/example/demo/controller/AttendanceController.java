@@ -340,9 +340,6 @@ public class AttendanceController {
     @GetMapping("/location-tracking")
     public String locationTracking(Model model) {
 
-        List<String> wffEmployees = attendanceService.fetchWffEmployees();
-        model.addAttribute("wffEmployees", wffEmployees);
-
         String username = "MasterAdmin"; // Change to dynamic retrieval later
         String userRole = username.equals("admin") ? "Administrator" : "employee";
 
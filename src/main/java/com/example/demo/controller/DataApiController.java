@@ -5,13 +5,20 @@ import com.example.demo.entity.*;
 import com.example.demo.service.AttendanceService;
 import com.example.demo.service.EmployeeService;
 import com.example.demo.service.FileStorageService;
+import com.example.demo.service.GeofenceService;
 import com.example.demo.service.LocationService;
+import com.example.demo.service.MovementSummaryService;
 import com.example.demo.serviceimpl.EmployeeServiceImpl;
+import com.example.demo.serviceimpl.LocationBootstrapService;
+import com.example.demo.serviceimpl.LocationHistoryStreamer;
+import com.example.demo.serviceimpl.LocationSpatialIndex;
+import com.example.demo.util.LocationBatchCodec;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -19,16 +26,19 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.HandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/data")
@@ -39,10 +49,18 @@ public class DataApiController {
     private final EmployeeService employeeService;
     private final LocationService locationService;
     private final AttendanceService attendanceService;
+    private final LocationSpatialIndex spatialIndex;
+    private final GeofenceService geofenceService;
+    private final LocationHistoryStreamer historyStreamer;
+    private final MovementSummaryService movementSummaryService;
+    private final LocationBootstrapService bootstrapService;
 
     @Value("${file.storage.path}")
     private String uploadPath;
 
+    @Value("${location.sync.max-page:5000}")
+    private int maxSyncPage = 5000;
+
     //    FOR SAVING EMPLOYEE DATA (DTO USE KIYA INSTEAD OF MAIN ENTITY)
     @PostMapping("/employees")
     public ResponseEntity<?> createEmployee(@Valid @ModelAttribute EmployeeRequest request, BindingResult bindingResult) {
@@ -468,6 +486,50 @@ public class DataApiController {
         }
     }
 
+    //    Api For Batched Location Upload - JSON Body With Delta / Fixed-Point Encoded Fixes
+    @PostMapping(value = "/location-tracking/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<Object>> trackLocationBatch(@RequestBody LocationBatchRequest request) {
+        if (request.getUserName() == null || request.getUserName().isBlank()) {
+            return batchError("userName is required");
+        }
+        try {
+            List<LocationFixDto> fixes = LocationBatchCodec.decode(request);
+            boolean isActive = request.getIsActive() == null || request.getIsActive();
+            return batchResponse(attendanceService.saveLocationBatch(request.getUserName(), fixes, isActive));
+        } catch (IllegalArgumentException e) {
+            return batchError(e.getMessage());
+        }
+    }
+
+    //    Api For Batched Location Upload - Binary Varint Body (See LocationBatchCodec)
+    @PostMapping(value = "/location-tracking/batch", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ApiResponse<Object>> trackLocationBatchBinary(
+            @RequestParam String userName,
+            @RequestParam(defaultValue = "true") boolean isActive,
+            @RequestBody byte[] body
+    ) {
+        try {
+            List<LocationFixDto> fixes = LocationBatchCodec.decode(userName, body);
+            return batchResponse(attendanceService.saveLocationBatch(userName, fixes, isActive));
+        } catch (IllegalArgumentException e) {
+            return batchError(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<ApiResponse<Object>> batchResponse(ApiResponse<Object> response) {
+        return ResponseEntity.status(response.getStatusCode()).body(response);
+    }
+
+    private ResponseEntity<ApiResponse<Object>> batchError(String message) {
+        return ResponseEntity.badRequest().body(
+                ApiResponse.builder()
+                        .message("Invalid location batch")
+                        .statusCode(HttpStatus.BAD_REQUEST.value())
+                        .data(Map.of("error", message))
+                        .build()
+        );
+    }
+
     //    Api For Dashboard Monthly Counts
     @PostMapping("/dashboard/monthly")
     public ResponseEntity<Map<String, Object>> getMonthlyRecordCount(
@@ -913,12 +975,105 @@ public class DataApiController {
         return attendanceService.getHistory(fromTs, toTs);
     }
 
+    //    Streaming Variant Of Location History - Constant Server Memory For Large Pulls
+    //    format=ndjson (one object per line) or format=compact ([ts, lat, lon] rows)
+    @GetMapping("/location-history/stream")
+    public ResponseEntity<StreamingResponseBody> streamHistory(
+            @RequestParam(required = false) String userName,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = LocationHistoryStreamer.FORMAT_NDJSON) String format,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding
+    ) {
+        final LocalDateTime toTs = (to != null) ? to : LocalDateTime.now();
+        final LocalDateTime fromTs = (from != null) ? from : toTs.minusHours(24);
+        final boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gz = new GZIPOutputStream(out, 8192, true);
+                historyStreamer.stream(userName, fromTs, toTs, format, gz);
+                gz.finish();
+            } else {
+                historyStreamer.stream(userName, fromTs, toTs, format, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(LocationHistoryStreamer.FORMAT_COMPACT.equals(format)
+                        ? MediaType.APPLICATION_JSON
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .header("Vary", "Accept-Encoding");
+        if (gzip) {
+            response.header("Content-Encoding", "gzip");
+        }
+        return response.body(body);
+    }
+
     //    Api For Location Latest
     @GetMapping("/location-latest")
     public List<WffLocationTracking> getLatestPerUser() {
         return attendanceService.getLatestPerUser();
     }
 
+    //    Api For Incremental Location Sync - Only Fixes Stored After The Cursor
+    //    First call with sinceTimestamp, then keep passing the returned cursor as sinceId
+    @GetMapping("/location-sync")
+    public ResponseEntity<ApiResponse<Object>> syncLocations(
+            @RequestParam(required = false) Long sinceId,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime sinceTimestamp,
+            @RequestParam(defaultValue = "1000") int limit
+    ) {
+        try {
+            LocationSyncResponse sync = attendanceService.syncLocations(
+                    sinceId, sinceTimestamp, Math.max(1, Math.min(limit, maxSyncPage)));
+            return ResponseEntity.ok(
+                    ApiResponse.builder()
+                            .message("Location sync fetched successfully")
+                            .statusCode(HttpStatus.OK.value())
+                            .data(sync)
+                            .build()
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.builder()
+                            .message(e.getMessage())
+                            .statusCode(HttpStatus.BAD_REQUEST.value())
+                            .data(null)
+                            .build()
+            );
+        }
+    }
+
+    //    Api For Location Page Bootstrap (Roster, Latest Fixes, Sync Cursor, Optional Recent Tracks)
+    @GetMapping("/location-bootstrap")
+    public ResponseEntity<ApiResponse<Object>> getLocationBootstrap(
+            @RequestParam(defaultValue = "false") boolean tracks,
+            @RequestParam(defaultValue = "2") int trackHours
+    ) {
+        try {
+            LocationBootstrapResponse bootstrap = bootstrapService.bootstrap(tracks, trackHours);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(Duration.ofSeconds(5)).cachePrivate())
+                    .body(ApiResponse.builder()
+                            .message("Location bootstrap fetched successfully")
+                            .statusCode(HttpStatus.OK.value())
+                            .data(bootstrap)
+                            .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.builder()
+                            .message(e.getMessage())
+                            .statusCode(HttpStatus.BAD_REQUEST.value())
+                            .data(null)
+                            .build()
+            );
+        }
+    }
+
     //    Api For Location History By Username
     @GetMapping("/location-latest/{userName}")
     public List<WffLocationTracking> getLatestForUser(@PathVariable String userName) {
@@ -927,6 +1082,134 @@ public class DataApiController {
 
     }
 
+    //    Api For Employees Within A Radius (metres) Of A Point, Nearest First
+    @GetMapping("/location-nearby")
+    public List<LocationPointDto> getNearby(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "5000") double radiusMeters
+    ) {
+        return spatialIndex.withinRadius(lat, lon, radiusMeters);
+    }
+
+    //    Api For Employees Inside A Bounding Box (e.g. District Extent)
+    @GetMapping("/location-within")
+    public List<LocationPointDto> getWithinBox(
+            @RequestParam double minLat,
+            @RequestParam double minLon,
+            @RequestParam double maxLat,
+            @RequestParam double maxLon
+    ) {
+        return spatialIndex.withinBox(minLat, minLon, maxLat, maxLon);
+    }
+
+    //    Api For K Nearest Employees To A Site
+    @GetMapping("/location-nearest")
+    public List<LocationPointDto> getNearest(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "10") int k
+    ) {
+        return spatialIndex.nearest(lat, lon, Math.min(k, 500));
+    }
+
+    //    Api For Map Marker Clusters In A Viewport (Individual Points Once Zoomed In)
+    @GetMapping("/location-clusters")
+    public LocationClusterResponse getClusters(
+            @RequestParam int zoom,
+            @RequestParam double minLat,
+            @RequestParam double minLon,
+            @RequestParam double maxLat,
+            @RequestParam double maxLon
+    ) {
+        return spatialIndex.clusters(zoom, minLat, minLon, maxLat, maxLon);
+    }
+
+    //    Api For Listing Geofences
+    @GetMapping("/geofences")
+    public List<Geofence> getGeofences() {
+        return geofenceService.findAll();
+    }
+
+    //    Api For Creating / Updating A Geofence (Circle Or Polygon)
+    @PostMapping("/geofences")
+    public ResponseEntity<ApiResponse<Object>> saveGeofence(@RequestBody Geofence geofence) {
+        try {
+            Geofence saved = geofenceService.save(geofence);
+            return ResponseEntity.ok(
+                    ApiResponse.builder()
+                            .message("Geofence saved successfully")
+                            .statusCode(HttpStatus.OK.value())
+                            .data(saved)
+                            .build()
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.builder()
+                            .message(e.getMessage())
+                            .statusCode(HttpStatus.BAD_REQUEST.value())
+                            .data(null)
+                            .build()
+            );
+        }
+    }
+
+    //    Api For Deleting A Geofence
+    @DeleteMapping("/geofences/{id}")
+    public ResponseEntity<Void> deleteGeofence(@PathVariable Long id) {
+        geofenceService.deleteById(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    //    Api For Geofence Enter / Exit Events (Default Last 24 Hours)
+    @GetMapping("/geofence-events")
+    public List<GeofenceEvent> getGeofenceEvents(
+            @RequestParam(required = false) String userName,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        final LocalDateTime toTs = (to != null) ? to : LocalDateTime.now();
+        final LocalDateTime fromTs = (from != null) ? from : toTs.minusHours(24);
+        return geofenceService.findEvents(userName, fromTs, toTs);
+    }
+
+    //    Api For Daily Movement Summaries (Distance, Stops, Dwell) - Default Today
+    //    Filter by userNames, or by district / officeName for a whole team
+    @GetMapping("/movement-summaries")
+    public ResponseEntity<ApiResponse<Object>> getMovementSummaries(
+            @RequestParam(required = false) List<String> userNames,
+            @RequestParam(required = false) String district,
+            @RequestParam(required = false) String officeName,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        final LocalDate toDate = (to != null) ? to : LocalDate.now();
+        final LocalDate fromDate = (from != null) ? from : toDate;
+        try {
+            List<DailyMovementSummary> summaries =
+                    movementSummaryService.findSummaries(userNames, district, officeName, fromDate, toDate);
+            return ResponseEntity.ok(
+                    ApiResponse.builder()
+                            .message("Movement summaries fetched successfully")
+                            .statusCode(HttpStatus.OK.value())
+                            .data(summaries)
+                            .build()
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.builder()
+                            .message(e.getMessage())
+                            .statusCode(HttpStatus.BAD_REQUEST.value())
+                            .data(null)
+                            .build()
+            );
+        }
+    }
+
     //    This api For Mobile App - For Getting Latest Lat Long Data of the User
     @GetMapping("/location-latest-one/{userName}")
     public ResponseEntity<ApiResponse> getLatestForUserOne(@PathVariable String userName) {
@@ -1,14 +1,33 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.WebSocketSessionMetrics;
+import com.example.demo.dto.ApiResponse;
+import com.example.demo.dto.LabDetectionPageResponse;
 import com.example.demo.service.DataService;
+import com.example.demo.service.DetectionTimelineService;
+import com.example.demo.serviceimpl.AlertIngestPipeline;
+import com.example.demo.serviceimpl.FrameBundleReader;
+import com.example.demo.serviceimpl.FrameCache;
+import com.example.demo.serviceimpl.LabRetentionJob;
+import com.example.demo.serviceimpl.LabStatsTracker;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -28,13 +47,130 @@ public class DataController {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private WebSocketSessionMetrics webSocketSessionMetrics;
+
+    @Autowired
+    private AlertIngestPipeline alertIngestPipeline;
+
+    @Autowired
+    private DetectionTimelineService detectionTimelineService;
+
+    @Autowired
+    private FrameCache frameCache;
+
+    @Autowired
+    private FrameBundleReader frameBundleReader;
+
+    @Autowired
+    private LabStatsTracker labStatsTracker;
+
+    @Autowired
+    private LabRetentionJob labRetentionJob;
+
+    // Upper bound on rows per /labDetectionFeed page and ids per /labDetectionImages call
+    @Value("${lab.feed.max-page:500}")
+    private int maxFeedPage = 500;
+
+    // Queued for batched storage and broadcast; the caller does not wait on either
     @PostMapping("/alert")
-    public void receiveAlert(@RequestBody String alertMessage) {
-        log.info("Received alert: {}", alertMessage);
-        messagingTemplate.convertAndSend("/topic/alerts", alertMessage);
+    public ResponseEntity<ApiResponse<Object>> receiveAlert(@RequestBody String alertMessage) {
+        log.debug("Received alert: {}", alertMessage);
+        try {
+            AlertIngestPipeline.Outcome outcome = alertIngestPipeline.submit(alertMessage);
+            HttpStatus status = outcome == AlertIngestPipeline.Outcome.OVERLOADED
+                    ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.ACCEPTED;
+            return ResponseEntity.status(status).body(
+                    ApiResponse.builder()
+                            .message(outcome == AlertIngestPipeline.Outcome.OVERLOADED
+                                    ? "Alert queue is full, retry shortly"
+                                    : "Alert " + outcome.name().toLowerCase())
+                            .statusCode(status.value())
+                            .data(null)
+                            .build()
+            );
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
     }
 
 
+    //    Api For A Keyset Page Of A Lab's Detections (Newest First, No Image Paths)
+    @GetMapping("/labDetectionFeed")
+    public ResponseEntity<ApiResponse<Object>> fetchLabDetectionFeed(
+            @RequestParam Integer labId,
+            @RequestParam(required = false) Integer beforeId,
+            @RequestParam(required = false) String date,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        try {
+            LabDetectionPageResponse page = dataService.fetchLabDetectionFeed(
+                    labId, beforeId, date, Math.max(1, Math.min(limit, maxFeedPage)));
+            return ResponseEntity.ok(
+                    ApiResponse.builder()
+                            .message("Lab detections fetched successfully")
+                            .statusCode(HttpStatus.OK.value())
+                            .data(page)
+                            .build()
+            );
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    //    Api For Image Paths Of The Given Detections
+    @GetMapping("/labDetectionImages")
+    public ResponseEntity<ApiResponse<Object>> fetchLabDetectionImages(
+            @RequestParam Integer labId,
+            @RequestParam List<Integer> ids
+    ) {
+        if (ids.size() > maxFeedPage) {
+            return badRequest(new IllegalArgumentException("At most " + maxFeedPage + " ids per request"));
+        }
+        try {
+            return ResponseEntity.ok(
+                    ApiResponse.builder()
+                            .message("Lab detection images fetched successfully")
+                            .statusCode(HttpStatus.OK.value())
+                            .data(dataService.fetchLabDetectionImages(labId, ids))
+                            .build()
+            );
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    //    Api For A Lab's Detection Timeline Buckets (resolution = minute | hour)
+    @GetMapping("/labDetectionTimeline")
+    public ResponseEntity<ApiResponse<Object>> fetchLabDetectionTimeline(
+            @RequestParam Integer labId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "hour") String resolution
+    ) {
+        try {
+            return ResponseEntity.ok(
+                    ApiResponse.builder()
+                            .message("Detection timeline fetched successfully")
+                            .statusCode(HttpStatus.OK.value())
+                            .data(detectionTimelineService.getTimeline(labId, from, to, resolution))
+                            .build()
+            );
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    private static ResponseEntity<ApiResponse<Object>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(
+                ApiResponse.builder()
+                        .message(e.getMessage())
+                        .statusCode(HttpStatus.BAD_REQUEST.value())
+                        .data(null)
+                        .build()
+        );
+    }
+
     @PostMapping("/fetchLabDetectionData")
     public List<Map<String, Object>> fetchLabDetectionData(@RequestParam(value = "id") String id) {
 
@@ -59,4 +195,91 @@ public class DataController {
         }
     }
 
+    // Frames never change once written: long-lived immutable caching keyed by ETag, LRU memory tier behind it
+    @GetMapping("/frame")
+    public ResponseEntity<Resource> getFrame(
+            @RequestParam String path,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        try {
+            FrameCache.Frame frame = frameCache.stat(path);
+            CacheControl cacheControl = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable();
+            if (ifNoneMatch != null && ifNoneMatch.contains(frame.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(frame.etag())
+                        .cacheControl(cacheControl)
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(frame.etag())
+                    .cacheControl(cacheControl)
+                    .lastModified(frame.lastModified())
+                    .contentType(MediaTypeFactory.getMediaType(frame.file().getFileName().toString())
+                            .orElse(MediaType.APPLICATION_OCTET_STREAM))
+                    .contentLength(frame.size())
+                    .body(frameCache.open(frame));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    //    Api For A Window Of Playback Frames In One Length-Prefixed Binary Bundle (Read In Parallel)
+    @GetMapping("/frame-bundle")
+    public ResponseEntity<StreamingResponseBody> getFrameBundle(@RequestParam List<String> path) {
+        try {
+            FrameBundleReader.Bundle bundle = frameBundleReader.open(path);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    // Short-lived: a frame reported missing may still be written by the analytics service
+                    .cacheControl(CacheControl.maxAge(Duration.ofMinutes(10)).cachePrivate())
+                    .body(out -> frameBundleReader.write(bundle, out));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    //    Api For The Current Live Stats Of Every Lab (Initial State; Updates Follow On /topic/labs.stats)
+    @GetMapping("/labStats")
+    public ResponseEntity<ApiResponse<Object>> fetchLabStats() {
+        return ResponseEntity.ok(
+                ApiResponse.builder()
+                        .message("Lab stats fetched successfully")
+                        .statusCode(HttpStatus.OK.value())
+                        .data(labStatsTracker.snapshot())
+                        .build()
+        );
+    }
+
+    // Rows, files and bytes reclaimed by the last retention run (null before the first run)
+    @GetMapping("/retention-report")
+    public ResponseEntity<ApiResponse<Object>> retentionReport() {
+        return ResponseEntity.ok(
+                ApiResponse.builder()
+                        .message("Retention report fetched successfully")
+                        .statusCode(HttpStatus.OK.value())
+                        .data(labRetentionJob.lastReport())
+                        .build()
+        );
+    }
+
+    // Hit / miss counters of the in-memory frame tier
+    @GetMapping("/frame-cache-stats")
+    public Map<String, Object> frameCacheStats() {
+        return frameCache.stats();
+    }
+
+    // Stored / retried / dropped counters of the alert ingest pipeline
+    @GetMapping("/alert-ingest-stats")
+    public Map<String, Object> alertIngestStats() {
+        return alertIngestPipeline.stats();
+    }
+
+    // STOMP session / channel health, including sessions dropped for being too slow
+    @GetMapping("/websocket-stats")
+    public Map<String, Object> websocketStats() {
+        return webSocketSessionMetrics.snapshot();
+    }
+
 }
@@ -51,9 +51,7 @@ public class MonitoringController {
     public String labProfilePage(@RequestParam(name = "labName", required = false) String labName,
                                  @RequestParam(name = "id", required = false) Long id, Model model) {
 
-
-        labDetectionService.findAll();
-        model.addAttribute("allLabDetectionData", labDetectionService.findAll());
+        // Detections are paged in by labProfilePage.js through /monitoring/api/data/labDetectionFeed
         return "Home/LabProfilePage"; // This would return the lab profile view
     }
 
@@ -78,8 +76,8 @@ public class MonitoringController {
     public String labDashboard(Model model) {
 
 
-        allLabRtspUrlService.findAll();
-        model.addAttribute("allLabRtspUrlData", allLabRtspUrlService.findAll());
+        // Card fields only, in a single select
+        model.addAttribute("allLabRtspUrlData", allLabRtspUrlService.getLabCards());
         return "Home/LabDashboard"; // This would return the lab dashboard view
     }
 
@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// The columns of a labDetection row that the timeline roll-up and threshold evaluator need
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DetectionTickDto {
+
+    private Integer id;
+    private Integer labId;
+    private String timestamp;
+    private Integer personCount;
+    private Integer objectTotalCount;
+    private String objectName;
+    private Boolean fireDetected;
+
+}
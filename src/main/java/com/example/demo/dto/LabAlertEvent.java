@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Typed form of an alert posted by the camera analytics service
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LabAlertEvent {
+
+    // Null when the payload did not name a lab; such alerts are broadcast but not stored
+    private Integer labId;
+    private String message;
+    private String frameImgPath;
+    private LocalDateTime receivedAt;
+
+    // The payload as received, forwarded unchanged to /topic/alerts
+    private String raw;
+
+}
@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// The allLabRtspUrl columns the lab dashboard cards show (no RTSP url, no child collections)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LabCardDto {
+
+    private Integer id;
+    private String labName;
+    private String labDistrict;
+    private String totalAssignedPerson;
+    private String crowdThreshold;
+    private String thingsToBeDetected;
+
+}
@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Image paths of one detection, fetched only for the rows a page actually shows
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LabDetectionImagesDto {
+
+    private Integer id;
+    private String personImgPath;
+    private String objectImgPath;
+    private String fireImgPath;
+    private String frameImgPath;
+    private String frameDetectedImgPath;
+
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LabDetectionPageResponse {
+
+    // Newest first
+    private List<LabDetectionSummaryDto> detections;
+
+    // Pass back as beforeId for the next (older) page
+    private Integer cursor;
+
+    private boolean hasMore;
+
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One detection row without its LONGTEXT image paths
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LabDetectionSummaryDto {
+
+    private Integer id;
+    private String timestamp;
+    private Integer personCount;
+    private String personStatus;
+    private String objectCount;
+    private Integer objectTotalCount;
+    private String objectName;
+    private Boolean fireDetected;
+
+}
@@ -0,0 +1,31 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Rolling live numbers for one lab card, pushed on /topic/labs.stats
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LabStatsDto {
+
+    private Integer labId;
+
+    // Person count of the newest detection
+    private Integer personCount;
+    private LocalDateTime lastDetectionAt;
+    private Integer detectionsLastWindow;
+    private Integer windowSeconds;
+
+    // From a fireDetected detection or an alert mentioning fire, whichever is newer
+    private LocalDateTime lastFireAt;
+    private String lastFireMessage;
+
+    private Integer alertsLastHour;
+
+}
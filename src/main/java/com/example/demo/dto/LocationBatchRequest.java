@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Compact batch of GPS fixes from the mobile app.
+ * <p>
+ * Each row of {@code fixes} is {@code [dtMillis, dLat, dLon]}: the time delta from the
+ * previous fix (the first row is relative to {@code baseTime}) and the coordinate deltas
+ * in fixed-point units of 1/scale degree (the first row carries absolute coordinates).
+ */
+@Data
+public class LocationBatchRequest {
+
+    private String userName;
+
+    private Boolean isActive = true;
+
+    // Epoch millis the first dtMillis is relative to
+    private Long baseTime;
+
+    // Fixed-point divisor; 1_000_000 keeps ~11 cm resolution
+    private Integer scale = 1_000_000;
+
+    private List<long[]> fixes;
+
+}
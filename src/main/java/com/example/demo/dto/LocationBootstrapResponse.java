@@ -0,0 +1,36 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LocationBootstrapResponse {
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime generatedAt;
+
+    // Staff marked present today
+    private List<RosterEntryDto> roster;
+
+    // Latest known position per user
+    private List<LocationPointDto> latest;
+
+    // Start /api/data/location-sync from here to receive everything stored after this response
+    private Long cursor;
+
+    // Optional: username -> simplified recent track as [epochMillis, lat, lon] rows
+    private Map<String, List<double[]>> tracks;
+
+}
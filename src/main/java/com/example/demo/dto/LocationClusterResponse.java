@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LocationClusterResponse {
+
+    private int zoom;
+
+    // true: clusters is filled; false: zoomed in far enough for individual points
+    private boolean clustered;
+
+    private List<LocationClusterDto> clusters;
+
+    private List<LocationPointDto> points;
+
+}
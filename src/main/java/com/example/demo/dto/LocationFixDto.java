@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Lean, non-managed projection of a wff_location_tracking row for bulk reads
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LocationFixDto {
+
+    private String userName;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime timestamp;
+
+    private Double lat;
+    private Double lon;
+
+}
@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.WffLocationTracking;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LocationSyncResponse {
+
+    // Fixes stored after the cursor, oldest id first; may repeat fixes of the last call, de-dupe on id
+    private List<WffLocationTracking> fixes;
+
+    // Pass back as sinceId on the next call; trails the newest fix by the commit lag
+    private Long cursor;
+
+    // More rows are waiting beyond this page; call again straight away
+    private boolean hasMore;
+
+}
@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// What the retention job needs to decide on a detection and clean up its frame files
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RetentionCandidateDto {
+
+    private Integer id;
+    private Integer personCount;
+    private String objectName;
+    private Boolean fireDetected;
+
+    private String personImgPath;
+    private String objectImgPath;
+    private String fireImgPath;
+    private String frameImgPath;
+    private String frameDetectedImgPath;
+
+}
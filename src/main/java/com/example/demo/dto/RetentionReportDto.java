@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Outcome of one LabRetentionJob run
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RetentionReportDto {
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    // False when the run stopped at its time budget or the working-hours window; the next run continues
+    private boolean completed;
+
+    private long detectionsDeleted;
+    private long detectionsKept;
+    private long imageRowsDeleted;
+    private long alertsDeleted;
+    private long filesDeleted;
+    private long bytesReclaimed;
+
+}
@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// The few Employee columns the live map needs
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RosterEntryDto {
+
+    private String username;
+    private String name;
+    private String district;
+    private String officeName;
+    private String designation;
+    private boolean active;
+
+}
@@ -8,14 +8,20 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @Builder
 @Entity
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "allAlertNotification")
+@Table(name = "allAlertNotification",
+        indexes = @Index(name = "idx_alert_lab_generated", columnList = "lab_id, generated_at"))
+@NamedEntityGraph(name = AllAlertNotification.WITH_LAB, attributeNodes = @NamedAttributeNode("lab"))
 public class AllAlertNotification {
 
+    public static final String WITH_LAB = "AllAlertNotification.withLab";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
@@ -25,6 +31,10 @@ public class AllAlertNotification {
 
     private String generatedTimeStamp;
 
+    // Typed copy of generatedTimeStamp; set on ingest, back-filled for older rows by LabDataMigrator
+    @Column(name = "generated_at")
+    private LocalDateTime generatedAt;
+
     private String frameImgPath;
 
     private String date;  // Format: dd/mm/yyyy
@@ -33,7 +43,8 @@ public class AllAlertNotification {
     private Byte[] frameData;
 
 
-    @ManyToOne
+    // Lazy: fetch the lab through WITH_LAB when needed
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "lab_id", nullable = false)
     @JsonManagedReference
     private AllLabRtspUrl lab;
@@ -0,0 +1,50 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A closed user-day of location fixes sealed into one row (see DailyTrackStore).
+ * {@code data} uses the LocationBatchCodec layout: delta timestamps and fixed-point
+ * coordinate deltas as zig-zag varints. The day's last fix stays in wff_location_tracking.
+ */
+@Entity
+@Table(name = "daily_location_track",
+        uniqueConstraints = @UniqueConstraint(name = "uk_track_user_date", columnNames = {"user_name", "track_date"}),
+        indexes = @Index(name = "idx_track_date", columnList = "track_date"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyLocationTrack {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_name", nullable = false)
+    private String userName;
+
+    @Column(name = "track_date", nullable = false)
+    private LocalDate trackDate;
+
+    @Column(name = "fix_count")
+    private int fixCount;
+
+    @Column(name = "first_fix_at")
+    private LocalDateTime firstFixAt;
+
+    @Column(name = "last_fix_at")
+    private LocalDateTime lastFixAt;
+
+    @Lob
+    @Column(name = "data", nullable = false, length = 16_777_215)
+    private byte[] data;
+
+}
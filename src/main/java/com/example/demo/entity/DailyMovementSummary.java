@@ -0,0 +1,98 @@
+package com.example.demo.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One row per employee per day, maintained incrementally from the location ingest path.
+ * The anchor columns carry the open stop candidate so a restart resumes where it left off.
+ */
+@Entity
+@Table(name = "daily_movement_summary",
+        uniqueConstraints = @UniqueConstraint(name = "uk_movement_user_date", columnNames = {"user_name", "summary_date"}),
+        indexes = @Index(name = "idx_movement_date_district", columnList = "summary_date, district"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyMovementSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_name", nullable = false)
+    private String userName;
+
+    @Column(name = "summary_date", nullable = false)
+    private LocalDate summaryDate;
+
+    private String district;
+
+    @Column(name = "office_name")
+    private String officeName;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @Column(name = "first_fix_at")
+    private LocalDateTime firstFixAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @Column(name = "last_fix_at")
+    private LocalDateTime lastFixAt;
+
+    @Column(name = "fix_count")
+    private int fixCount;
+
+    @Column(name = "distance_meters")
+    private double distanceMeters;
+
+    @Column(name = "stop_count")
+    private int stopCount;
+
+    // Time spent in detected stops, including a stop still open at lastFixAt
+    @Column(name = "dwell_seconds")
+    private long dwellSeconds;
+
+    // Time covered by consecutive fixes no further apart than location.summary.active-gap-seconds
+    @Column(name = "active_minutes")
+    private long activeMinutes;
+
+    @JsonIgnore
+    @Column(name = "last_lat")
+    private Double lastLat;
+
+    @JsonIgnore
+    @Column(name = "last_lon")
+    private Double lastLon;
+
+    @JsonIgnore
+    @Column(name = "anchor_lat")
+    private Double anchorLat;
+
+    @JsonIgnore
+    @Column(name = "anchor_lon")
+    private Double anchorLon;
+
+    @JsonIgnore
+    @Column(name = "anchor_since")
+    private LocalDateTime anchorSince;
+
+    // The open anchor has already been counted as a stop
+    @JsonIgnore
+    @Column(name = "in_stop")
+    private boolean inStop;
+
+    // Seconds of active time not yet rolled into activeMinutes
+    @JsonIgnore
+    @Column(name = "active_seconds_remainder")
+    private long activeSecondsRemainder;
+
+}
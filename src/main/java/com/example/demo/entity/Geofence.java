@@ -0,0 +1,72 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "geofence")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Geofence {
+
+    public static final String SHAPE_CIRCLE = "CIRCLE";
+    public static final String SHAPE_POLYGON = "POLYGON";
+
+    public static final String TYPE_ASSIGNED_SITE = "ASSIGNED_SITE";
+    public static final String TYPE_RESTRICTED = "RESTRICTED";
+
+    public static final String SCOPE_ALL = "ALL";
+    public static final String SCOPE_EMPLOYEE = "EMPLOYEE";
+    public static final String SCOPE_OFFICE = "OFFICE";
+    public static final String SCOPE_DISTRICT = "DISTRICT";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    // CIRCLE or POLYGON
+    @Column(name = "shape", nullable = false)
+    private String shape;
+
+    // ASSIGNED_SITE (alert on exit) or RESTRICTED (alert on enter)
+    @Column(name = "fence_type", nullable = false)
+    private String fenceType;
+
+    // ALL, EMPLOYEE (username), OFFICE (office_name) or DISTRICT
+    @Column(name = "scope_type", nullable = false)
+    private String scopeType;
+
+    @Column(name = "scope_value")
+    private String scopeValue;
+
+    @Column(name = "center_lat")
+    private Double centerLat;
+
+    @Column(name = "center_lon")
+    private Double centerLon;
+
+    @Column(name = "radius_meters")
+    private Double radiusMeters;
+
+    // Polygon vertices as "lat,lon;lat,lon;..."
+    @Column(columnDefinition = "TEXT", name = "polygon")
+    private String polygon;
+
+    @Builder.Default
+    @Column(name = "is_active")
+    private boolean isActive = true;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,53 @@
+package com.example.demo.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "geofence_event", indexes = {
+        @Index(name = "idx_geofence_event_user_ts", columnList = "user_name, timestamp"),
+        @Index(name = "idx_geofence_event_ts", columnList = "timestamp")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GeofenceEvent {
+
+    public static final String ENTER = "ENTER";
+    public static final String EXIT = "EXIT";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "geofence_id", nullable = false)
+    private Long geofenceId;
+
+    @Column(name = "geofence_name")
+    private String geofenceName;
+
+    @Column(name = "fence_type")
+    private String fenceType;
+
+    @Column(name = "user_name", nullable = false)
+    private String userName;
+
+    // ENTER or EXIT
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    private Double lat;
+
+    private Double lon;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime timestamp;
+
+}
@@ -7,7 +7,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -15,9 +17,16 @@ import java.util.List;
 @Entity
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "labDetection")
+@Table(name = "labDetection",
+        indexes = @Index(name = "idx_lab_detection_lab_ts", columnList = "lab_id, detected_at"))
+// Only for callers that read the lab of every row (see LabDetectionRepo.findAll); feeds use DTO projections
+@NamedEntityGraph(name = LabDetection.WITH_LAB, attributeNodes = @NamedAttributeNode("lab"))
+// The analytics service owns the LONGTEXT columns; only touched columns are written back
+@DynamicUpdate
 public class LabDetection {
 
+    public static final String WITH_LAB = "LabDetection.withLab";
+
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,6 +34,10 @@ public class LabDetection {
 
     private String timestamp;
 
+    // Typed copy of timestamp (yyyyMMdd_HHmmss), filled by LabDataMigrator
+    @Column(name = "detected_at")
+    private LocalDateTime detectedAt;
+
     private Integer personCount;
 
     @Column(columnDefinition = "LONGTEXT")
@@ -63,7 +76,8 @@ public class LabDetection {
 
 
 
-    @ManyToOne
+    // Lazy: a plain load of detections is one query; fetch the lab through WITH_LAB when needed
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "lab_id", nullable = false)
     @JsonManagedReference
     private AllLabRtspUrl lab;
@@ -0,0 +1,64 @@
+package com.example.demo.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-lab roll-up of labDetection rows over one minute or one hour, maintained by
+ * DetectionTimelineRollup so the timeline page reads a few hundred buckets instead of raw rows.
+ */
+@Entity
+@Table(name = "lab_detection_bucket",
+        uniqueConstraints = @UniqueConstraint(name = "uk_detection_bucket",
+                columnNames = {"lab_id", "resolution", "bucket_start"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LabDetectionBucket {
+
+    public static final String RESOLUTION_MINUTE = "MINUTE";
+    public static final String RESOLUTION_HOUR = "HOUR";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+
+    @Column(name = "lab_id", nullable = false)
+    private Integer labId;
+
+    @Column(nullable = false, length = 8)
+    private String resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime bucketStart;
+
+    private int detections;
+
+    private Integer personMax;
+
+    @JsonIgnore
+    private long personSum;
+
+    private long objectTotal;
+
+    private int fireCount;
+
+    // Highest labDetection id folded in; the roll-up resumes after the maximum over all buckets
+    @Column(name = "last_detection_id")
+    @JsonIgnore
+    private Integer lastDetectionId;
+
+    public Double getPersonAvg() {
+        return detections == 0 ? null : (double) personSum / detections;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * One image path of a labDetection row, split out of its comma-packed LONGTEXT columns
+ * by LabDataMigrator. The natural key lets the migrator insert in JDBC batches.
+ */
+@Entity
+@Table(name = "lab_detection_image")
+@IdClass(LabDetectionImage.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LabDetectionImage {
+
+    public static final String KIND_PERSON = "PERSON";
+    public static final String KIND_OBJECT = "OBJECT";
+    public static final String KIND_FIRE = "FIRE";
+    public static final String KIND_FRAME = "FRAME";
+    public static final String KIND_FRAME_DETECTED = "FRAME_DETECTED";
+
+    @Id
+    @Column(name = "detection_id")
+    private Integer detectionId;
+
+    @Id
+    @Column(length = 16)
+    private String kind;
+
+    // Position within the original comma-separated list
+    @Id
+    private Integer seq;
+
+    @Column(nullable = false, length = 1024)
+    private String path;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer detectionId;
+        private String kind;
+        private Integer seq;
+    }
+}
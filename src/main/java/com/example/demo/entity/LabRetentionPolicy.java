@@ -0,0 +1,39 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Per-lab override of the lab.retention.* defaults; a null column falls back to the default
+@Entity
+@Table(name = "lab_retention_policy")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LabRetentionPolicy {
+
+    @Id
+    @Column(name = "lab_id")
+    private Integer labId;
+
+    // Every detection is kept this long
+    @Column(name = "full_detail_days")
+    private Integer fullDetailDays;
+
+    // Fire / threshold detections are kept this long; 0 keeps them forever
+    @Column(name = "significant_days")
+    private Integer significantDays;
+
+    // 0 keeps alerts forever
+    @Column(name = "alert_days")
+    private Integer alertDays;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+}
@@ -0,0 +1,33 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Progress of a resumable batch migration: every source row with id <= lastId has been processed
+@Entity
+@Table(name = "migration_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MigrationCheckpoint {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    @Column(name = "rows_processed", nullable = false)
+    private long rowsProcessed;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+}
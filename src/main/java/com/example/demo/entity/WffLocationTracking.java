@@ -1,6 +1,7 @@
 package com.example.demo.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -14,7 +15,11 @@ import java.util.Date;
 import java.util.Map;
 
 @Entity
-@Table(name = "wff_location_tracking")
+@Table(name = "wff_location_tracking", indexes = {
+        @Index(name = "idx_wff_loc_timestamp", columnList = "timestamp"),
+        @Index(name = "idx_wff_loc_user_timestamp", columnList = "user_name, timestamp"),
+        @Index(name = "idx_wff_loc_stored_at", columnList = "stored_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -38,6 +43,12 @@ public class WffLocationTracking {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") // Ensures ISO string
     private LocalDateTime timestamp;
 
+    // Set by the database at INSERT, so it orders like the IDENTITY id; null on rows older than the column
+    @Column(name = "stored_at", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6)")
+    @JsonIgnore
+    private LocalDateTime storedAt;
+
     @JsonProperty("location")
     public Map<String, Double> getLocation() {
         if (lat == null || lon == null) {
@@ -1,9 +1,34 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.AllAlertNotification;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface AllAlertNotificationRepo extends JpaRepository<AllAlertNotification,Integer> {
+
+    @Override
+    @EntityGraph(AllAlertNotification.WITH_LAB)
+    List<AllAlertNotification> findAll();
+
+    List<AllAlertNotification> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    // Oldest first on idx_alert_lab_generated
+    @Query("SELECT a.id FROM AllAlertNotification a WHERE a.lab.id = :labId AND a.generatedAt < :before ORDER BY a.generatedAt ASC")
+    List<Integer> findIdsGeneratedBefore(@Param("labId") Integer labId, @Param("before") LocalDateTime before, Limit limit);
+
+    @Query("SELECT DISTINCT a.frameImgPath FROM AllAlertNotification a WHERE a.id IN :ids AND a.frameImgPath IS NOT NULL")
+    List<String> findFramePathsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Frame files still shown by one of the lab's alerts
+    @Query("SELECT a.frameImgPath FROM AllAlertNotification a WHERE a.lab.id = :labId AND a.frameImgPath IN :paths")
+    List<String> findReferencedFramePaths(@Param("labId") Integer labId, @Param("paths") Collection<String> paths);
 }
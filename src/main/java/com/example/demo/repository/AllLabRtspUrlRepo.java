@@ -1,9 +1,22 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.LabCardDto;
 import com.example.demo.entity.AllLabRtspUrl;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface AllLabRtspUrlRepo extends JpaRepository<AllLabRtspUrl,Integer> {
+
+    // Lab dashboard cards: one select, no entity state or collections
+    @Query("""
+                SELECT new com.example.demo.dto.LabCardDto(
+                    l.id, l.labName, l.labDistrict, l.totalAssignedPerson, l.crowdThreshold, l.thingsToBeDetected)
+                FROM AllLabRtspUrl l
+                ORDER BY l.id
+            """)
+    List<LabCardDto> findLabCards();
 }
@@ -0,0 +1,25 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.DailyLocationTrack;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyLocationTrackRepository extends JpaRepository<DailyLocationTrack, Long> {
+
+    Optional<DailyLocationTrack> findByUserNameAndTrackDate(String userName, LocalDate trackDate);
+
+    List<DailyLocationTrack> findByTrackDateBetweenOrderByTrackDateDesc(LocalDate from, LocalDate to);
+
+    List<DailyLocationTrack> findByUserNameAndTrackDateBetweenOrderByTrackDateDesc(
+            String userName,
+            LocalDate from,
+            LocalDate to
+    );
+}
@@ -0,0 +1,41 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.DailyMovementSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyMovementSummaryRepository extends JpaRepository<DailyMovementSummary, Long> {
+
+    Optional<DailyMovementSummary> findByUserNameAndSummaryDate(String userName, LocalDate summaryDate);
+
+    @Query("""
+                SELECT s FROM DailyMovementSummary s
+                WHERE s.summaryDate BETWEEN :from AND :to
+                  AND (:district IS NULL OR s.district = :district)
+                  AND (:officeName IS NULL OR s.officeName = :officeName)
+                ORDER BY s.summaryDate DESC, s.userName ASC
+            """)
+    List<DailyMovementSummary> findTeamSummaries(@Param("district") String district,
+                                                 @Param("officeName") String officeName,
+                                                 @Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to);
+
+    @Query("""
+                SELECT s FROM DailyMovementSummary s
+                WHERE s.userName IN :userNames
+                  AND s.summaryDate BETWEEN :from AND :to
+                ORDER BY s.summaryDate DESC, s.userName ASC
+            """)
+    List<DailyMovementSummary> findUserSummaries(@Param("userNames") Collection<String> userNames,
+                                                 @Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to);
+
+}
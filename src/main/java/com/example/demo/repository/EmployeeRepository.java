@@ -1,11 +1,16 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.RosterEntryDto;
 import com.example.demo.entity.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,4 +50,28 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
     @Query(value = "SELECT * FROM employee e WHERE e.username = :username LIMIT 1", nativeQuery = true)
     Optional<Employee> findEmployeeByUsername(String username);
 
-}
\ No newline at end of file
+    // Compact roster of staff with attendance on the given day (location page bootstrap)
+    @Query("""
+                SELECT DISTINCT new com.example.demo.dto.RosterEntryDto(
+                    e.username, e.name, e.district, e.officeName, e.designation, e.isActive)
+                FROM Employee e, Attendance a
+                WHERE a.userName = e.username AND a.date = :date
+                ORDER BY e.username
+            """)
+    List<RosterEntryDto> findRosterForDate(@Param("date") LocalDate date);
+
+    // Presence transitions only touch is_active instead of rewriting the whole row
+    @Modifying
+    @Transactional
+    @Query("UPDATE Employee e SET e.isActive = :active WHERE e.username = :username AND e.isActive <> :active")
+    int updateActiveByUsername(@Param("username") String username, @Param("active") boolean active);
+
+    @Modifying
+    @Query("UPDATE Employee e SET e.isActive = false WHERE e.isActive = true")
+    int deactivateAll();
+
+    @Modifying
+    @Query("UPDATE Employee e SET e.isActive = true WHERE e.username IN :usernames")
+    int activateUsernames(@Param("usernames") Collection<String> usernames);
+
+}
@@ -0,0 +1,21 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.GeofenceEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface GeofenceEventRepository extends JpaRepository<GeofenceEvent, Long> {
+
+    List<GeofenceEvent> findByTimestampBetweenOrderByTimestampDesc(LocalDateTime from, LocalDateTime to);
+
+    List<GeofenceEvent> findByUserNameAndTimestampBetweenOrderByTimestampDesc(
+            String userName,
+            LocalDateTime from,
+            LocalDateTime to
+    );
+
+}
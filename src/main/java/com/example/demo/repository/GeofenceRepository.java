@@ -0,0 +1,16 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Geofence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GeofenceRepository extends JpaRepository<Geofence, Long> {
+
+    @Query("SELECT g FROM Geofence g WHERE g.isActive = true")
+    List<Geofence> findAllActive();
+
+}
@@ -0,0 +1,33 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.LabDetectionBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LabDetectionBucketRepository extends JpaRepository<LabDetectionBucket, Long> {
+
+    // Range scan on uk_detection_bucket
+    @Query("""
+                SELECT b FROM LabDetectionBucket b
+                WHERE b.labId = :labId AND b.resolution = :resolution
+                  AND b.bucketStart >= :from AND b.bucketStart < :to
+                ORDER BY b.bucketStart ASC
+            """)
+    List<LabDetectionBucket> findRange(@Param("labId") Integer labId,
+                                       @Param("resolution") String resolution,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+
+    List<LabDetectionBucket> findByLabIdAndResolutionAndBucketStartIn(Integer labId, String resolution,
+                                                                      Collection<LocalDateTime> bucketStarts);
+
+    @Query("SELECT COALESCE(MAX(b.lastDetectionId), 0) FROM LabDetectionBucket b")
+    Integer findWatermark();
+}
@@ -0,0 +1,28 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.LabDetectionImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LabDetectionImageRepository extends JpaRepository<LabDetectionImage, LabDetectionImage.Key> {
+
+    List<LabDetectionImage> findByDetectionIdInOrderByDetectionIdAscKindAscSeqAsc(Collection<Integer> detectionIds);
+
+    // Paths still listed by one of the lab's detections; path has no index, the lab_id index bounds the scan
+    @Query("""
+                SELECT DISTINCT i.path FROM LabDetectionImage i, LabDetection d
+                WHERE d.id = i.detectionId AND d.lab.id = :labId AND i.path IN :paths
+            """)
+    List<String> findReferencedPaths(@Param("labId") Integer labId, @Param("paths") Collection<String> paths);
+
+    @Modifying
+    @Query("DELETE FROM LabDetectionImage i WHERE i.detectionId IN :detectionIds")
+    int deleteByDetectionIdIn(@Param("detectionIds") Collection<Integer> detectionIds);
+}
@@ -1,16 +1,142 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.DetectionTickDto;
+import com.example.demo.dto.LabDetectionImagesDto;
+import com.example.demo.dto.LabDetectionSummaryDto;
+import com.example.demo.dto.RetentionCandidateDto;
 import com.example.demo.entity.LabDetection;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 @Repository
 public interface LabDetectionRepo extends JpaRepository<LabDetection,Integer> {
 
+    // Lab joined in the same select instead of one lookup per row
+    @Override
+    @EntityGraph(LabDetection.WITH_LAB)
+    List<LabDetection> findAll();
+
     @Query(value = "SELECT * FROM labDetection where lab_id=?1 ORDER BY id DESC",nativeQuery = true)
     List<Map<String, Object>> findLabDetectionById(Integer id);
+
+    // Keyset page walking the lab_id index backwards from beforeId; no LONGTEXT columns
+    @Query("""
+                SELECT new com.example.demo.dto.LabDetectionSummaryDto(
+                    d.id, d.timestamp, d.personCount, d.personStatus, d.objectCount,
+                    d.objectTotalCount, d.objectName, d.fireDetected)
+                FROM LabDetection d
+                WHERE d.lab.id = :labId
+                  AND (:beforeId IS NULL OR d.id < :beforeId)
+                ORDER BY d.id DESC
+            """)
+    List<LabDetectionSummaryDto> findFeedPage(@Param("labId") Integer labId,
+                                              @Param("beforeId") Integer beforeId,
+                                              Limit limit);
+
+    // Time-window page on idx_lab_detection_lab_ts; covers rows LabDataMigrator has already typed
+    @Query("""
+                SELECT new com.example.demo.dto.LabDetectionSummaryDto(
+                    d.id, d.timestamp, d.personCount, d.personStatus, d.objectCount,
+                    d.objectTotalCount, d.objectName, d.fireDetected)
+                FROM LabDetection d
+                WHERE d.lab.id = :labId
+                  AND d.detectedAt >= :from AND d.detectedAt < :to
+                  AND d.id < :beforeId
+                ORDER BY d.id DESC
+            """)
+    List<LabDetectionSummaryDto> findFeedPageInRange(@Param("labId") Integer labId,
+                                                     @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to,
+                                                     @Param("beforeId") Integer beforeId,
+                                                     Limit limit);
+
+    // Same window matched on the raw string, for the newest rows the migrator has not reached yet and
+    // for older rows without detected_at (committed behind the checkpoint, or timestamp unparsable)
+    @Query("""
+                SELECT new com.example.demo.dto.LabDetectionSummaryDto(
+                    d.id, d.timestamp, d.personCount, d.personStatus, d.objectCount,
+                    d.objectTotalCount, d.objectName, d.fireDetected)
+                FROM LabDetection d
+                WHERE d.lab.id = :labId
+                  AND (d.id > :afterId OR d.detectedAt IS NULL)
+                  AND (:beforeId IS NULL OR d.id < :beforeId)
+                  AND d.timestamp LIKE CONCAT(:prefix, '%')
+                ORDER BY d.id DESC
+            """)
+    List<LabDetectionSummaryDto> findUnmigratedFeedPage(@Param("labId") Integer labId,
+                                                        @Param("afterId") Integer afterId,
+                                                        @Param("beforeId") Integer beforeId,
+                                                        @Param("prefix") String prefix,
+                                                        Limit limit);
+
+    // Lab stays an unloaded reference: the migrator never reads it
+    List<LabDetection> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    @Query("SELECT d.id FROM LabDetection d WHERE d.lab.id = :labId AND d.id IN :ids")
+    List<Integer> findIdsOfLab(@Param("labId") Integer labId, @Param("ids") Collection<Integer> ids);
+
+    // Rows written after the roll-up watermark, oldest first (also feeds LabThresholdEvaluator)
+    @Query("""
+                SELECT new com.example.demo.dto.DetectionTickDto(
+                    d.id, d.lab.id, d.timestamp, d.personCount, d.objectTotalCount, d.objectName, d.fireDetected)
+                FROM LabDetection d
+                WHERE d.id > :afterId
+                ORDER BY d.id ASC
+            """)
+    List<DetectionTickDto> findTicksAfter(@Param("afterId") Integer afterId, Limit limit);
+
+    // Straight from the LONGTEXT columns, for rows not yet split into lab_detection_image
+    @Query("""
+                SELECT new com.example.demo.dto.LabDetectionImagesDto(
+                    d.id, d.personImgPath, d.objectImgPath, d.fireImgPath, d.frameImgPath, d.frameDetectedImgPath)
+                FROM LabDetection d
+                WHERE d.lab.id = :labId AND d.id IN :ids
+                ORDER BY d.id DESC
+            """)
+    List<LabDetectionImagesDto> findPackedImages(@Param("labId") Integer labId, @Param("ids") Collection<Integer> ids);
+
+    // Packed columns of the lab's rows LabDataMigrator has not split yet
+    @Query("""
+                SELECT new com.example.demo.dto.LabDetectionImagesDto(
+                    d.id, d.personImgPath, d.objectImgPath, d.fireImgPath, d.frameImgPath, d.frameDetectedImgPath)
+                FROM LabDetection d
+                WHERE d.lab.id = :labId AND d.id > :afterId
+            """)
+    List<LabDetectionImagesDto> findPackedImagesAfter(@Param("labId") Integer labId, @Param("afterId") Integer afterId);
+
+    // Rows past full-detail retention, after the job's per-lab watermark; detected_at is filled by LabDataMigrator
+    @Query("""
+                SELECT new com.example.demo.dto.RetentionCandidateDto(
+                    d.id, d.personCount, d.objectName, d.fireDetected,
+                    d.personImgPath, d.objectImgPath, d.fireImgPath, d.frameImgPath, d.frameDetectedImgPath)
+                FROM LabDetection d
+                WHERE d.lab.id = :labId AND d.id > :afterId AND d.detectedAt < :before
+                ORDER BY d.id ASC
+            """)
+    List<RetentionCandidateDto> findRetentionCandidates(@Param("labId") Integer labId,
+                                                        @Param("afterId") Integer afterId,
+                                                        @Param("before") LocalDateTime before,
+                                                        Limit limit);
+
+    // Oldest first on idx_lab_detection_lab_ts
+    @Query("""
+                SELECT new com.example.demo.dto.RetentionCandidateDto(
+                    d.id, d.personCount, d.objectName, d.fireDetected,
+                    d.personImgPath, d.objectImgPath, d.fireImgPath, d.frameImgPath, d.frameDetectedImgPath)
+                FROM LabDetection d
+                WHERE d.lab.id = :labId AND d.detectedAt < :before
+                ORDER BY d.detectedAt ASC
+            """)
+    List<RetentionCandidateDto> findDetectedBefore(@Param("labId") Integer labId,
+                                                   @Param("before") LocalDateTime before,
+                                                   Limit limit);
 }
@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.MigrationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MigrationCheckpointRepository extends JpaRepository<MigrationCheckpoint, String> {
+}
@@ -1,14 +1,21 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.LocationFixDto;
 import com.example.demo.entity.WffLocationTracking;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface WffLocationTrackingRepository extends JpaRepository<WffLocationTracking, Long> {
@@ -75,5 +82,109 @@ public interface WffLocationTrackingRepository extends JpaRepository<WffLocation
             """)
     WffLocationTracking findLatestForUserOne(@Param("userName") String userName);
 
+    // Forward-only cursor for streaming exports. Integer.MIN_VALUE makes MySQL Connector/J
+    // stream row by row instead of buffering the whole result set; must be consumed inside
+    // a read-only transaction and closed.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("""
+                SELECT new com.example.demo.dto.LocationFixDto(w.userName, w.timestamp, w.lat, w.lon)
+                FROM WffLocationTracking w
+                WHERE w.timestamp BETWEEN :from AND :to
+                  AND w.lat IS NOT NULL AND w.lon IS NOT NULL
+                ORDER BY w.timestamp DESC
+            """)
+    Stream<LocationFixDto> streamHistory(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("""
+                SELECT new com.example.demo.dto.LocationFixDto(w.userName, w.timestamp, w.lat, w.lon)
+                FROM WffLocationTracking w
+                WHERE w.userName = :userName
+                  AND w.timestamp BETWEEN :from AND :to
+                  AND w.lat IS NOT NULL AND w.lon IS NOT NULL
+                ORDER BY w.timestamp DESC
+            """)
+    Stream<LocationFixDto> streamHistoryForUser(@Param("userName") String userName,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+
+    // Recent fixes of everyone, grouped per user in time order (location page bootstrap tracks)
+    @Query("""
+                SELECT new com.example.demo.dto.LocationFixDto(w.userName, w.timestamp, w.lat, w.lon)
+                FROM WffLocationTracking w
+                WHERE w.timestamp >= :from
+                  AND w.lat IS NOT NULL AND w.lon IS NOT NULL
+                ORDER BY w.userName ASC, w.timestamp ASC
+            """)
+    List<LocationFixDto> findFixesSince(@Param("from") LocalDateTime from);
+
+    // Incremental sync: rows stored after a cursor id, walked along the primary key
+    @Query("""
+                SELECT w FROM WffLocationTracking w
+                WHERE w.id > :sinceId
+                  AND (:sinceTimestamp IS NULL OR w.timestamp > :sinceTimestamp)
+                  AND w.lat IS NOT NULL AND w.lon IS NOT NULL
+                ORDER BY w.id ASC
+            """)
+    List<WffLocationTracking> findSyncPage(@Param("sinceId") Long sinceId,
+                                           @Param("sinceTimestamp") LocalDateTime sinceTimestamp,
+                                           Limit limit);
+
+    // First id of a timestamp window, resolved on idx_wff_loc_timestamp
+    @Query("SELECT MIN(w.id) FROM WffLocationTracking w WHERE w.timestamp > :sinceTimestamp")
+    Long findFirstIdAfter(@Param("sinceTimestamp") LocalDateTime sinceTimestamp);
+
+    @Query("SELECT COALESCE(MAX(w.id), 0) FROM WffLocationTracking w")
+    Long findMaxId();
+
+    // Lowest visible id inserted after the cutoff, on idx_wff_loc_stored_at (only the newest rows qualify)
+    @Query("SELECT MIN(w.id) FROM WffLocationTracking w WHERE w.storedAt > :cutoff")
+    Long findFirstIdStoredAfter(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT COALESCE(MAX(w.id), 0) FROM WffLocationTracking w WHERE w.id < :id")
+    Long findMaxIdBelow(@Param("id") Long id);
+
+    // Last fix time of every user heard from since the given instant (presence seeding)
+    @Query("""
+                SELECT w.userName, MAX(w.timestamp) FROM WffLocationTracking w
+                WHERE w.timestamp >= :since
+                GROUP BY w.userName
+            """)
+    List<Object[]> findLastSeenSince(@Param("since") LocalDateTime since);
+
+    // Closed user-days that still hold more than their anchor row (compact storage sealing); the day is
+    // that of the fix timestamp, not the date column, which single-fix uploads set to the upload day.
+    // Rows without coordinates are never sealed, so they do not count
+    @Query("""
+                SELECT w.userName, CAST(w.timestamp AS LocalDate) FROM WffLocationTracking w
+                WHERE w.timestamp < :before
+                  AND w.lat IS NOT NULL AND w.lon IS NOT NULL
+                GROUP BY w.userName, CAST(w.timestamp AS LocalDate)
+                HAVING COUNT(w) > 1
+            """)
+    List<Object[]> findUnsealedDays(@Param("before") LocalDateTime before, Limit limit);
+
+    // A user's fixes with from <= timestamp < to, oldest first, on idx_wff_loc_user_timestamp
+    @Query("""
+                SELECT w FROM WffLocationTracking w
+                WHERE w.userName = :userName AND w.timestamp >= :from AND w.timestamp < :to
+                ORDER BY w.timestamp ASC
+            """)
+    List<WffLocationTracking> findDayForSealing(@Param("userName") String userName,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+
+    @Modifying
+    // Only rows that were encoded into the blob: coordinate-less rows are left in place
+    @Query("""
+                DELETE FROM WffLocationTracking w
+                WHERE w.userName = :userName AND w.timestamp >= :from AND w.timestamp < :to
+                  AND w.id <> :keepId
+                  AND w.lat IS NOT NULL AND w.lon IS NOT NULL
+            """)
+    int deleteDayExcept(@Param("userName") String userName,
+                        @Param("from") LocalDateTime from,
+                        @Param("to") LocalDateTime to,
+                        @Param("keepId") Long keepId);
 
 }
@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.LabCardDto;
 import com.example.demo.entity.AllLabRtspUrl;
 
 import java.util.List;
@@ -7,4 +8,6 @@ import java.util.List;
 
 public interface AllLabRtspUrlService extends BaseService<AllLabRtspUrl, Integer> {
     List<AllLabRtspUrl> getAllLabRtspUrlData();
+
+    List<LabCardDto> getLabCards();
 }
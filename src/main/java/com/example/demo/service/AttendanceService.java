@@ -4,6 +4,8 @@ import com.example.demo.dto.ApiResponse;
 import com.example.demo.dto.AttendanceFilterRequest;
 import com.example.demo.dto.DashboardResponse;
 import com.example.demo.dto.LeaveRequestDto;
+import com.example.demo.dto.LocationFixDto;
+import com.example.demo.dto.LocationSyncResponse;
 import com.example.demo.entity.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -25,6 +27,8 @@ public interface AttendanceService {
 
     ApiResponse<Object> saveLocationForTracking(String userName, String lat, String lon, String timestamp,boolean isActive);
 
+    ApiResponse<Object> saveLocationBatch(String userName, List<LocationFixDto> fixes, boolean isActive);
+
     String uploadFieldImages(String username, MultipartFile fieldImage,MultipartFile fieldImage1) throws IOException;
 
     Map<String, Object> getMonthlyAttendanceCount(String username, int year, int month);
@@ -59,6 +63,8 @@ public interface AttendanceService {
 
     List<WffLocationTracking> getLatestPerUser();
 
+    LocationSyncResponse syncLocations(Long sinceId, LocalDateTime sinceTimestamp, int limit);
+
     List<WffLocationTracking> getLatestForUser(String userName);
 
     WffLocationTracking getLatestForUserOne(String userName);
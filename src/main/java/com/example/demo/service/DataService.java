@@ -1,6 +1,9 @@
 package com.example.demo.service;
 
 
+import com.example.demo.dto.LabDetectionImagesDto;
+import com.example.demo.dto.LabDetectionPageResponse;
+
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -8,5 +11,9 @@ import java.util.Map;
 public interface DataService {
     List<Map<String, Object>> fetchLabDetectionData(String id);
 
+    LabDetectionPageResponse fetchLabDetectionFeed(Integer labId, Integer beforeId, String date, int limit);
+
+    List<LabDetectionImagesDto> fetchLabDetectionImages(Integer labId, List<Integer> ids);
+
     byte[] getFileData(String filePath) throws IOException;
 }
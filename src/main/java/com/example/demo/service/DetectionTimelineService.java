@@ -0,0 +1,12 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.LabDetectionBucket;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DetectionTimelineService {
+
+    // resolution: minute | hour; buckets start in [from, to)
+    List<LabDetectionBucket> getTimeline(Integer labId, LocalDateTime from, LocalDateTime to, String resolution);
+}
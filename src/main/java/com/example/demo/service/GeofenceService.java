@@ -0,0 +1,12 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Geofence;
+import com.example.demo.entity.GeofenceEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface GeofenceService extends BaseService<Geofence, Long> {
+
+    List<GeofenceEvent> findEvents(String userName, LocalDateTime from, LocalDateTime to);
+}
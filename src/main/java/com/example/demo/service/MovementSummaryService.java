@@ -0,0 +1,12 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.DailyMovementSummary;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface MovementSummaryService {
+
+    List<DailyMovementSummary> findSummaries(List<String> userNames, String district, String officeName,
+                                             LocalDate from, LocalDate to);
+}
@@ -0,0 +1,380 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LabAlertEvent;
+import com.example.demo.entity.AllAlertNotification;
+import com.example.demo.entity.AllLabRtspUrl;
+import com.example.demo.repository.AllAlertNotificationRepo;
+import com.example.demo.repository.AllLabRtspUrlRepo;
+import com.example.demo.util.RingBuffer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ingestion path for alerts posted by the camera analytics service.
+ * <p>
+ * The request thread only parses the payload, applies the per-lab dedupe window and
+ * offers the alert to a lock-free ring buffer. A scheduled consumer drains the ring in
+ * batches, broadcasts each alert on /topic/alerts, counts it in {@link LabStatsTracker}
+ * and stores the batch as {@link AllAlertNotification} rows with one saveAll, so bursts
+ * from several labs never wait on the database or the broker. The ids are IDENTITY, so
+ * Hibernate sends one INSERT per row; what the batch saves is one transaction and one
+ * lab lookup per drain, not round trips.
+ * <p>
+ * A batch whose saveAll fails is parked and retried on later drains with exponential
+ * backoff; it is broadcast only once. When a retry fails too, its alerts are saved one
+ * by one so a single bad row cannot hold back the rest, and only the ones that still
+ * fail stay parked. Alerts that run out of attempts, or that no longer fit in the
+ * parking space (one ring's worth of alerts), are dropped and counted in {@link #stats()}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AlertIngestPipeline {
+
+    public enum Outcome {ACCEPTED, DUPLICATE, OVERLOADED}
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final AllAlertNotificationRepo alertRepo;
+    private final AllLabRtspUrlRepo labRepo;
+    private final SimpMessagingTemplate messaging;
+    private final ObjectMapper objectMapper;
+    private final LabStatsTracker labStatsTracker;
+
+    // Power of two; alerts offered while the ring is full are refused with 503
+    @Value("${alerts.ingest.capacity:8192}")
+    private int capacity = 8192;
+
+    @Value("${alerts.ingest.batch-size:500}")
+    private int batchSize = 500;
+
+    // The same message from the same lab within this window is suppressed
+    @Value("${alerts.ingest.dedupe-window-seconds:30}")
+    private long dedupeWindowSeconds = 30;
+
+    // Store attempts after the first failure before a batch is dropped
+    @Value("${alerts.ingest.retry-attempts:5}")
+    private int retryAttempts = 5;
+
+    // Delay before the first retry; doubles per attempt up to MAX_RETRY_BACKOFF_MS
+    @Value("${alerts.ingest.retry-backoff-ms:1000}")
+    private long retryBackoffMs = 1000;
+
+    private static final long MAX_RETRY_BACKOFF_MS = 60_000;
+
+    // Length of the alertMessage and frameImgPath VARCHAR columns
+    static final int MAX_FIELD_LENGTH = 255;
+
+    private RingBuffer<LabAlertEvent> ring;
+
+    // Batches whose saveAll failed, oldest first; only touched by drain()
+    private final Deque<Parked> parked = new ArrayDeque<>();
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong pendingRetry = new AtomicLong();
+
+    private record Parked(List<LabAlertEvent> alerts, int attempts, long nextAttemptAt) {
+    }
+
+    // labId|message -> time (ms) the last copy was accepted
+    private final Map<String, Long> lastAccepted = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        ring = new RingBuffer<>(capacity);
+    }
+
+    public Outcome submit(String payload) {
+        LabAlertEvent alert = parse(payload);
+
+        long now = System.currentTimeMillis();
+        long windowMs = dedupeWindowSeconds * 1000;
+        String key = (alert.getLabId() == null ? "-" : alert.getLabId()) + "|"
+                + alert.getMessage().trim().toLowerCase(Locale.ROOT);
+        boolean[] fresh = {false};
+        lastAccepted.compute(key, (k, last) -> {
+            if (last != null && now - last < windowMs) {
+                return last;
+            }
+            fresh[0] = true;
+            return now;
+        });
+        if (!fresh[0]) {
+            return Outcome.DUPLICATE;
+        }
+
+        if (!ring.offer(alert)) {
+            // Let the next copy through once there is room again
+            lastAccepted.remove(key, now);
+            log.warn("Alert ring full ({}), refusing alert from lab {}", ring.capacity(), alert.getLabId());
+            return Outcome.OVERLOADED;
+        }
+        return Outcome.ACCEPTED;
+    }
+
+    @Scheduled(fixedDelayString = "${alerts.ingest.flush-ms:200}")
+    public synchronized void drain() {
+        retryParked(System.currentTimeMillis(), false);
+
+        List<LabAlertEvent> batch = new ArrayList<>(Math.min(batchSize, ring.capacity()));
+        while (ring.drainTo(batch, batchSize) > 0) {
+            for (LabAlertEvent alert : batch) {
+                try {
+                    messaging.convertAndSend("/topic/alerts", alert.getRaw());
+                } catch (Exception e) {
+                    log.warn("Alert broadcast failed: {}", e.getMessage());
+                }
+                labStatsTracker.recordAlert(alert);
+            }
+            if (!persist(batch)) {
+                park(new Parked(new ArrayList<>(batch), 0, System.currentTimeMillis() + backoff(0)));
+            }
+            batch.clear();
+        }
+        pruneDedupeWindows();
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        drain();
+        // Last chance for parked batches regardless of their backoff
+        retryParked(Long.MAX_VALUE, true);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stored", stored.get());
+        stats.put("retries", retries.get());
+        stats.put("dropped", dropped.get());
+        stats.put("pendingRetry", pendingRetry.get());
+        return stats;
+    }
+
+    LabAlertEvent parse(String payload) {
+        if (payload == null || payload.isBlank()) {
+            throw new IllegalArgumentException("Alert payload is empty");
+        }
+        LabAlertEvent.LabAlertEventBuilder alert = LabAlertEvent.builder()
+                .raw(payload)
+                .receivedAt(LocalDateTime.now());
+
+        JsonNode node = null;
+        try {
+            node = objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            // Plain-text alert
+        }
+        if (node == null || !node.isObject()) {
+            return alert.message(fit(payload.trim())).build();
+        }
+
+        String message = text(node, "message", "alert", "alertMessage");
+        if (message == null || message.isBlank()) {
+            throw new IllegalArgumentException("Alert payload has no message");
+        }
+        JsonNode lab = first(node, "labId", "lab_id", "lab");
+        if (lab != null && lab.isObject()) {
+            lab = lab.get("id");
+        }
+        Integer labId = null;
+        if (lab != null && lab.canConvertToInt()) {
+            labId = lab.asInt();
+        } else if (lab != null && lab.isTextual() && lab.asText().trim().matches("\\d{1,9}")) {
+            labId = Integer.valueOf(lab.asText().trim());
+        }
+
+        // A cut path points nowhere, so an over-long one is left out rather than shortened
+        String frameImgPath = text(node, "frameImgPath", "frame_img_path", "image");
+        if (frameImgPath != null && frameImgPath.length() > MAX_FIELD_LENGTH) {
+            log.warn("Ignoring frame path of {} chars on alert from lab {}", frameImgPath.length(), labId);
+            frameImgPath = null;
+        }
+
+        return alert.message(fit(message))
+                .labId(labId)
+                .frameImgPath(frameImgPath)
+                .build();
+    }
+
+    private static String fit(String message) {
+        return message.length() <= MAX_FIELD_LENGTH ? message : message.substring(0, MAX_FIELD_LENGTH);
+    }
+
+    private void retryParked(long now, boolean finalAttempt) {
+        Iterator<Parked> it = parked.iterator();
+        List<Parked> rescheduled = new ArrayList<>();
+        while (it.hasNext()) {
+            Parked p = it.next();
+            if (p.nextAttemptAt() > now) {
+                continue;
+            }
+            it.remove();
+            pendingRetry.addAndGet(-p.alerts().size());
+            retries.incrementAndGet();
+            if (persist(p.alerts())) {
+                continue;
+            }
+            List<LabAlertEvent> failed = p.alerts().size() > 1 ? persistEach(p.alerts()) : p.alerts();
+            if (failed.isEmpty()) {
+                continue;
+            }
+            int attempts = p.attempts() + 1;
+            Parked rest = new Parked(failed, attempts, System.currentTimeMillis() + backoff(attempts));
+            if (finalAttempt || attempts >= retryAttempts) {
+                drop(rest, attempts);
+            } else {
+                rescheduled.add(rest);
+            }
+        }
+        rescheduled.forEach(this::park);
+    }
+
+    private void park(Parked p) {
+        if (retryAttempts <= 0) {
+            drop(p, p.attempts());
+            return;
+        }
+        // Keep at most one ring's worth of alerts waiting; the oldest give way first
+        while (!parked.isEmpty() && pendingRetry.get() + p.alerts().size() > ring.capacity()) {
+            Parked oldest = parked.removeFirst();
+            pendingRetry.addAndGet(-oldest.alerts().size());
+            drop(oldest, oldest.attempts());
+        }
+        parked.addLast(p);
+        pendingRetry.addAndGet(p.alerts().size());
+        log.warn("Parked {} alerts for retry {} of {}", p.alerts().size(), p.attempts() + 1, retryAttempts);
+    }
+
+    private void drop(Parked p, int attempts) {
+        dropped.addAndGet(p.alerts().size());
+        log.error("Dropped {} alerts after {} failed store retries", p.alerts().size(), attempts);
+    }
+
+    private long backoff(int attempts) {
+        return Math.min(MAX_RETRY_BACKOFF_MS, retryBackoffMs << Math.min(attempts, 16));
+    }
+
+    /**
+     * Stores the alerts of known labs; false when the lookup or saveAll failed and the
+     * batch should be retried.
+     */
+    private boolean persist(List<LabAlertEvent> batch) {
+        try {
+            Map<Integer, AllLabRtspUrl> labs = findLabs(batch);
+
+            List<AllAlertNotification> rows = new ArrayList<>(batch.size());
+            for (LabAlertEvent alert : batch) {
+                AllLabRtspUrl lab = alert.getLabId() == null ? null : labs.get(alert.getLabId());
+                if (lab == null) {
+                    continue; // lab_id is mandatory; unknown labs are only broadcast
+                }
+                rows.add(toRow(alert, lab));
+            }
+            if (!rows.isEmpty()) {
+                alertRepo.saveAll(rows);
+            }
+            stored.addAndGet(rows.size());
+            log.debug("Stored {} of {} drained alerts", rows.size(), batch.size());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to store {} alerts: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stores the alerts one row at a time after their batch failed; returns the ones that
+     * still could not be stored.
+     */
+    private List<LabAlertEvent> persistEach(List<LabAlertEvent> alerts) {
+        Map<Integer, AllLabRtspUrl> labs;
+        try {
+            labs = findLabs(alerts);
+        } catch (Exception e) {
+            log.error("Failed to look up labs for {} alerts: {}", alerts.size(), e.getMessage());
+            return alerts;
+        }
+        List<LabAlertEvent> failed = new ArrayList<>();
+        String lastError = null;
+        for (LabAlertEvent alert : alerts) {
+            AllLabRtspUrl lab = alert.getLabId() == null ? null : labs.get(alert.getLabId());
+            if (lab == null) {
+                continue;
+            }
+            try {
+                alertRepo.save(toRow(alert, lab));
+                stored.incrementAndGet();
+            } catch (Exception e) {
+                failed.add(alert);
+                lastError = e.getMessage();
+            }
+        }
+        if (!failed.isEmpty()) {
+            log.error("Failed to store {} of {} alerts one by one: {}", failed.size(), alerts.size(), lastError);
+        }
+        return failed;
+    }
+
+    private Map<Integer, AllLabRtspUrl> findLabs(List<LabAlertEvent> alerts) {
+        Set<Integer> labIds = alerts.stream()
+                .map(LabAlertEvent::getLabId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (labIds.isEmpty()) {
+            return Map.of();
+        }
+        return labRepo.findAllById(labIds).stream()
+                .collect(Collectors.toMap(AllLabRtspUrl::getId, Function.identity()));
+    }
+
+    private static AllAlertNotification toRow(LabAlertEvent alert, AllLabRtspUrl lab) {
+        return AllAlertNotification.builder()
+                .alertMessage(alert.getMessage())
+                .generatedTimeStamp(alert.getReceivedAt().format(TS_FORMAT))
+                .generatedAt(alert.getReceivedAt())
+                .date(alert.getReceivedAt().format(DATE_FORMAT))
+                .frameImgPath(alert.getFrameImgPath())
+                .lab(lab)
+                .build();
+    }
+
+    private void pruneDedupeWindows() {
+        long cutoff = System.currentTimeMillis() - dedupeWindowSeconds * 1000;
+        lastAccepted.values().removeIf(t -> t < cutoff);
+    }
+
+    private static JsonNode first(JsonNode node, String... names) {
+        for (String name : names) {
+            JsonNode v = node.get(name);
+            if (v != null && !v.isNull()) {
+                return v;
+            }
+        }
+        return null;
+    }
+
+    private static String text(JsonNode node, String... names) {
+        JsonNode v = first(node, names);
+        return v == null ? null : v.asText();
+    }
+}
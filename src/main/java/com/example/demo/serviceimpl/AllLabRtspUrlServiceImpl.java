@@ -1,5 +1,6 @@
 package com.example.demo.serviceimpl;
 
+import com.example.demo.dto.LabCardDto;
 import com.example.demo.entity.AllLabRtspUrl;
 import com.example.demo.repository.AllAlertNotificationRepo;
 import com.example.demo.repository.AllLabRtspUrlRepo;
@@ -34,5 +35,11 @@ public class AllLabRtspUrlServiceImpl extends BaseServiceImpl<AllLabRtspUrl, Int
         return allLabRtspUrlRepo.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<LabCardDto> getLabCards() {
+        return allLabRtspUrlRepo.findLabCards();
+    }
+
 
 }
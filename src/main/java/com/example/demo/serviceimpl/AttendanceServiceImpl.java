@@ -4,6 +4,8 @@ import com.example.demo.dto.ApiResponse;
 import com.example.demo.dto.AttendanceFilterRequest;
 import com.example.demo.dto.DashboardResponse;
 import com.example.demo.dto.LeaveRequestDto;
+import com.example.demo.dto.LocationFixDto;
+import com.example.demo.dto.LocationSyncResponse;
 import com.example.demo.entity.*;
 import com.example.demo.repository.*;
 import com.example.demo.service.AttendanceService;
@@ -13,9 +15,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
@@ -65,6 +70,22 @@ public class AttendanceServiceImpl implements AttendanceService {
 
     private final LocationEventPublisher publisher;
 
+    private final LocationSpatialIndex spatialIndex;
+
+    private final GeofenceEngine geofenceEngine;
+
+    private final MovementSummaryAggregator movementSummaryAggregator;
+
+    private final LocationIngestFilter ingestFilter;
+
+    private final ReportIntervalAdvisor reportIntervalAdvisor;
+
+    private final PresenceTracker presenceTracker;
+
+    private final DailyTrackStore dailyTrackStore;
+
+    private final LocationSyncCursor syncCursor;
+
     @Override
     @Transactional
     public Attendance saveAttendance(String userName,
@@ -380,6 +401,22 @@ public class AttendanceServiceImpl implements AttendanceService {
             String lon,
             String timestamp,
             boolean isActive
+    ) {
+        // In-flight pings feed the back-off in the recommended report interval
+        reportIntervalAdvisor.ingestStarted();
+        try {
+            return storeLocationForTracking(userName, lat, lon, timestamp, isActive);
+        } finally {
+            reportIntervalAdvisor.ingestFinished();
+        }
+    }
+
+    private ApiResponse<Object> storeLocationForTracking(
+            String userName,
+            String lat,
+            String lon,
+            String timestamp,
+            boolean isActive
     ) {
         try {
             // 1️⃣ Parse timestamp
@@ -398,36 +435,50 @@ public class AttendanceServiceImpl implements AttendanceService {
                         .build();
             }
 
-            // 3️⃣ Update active flag
-            employee.setActive(isActive);
-            employeeRepository.save(employee);
+            // 3️⃣ Refresh presence (is_active is only written when it flips)
+            presenceTracker.ping(userName, isActive);
 
-            // 4️⃣ Save location
+            // 4️⃣ Skip stationary repeats and impossible jumps
+            Double parsedLat = lat != null && !lat.isBlank() ? Double.valueOf(lat) : null;
+            Double parsedLon = lon != null && !lon.isBlank() ? Double.valueOf(lon) : null;
+            LocationIngestFilter.Decision decision =
+                    ingestFilter.check(userName, parsedTimestamp, parsedLat, parsedLon);
+            if (decision == LocationIngestFilter.Decision.REJECT_SPEED) {
+                return ApiResponse.builder()
+                        .message("Location rejected as an implausible jump")
+                        .statusCode(HttpStatus.OK.value())
+                        .data(Map.of("flag", "success", "stored", false,
+                                "nextReportIntervalSeconds", reportIntervalAdvisor.retrySeconds()))
+                        .build();
+            }
+            int nextInterval = reportIntervalAdvisor.recommend(employee, userName, parsedTimestamp, parsedLat, parsedLon);
+            if (decision == LocationIngestFilter.Decision.DROP_STATIONARY) {
+                return ApiResponse.builder()
+                        .message("Location unchanged; not stored")
+                        .statusCode(HttpStatus.OK.value())
+                        .data(Map.of("flag", "success", "stored", false, "nextReportIntervalSeconds", nextInterval))
+                        .build();
+            }
+
+            // 5️⃣ Save location
             WffLocationTracking tracking = WffLocationTracking.builder()
                     .userName(userName)
-                    .lat(lat != null && !lat.isBlank() ? Double.valueOf(lat) : null)
-                    .lon(lon != null && !lon.isBlank() ? Double.valueOf(lon) : null)
+                    .lat(parsedLat)
+                    .lon(parsedLon)
                     .date(LocalDate.now())
                     .timestamp(parsedTimestamp)
                     .build();
 
             WffLocationTracking saved = locationTrackingRepository.save(tracking);
 
-            // 5️⃣ Try publishing, but don't break API if it fails
-            try {
-                if (publisher != null) {
-                    publisher.publish(saved);
-                }
-            } catch (Exception pubEx) {
-                // log it, but don't rollback the transaction
-                log.error("Failed to publish location tracking", pubEx);
-            }
+            // 6️⃣ Publish, index, geofences (after commit)
+            afterLocationSaved(employee, saved);
 
             // ✅ Success response
             return ApiResponse.builder()
                     .message("Location saved and employee status updated successfully")
                     .statusCode(HttpStatus.OK.value())
-                    .data(Map.of("flag", "success"))
+                    .data(Map.of("flag", "success", "nextReportIntervalSeconds", nextInterval))
                     .build();
 
         } catch (DateTimeParseException e) {
@@ -446,6 +497,98 @@ public class AttendanceServiceImpl implements AttendanceService {
         }
     }
 
+    @Override
+    @Transactional
+    public ApiResponse<Object> saveLocationBatch(String userName, List<LocationFixDto> fixes, boolean isActive) {
+        try {
+            Employee employee = employeeRepository.findByUsername(userName);
+            if (employee == null) {
+                return ApiResponse.builder()
+                        .message("Employee not found")
+                        .statusCode(HttpStatus.NOT_FOUND.value())
+                        .data(Map.of("error", "No employee with username: " + userName))
+                        .build();
+            }
+
+            presenceTracker.ping(userName, isActive);
+
+            // Fixes are already parsed by the codec; store them oldest first in one round trip
+            List<LocationFixDto> sorted = fixes.stream()
+                    .sorted(Comparator.comparing(LocationFixDto::getTimestamp))
+                    .collect(Collectors.toList());
+            List<WffLocationTracking> rows = ingestFilter.filterBatch(userName, sorted).stream()
+                    .map(f -> WffLocationTracking.builder()
+                            .userName(userName)
+                            .lat(f.getLat())
+                            .lon(f.getLon())
+                            .date(f.getTimestamp().toLocalDate())
+                            .timestamp(f.getTimestamp())
+                            .build())
+                    .collect(Collectors.toList());
+
+            List<WffLocationTracking> saved = locationTrackingRepository.saveAll(rows);
+            saved.forEach(w -> afterLocationSaved(employee, w));
+
+            return ApiResponse.builder()
+                    .message("Location batch saved successfully")
+                    .statusCode(HttpStatus.OK.value())
+                    .data(Map.of("flag", "success", "saved", saved.size(), "dropped", fixes.size() - saved.size()))
+                    .build();
+
+        } catch (Exception e) {
+            return ApiResponse.builder()
+                    .message("Failed to save location batch")
+                    .statusCode(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                    .data(Map.of("error", e.toString()))
+                    .build();
+        }
+    }
+
+    // Side effects of a stored fix: run once the ingest transaction has committed, so a rollback
+    // leaves no index entry, live message or geofence event behind, and none of them can fail the ping
+    private void afterLocationSaved(Employee employee, WffLocationTracking saved) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runLocationHooks(employee, saved);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runLocationHooks(employee, saved);
+            }
+        });
+    }
+
+    // Geofence events and movement summaries write in their own REQUIRES_NEW transactions
+    private void runLocationHooks(Employee employee, WffLocationTracking saved) {
+        try {
+            ingestFilter.remember(saved);
+            spatialIndex.update(saved);
+        } catch (Exception indexEx) {
+            log.error("Failed to index location of {}", saved.getUserName(), indexEx);
+        }
+
+        try {
+            if (publisher != null) {
+                publisher.publish(saved, employee.getDistrict());
+            }
+        } catch (Exception pubEx) {
+            log.error("Failed to publish location tracking", pubEx);
+        }
+
+        try {
+            geofenceEngine.evaluate(employee, saved);
+        } catch (Exception fenceEx) {
+            log.error("Failed to evaluate geofences for {}", saved.getUserName(), fenceEx);
+        }
+
+        try {
+            movementSummaryAggregator.record(employee, saved);
+        } catch (Exception summaryEx) {
+            log.error("Failed to update movement summary for {}", saved.getUserName(), summaryEx);
+        }
+    }
+
     @Override
     @Transactional
     public String uploadFieldImages(String username, MultipartFile fieldImage, MultipartFile fieldImage1) throws IOException {
@@ -1471,12 +1614,15 @@ public class AttendanceServiceImpl implements AttendanceService {
 
     @Override
     public List<WffLocationTracking> getHistory(LocalDateTime from, LocalDateTime to) {
-        return locationTrackingRepository.findByTimestampBetweenOrderByTimestampDesc(from, to);
+        return dailyTrackStore.withSealed(
+                locationTrackingRepository.findByTimestampBetweenOrderByTimestampDesc(from, to), null, from, to);
     }
 
     @Override
     public List<WffLocationTracking> getHistoryForUser(String userName, LocalDateTime from, LocalDateTime to) {
-        return locationTrackingRepository.findByUserNameAndTimestampBetweenOrderByTimestampDesc(userName, from, to);
+        return dailyTrackStore.withSealed(
+                locationTrackingRepository.findByUserNameAndTimestampBetweenOrderByTimestampDesc(userName, from, to),
+                userName, from, to);
     }
 
     @Override
@@ -1484,6 +1630,47 @@ public class AttendanceServiceImpl implements AttendanceService {
         return locationTrackingRepository.findLatestPerUser();
     }
 
+    @Override
+    public LocationSyncResponse syncLocations(Long sinceId, LocalDateTime sinceTimestamp, int limit) {
+        long cursor;
+        if (sinceId != null) {
+            cursor = sinceId;
+        } else if (sinceTimestamp != null) {
+            // Start the id walk at the first row of the window instead of scanning from id 0
+            Long firstId = locationTrackingRepository.findFirstIdAfter(sinceTimestamp);
+            if (firstId == null) {
+                return LocationSyncResponse.builder()
+                        .fixes(List.of())
+                        .cursor(syncCursor.settled())
+                        .hasMore(false)
+                        .build();
+            }
+            cursor = firstId - 1;
+        } else {
+            throw new IllegalArgumentException("Either sinceId or sinceTimestamp is required");
+        }
+
+        // One extra row tells us whether another page is waiting
+        List<WffLocationTracking> page =
+                locationTrackingRepository.findSyncPage(cursor, sinceTimestamp, Limit.of(limit + 1));
+        boolean hasMore = page.size() > limit;
+        if (hasMore) {
+            page = page.subList(0, limit);
+        }
+        if (!page.isEmpty()) {
+            // Rows past the settled id are sent now and again next call, since a lower id may still commit
+            long last = page.get(page.size() - 1).getId();
+            long next = Math.max(cursor, Math.min(last, syncCursor.settled()));
+            hasMore = hasMore && next == last;
+            cursor = next;
+        }
+        return LocationSyncResponse.builder()
+                .fixes(page)
+                .cursor(cursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
     @Override
     public List<WffLocationTracking> getLatestForUser(String userName) {
         return locationTrackingRepository.findLatestForUser(userName);
@@ -0,0 +1,149 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationClusterDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-zoom count / centroid grid over Web Mercator cells, {@code cellsPerTile} cells across a
+ * 256px map tile. Every level is updated on each move, but a move stops climbing as soon as
+ * old and new position share a cell, so a walking user usually touches only the finest levels.
+ * Not thread-safe; LocationSpatialIndex calls it under its own lock.
+ */
+final class ClusterPyramid {
+
+    private static final double MAX_MERCATOR_LAT = 85.05112878;
+
+    private final int maxZoom;
+    private final int cellsPerTile;
+    private final List<Map<Long, Cell>> levels;
+
+    ClusterPyramid(int maxZoom, int cellsPerTile) {
+        this.maxZoom = maxZoom;
+        this.cellsPerTile = cellsPerTile;
+        this.levels = new ArrayList<>(maxZoom + 1);
+        for (int z = 0; z <= maxZoom; z++) {
+            levels.add(new HashMap<>());
+        }
+    }
+
+    int maxZoom() {
+        return maxZoom;
+    }
+
+    void clear() {
+        levels.forEach(Map::clear);
+    }
+
+    void add(double lat, double lon) {
+        for (int z = 0; z <= maxZoom; z++) {
+            levels.get(z).computeIfAbsent(key(z, lat, lon), k -> new Cell()).add(lat, lon, 1);
+        }
+    }
+
+    void remove(double lat, double lon) {
+        for (int z = 0; z <= maxZoom; z++) {
+            subtract(z, key(z, lat, lon), lat, lon);
+        }
+    }
+
+    void move(double oldLat, double oldLon, double lat, double lon) {
+        for (int z = maxZoom; z >= 0; z--) {
+            long from = key(z, oldLat, oldLon);
+            long to = key(z, lat, lon);
+            Map<Long, Cell> level = levels.get(z);
+            if (from == to) {
+                // Same cell here means the same cell at every coarser level; only the centroid shifts
+                for (int up = z; up >= 0; up--) {
+                    Cell c = levels.get(up).get(key(up, lat, lon));
+                    c.sumLat += lat - oldLat;
+                    c.sumLon += lon - oldLon;
+                }
+                return;
+            }
+            subtract(z, from, oldLat, oldLon);
+            level.computeIfAbsent(to, k -> new Cell()).add(lat, lon, 1);
+        }
+    }
+
+    List<LocationClusterDto> query(int zoom, double minLat, double minLon, double maxLat, double maxLon) {
+        int z = Math.max(0, Math.min(maxZoom, zoom));
+        Map<Long, Cell> level = levels.get(z);
+        int x0 = x(z, minLon), x1 = x(z, maxLon);
+        // Mercator y grows southwards
+        int y0 = y(z, maxLat), y1 = y(z, minLat);
+
+        List<LocationClusterDto> result = new ArrayList<>();
+        long boxCells = (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+        if (boxCells > level.size()) {
+            for (Map.Entry<Long, Cell> e : level.entrySet()) {
+                int cx = (int) (e.getKey() >> 32);
+                int cy = (int) (long) e.getKey();
+                if (cx >= x0 && cx <= x1 && cy >= y0 && cy <= y1) {
+                    result.add(e.getValue().toDto());
+                }
+            }
+        } else {
+            for (int cx = x0; cx <= x1; cx++) {
+                for (int cy = y0; cy <= y1; cy++) {
+                    Cell c = level.get(pack(cx, cy));
+                    if (c != null) {
+                        result.add(c.toDto());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private void subtract(int z, long key, double lat, double lon) {
+        Map<Long, Cell> level = levels.get(z);
+        Cell c = level.get(key);
+        if (c == null) {
+            return;
+        }
+        c.add(-lat, -lon, -1);
+        if (c.count <= 0) {
+            level.remove(key);
+        }
+    }
+
+    private long key(int z, double lat, double lon) {
+        return pack(x(z, lon), y(z, lat));
+    }
+
+    private int x(int z, double lon) {
+        double n = (double) (1L << z) * cellsPerTile;
+        return (int) Math.max(0, Math.min(n - 1, Math.floor((lon + 180) / 360 * n)));
+    }
+
+    private int y(int z, double lat) {
+        double n = (double) (1L << z) * cellsPerTile;
+        double rad = Math.toRadians(Math.max(-MAX_MERCATOR_LAT, Math.min(MAX_MERCATOR_LAT, lat)));
+        double merc = (1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2;
+        return (int) Math.max(0, Math.min(n - 1, Math.floor(merc * n)));
+    }
+
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    private static final class Cell {
+        private int count;
+        private double sumLat;
+        private double sumLon;
+
+        void add(double lat, double lon, int n) {
+            count += n;
+            sumLat += lat;
+            sumLon += lon;
+        }
+
+        LocationClusterDto toDto() {
+            return new LocationClusterDto(sumLat / count, sumLon / count, count);
+        }
+    }
+}
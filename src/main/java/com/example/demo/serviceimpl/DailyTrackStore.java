@@ -0,0 +1,200 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationFixDto;
+import com.example.demo.entity.DailyLocationTrack;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.DailyLocationTrackRepository;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import com.example.demo.util.LocationBatchCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compact storage for closed days.
+ * <p>
+ * With {@code location.storage.mode=compact} a nightly job folds every closed user-day of
+ * wff_location_tracking into one daily_location_track row (about 3-6 bytes per fix instead of
+ * 100+ with indexes) and deletes the raw rows. The day's last fix is kept as a raw row so the
+ * latest-position queries keep working; it is never duplicated in the blob. Rows without
+ * coordinates cannot be encoded and stay raw as well. Days are taken from the fix timestamp,
+ * not the date column, so a blob's track_date always matches the fixes in it. Late uploads for a
+ * sealed day are merged into its blob on the next run. History reads merge sealed days back in
+ * whatever the mode, so switching back to {@code rows} loses nothing.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DailyTrackStore {
+
+    public static final String MODE_ROWS = "rows";
+    public static final String MODE_COMPACT = "compact";
+
+    // ~0.1 m resolution
+    private static final int SCALE = 1_000_000;
+
+    private final DailyLocationTrackRepository trackRepository;
+    private final WffLocationTrackingRepository locationTrackingRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${location.storage.mode:rows}")
+    private String mode = MODE_ROWS;
+
+    // User-days sealed per query round; the job keeps going until none are left
+    @Value("${location.storage.seal-batch:200}")
+    private int sealBatch = 200;
+
+    @Scheduled(cron = "${location.storage.seal-cron:0 30 0 * * *}")
+    public void sealClosedDays() {
+        if (!MODE_COMPACT.equals(mode)) {
+            return;
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        LocalDate today = LocalDate.now();
+        int sealed = 0;
+        int failed = 0;
+
+        List<Object[]> days;
+        do {
+            days = locationTrackingRepository.findUnsealedDays(today.atStartOfDay(), Limit.of(sealBatch));
+            int before = sealed;
+            for (Object[] day : days) {
+                String userName = (String) day[0];
+                LocalDate date = (LocalDate) day[1];
+                try {
+                    tx.executeWithoutResult(status -> sealDay(userName, date));
+                    sealed++;
+                } catch (Exception e) {
+                    failed++;
+                    log.error("Failed to seal location track {} {}", userName, date, e);
+                }
+            }
+            // Stop rather than loop forever when a whole round keeps failing
+            if (sealed == before) {
+                break;
+            }
+        } while (days.size() == sealBatch);
+
+        if (sealed > 0 || failed > 0) {
+            log.info("Sealed {} user-days of location history ({} failed)", sealed, failed);
+        }
+    }
+
+    // A day is the fix timestamps' day, which is also what reads select blobs by
+    void sealDay(String userName, LocalDate date) {
+        LocalDateTime from = date.atStartOfDay();
+        LocalDateTime to = date.plusDays(1).atStartOfDay();
+        List<WffLocationTracking> raw = locationTrackingRepository.findDayForSealing(userName, from, to);
+        if (raw.size() < 2) {
+            return;
+        }
+        Optional<DailyLocationTrack> existing = trackRepository.findByUserNameAndTrackDate(userName, date);
+
+        // Merge blob and raw fixes, de-duplicated by timestamp
+        TreeMap<LocalDateTime, LocationFixDto> fixes = new TreeMap<>();
+        existing.ifPresent(t -> LocationBatchCodec.decodeTrack(userName, t.getData())
+                .forEach(f -> fixes.put(f.getTimestamp(), f)));
+        WffLocationTracking anchor = raw.get(raw.size() - 1);
+        for (WffLocationTracking w : raw) {
+            if (w.getTimestamp() != null && w.getLat() != null && w.getLon() != null) {
+                fixes.put(w.getTimestamp(), new LocationFixDto(userName, w.getTimestamp(), w.getLat(), w.getLon()));
+                anchor = w;
+            }
+        }
+        // The anchor stays raw
+        fixes.remove(anchor.getTimestamp());
+
+        if (!fixes.isEmpty()) {
+            List<LocationFixDto> ordered = new ArrayList<>(fixes.values());
+            DailyLocationTrack track = existing.orElseGet(() -> DailyLocationTrack.builder()
+                    .userName(userName)
+                    .trackDate(date)
+                    .build());
+            track.setFixCount(ordered.size());
+            track.setFirstFixAt(ordered.get(0).getTimestamp());
+            track.setLastFixAt(ordered.get(ordered.size() - 1).getTimestamp());
+            track.setData(LocationBatchCodec.encode(ordered, SCALE));
+            trackRepository.save(track);
+        }
+        locationTrackingRepository.deleteDayExcept(userName, from, to, anchor.getId());
+    }
+
+    /**
+     * Sealed fixes in [from, to], newest first, as detached (id-less) tracking rows.
+     */
+    public List<WffLocationTracking> sealedHistory(String userName, LocalDateTime from, LocalDateTime to) {
+        List<DailyLocationTrack> tracks = userName != null
+                ? trackRepository.findByUserNameAndTrackDateBetweenOrderByTrackDateDesc(
+                userName, from.toLocalDate(), to.toLocalDate())
+                : trackRepository.findByTrackDateBetweenOrderByTrackDateDesc(from.toLocalDate(), to.toLocalDate());
+        List<WffLocationTracking> result = new ArrayList<>();
+        for (DailyLocationTrack t : tracks) {
+            for (LocationFixDto f : decodeNewestFirst(t, from, to)) {
+                result.add(WffLocationTracking.builder()
+                        .userName(f.getUserName())
+                        .lat(f.getLat())
+                        .lon(f.getLon())
+                        .date(t.getTrackDate())
+                        .timestamp(f.getTimestamp())
+                        .build());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merges sealed fixes into a newest-first list of raw rows.
+     */
+    public List<WffLocationTracking> withSealed(List<WffLocationTracking> raw, String userName,
+                                                LocalDateTime from, LocalDateTime to) {
+        List<WffLocationTracking> sealed = sealedHistory(userName, from, to);
+        if (sealed.isEmpty()) {
+            return raw;
+        }
+        return Stream.concat(raw.stream(), sealed.stream())
+                .sorted(Comparator.comparing(WffLocationTracking::getTimestamp,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sealed fixes of one day within [from, to], newest first across all the day's tracks.
+     * Holds at most one day of fixes; used by the history export to merge a day into its raw rows.
+     */
+    public List<LocationFixDto> sealedDayNewestFirst(String userName, LocalDate day, LocalDateTime from, LocalDateTime to) {
+        List<DailyLocationTrack> tracks = userName != null
+                ? trackRepository.findByUserNameAndTrackDateBetweenOrderByTrackDateDesc(userName, day, day)
+                : trackRepository.findByTrackDateBetweenOrderByTrackDateDesc(day, day);
+        List<LocationFixDto> result = new ArrayList<>();
+        for (DailyLocationTrack t : tracks) {
+            result.addAll(decodeNewestFirst(t, from, to));
+        }
+        if (tracks.size() > 1) {
+            result.sort(Comparator.comparing(LocationFixDto::getTimestamp).reversed());
+        }
+        return result;
+    }
+
+    private static List<LocationFixDto> decodeNewestFirst(DailyLocationTrack t, LocalDateTime from, LocalDateTime to) {
+        List<LocationFixDto> fixes = LocationBatchCodec.decodeTrack(t.getUserName(), t.getData());
+        List<LocationFixDto> result = new ArrayList<>(fixes.size());
+        for (int i = fixes.size() - 1; i >= 0; i--) {
+            LocalDateTime ts = fixes.get(i).getTimestamp();
+            if (!ts.isBefore(from) && !ts.isAfter(to)) {
+                result.add(fixes.get(i));
+            }
+        }
+        return result;
+    }
+}
@@ -1,19 +1,28 @@
 package com.example.demo.serviceimpl;
 
+import com.example.demo.dto.LabDetectionImagesDto;
+import com.example.demo.dto.LabDetectionPageResponse;
+import com.example.demo.dto.LabDetectionSummaryDto;
+import com.example.demo.entity.LabDetectionImage;
 import com.example.demo.repository.AllAlertNotificationRepo;
 import com.example.demo.repository.AllLabRtspUrlRepo;
+import com.example.demo.repository.LabDetectionImageRepository;
 import com.example.demo.repository.LabDetectionRepo;
 import com.example.demo.service.DataService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.List;
-import java.util.Map;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 @Slf4j
 @Service
@@ -24,12 +33,17 @@ public class DataServiceImpl implements DataService {
     private final AllAlertNotificationRepo allAlertNotificationRepo;
     private final AllLabRtspUrlRepo allLabRtspUrlRepo;
     private final LabDetectionRepo labDetectionRepo;
+    private final LabDetectionImageRepository imageRepository;
+    private final LabDataMigrator labDataMigrator;
 
     public DataServiceImpl(AllAlertNotificationRepo allAlertNotificationRepo,
-                           AllLabRtspUrlRepo allLabRtspUrlRepo, LabDetectionRepo labDetectionRepo) {
+                           AllLabRtspUrlRepo allLabRtspUrlRepo, LabDetectionRepo labDetectionRepo,
+                           LabDetectionImageRepository imageRepository, LabDataMigrator labDataMigrator) {
         this.allAlertNotificationRepo = allAlertNotificationRepo;
         this.allLabRtspUrlRepo = allLabRtspUrlRepo;
         this.labDetectionRepo = labDetectionRepo;
+        this.imageRepository = imageRepository;
+        this.labDataMigrator = labDataMigrator;
     }
 
 
@@ -43,7 +57,120 @@ public class DataServiceImpl implements DataService {
         return labDetectionData;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public LabDetectionPageResponse fetchLabDetectionFeed(Integer labId, Integer beforeId, String date, int limit) {
+        if (labId == null) {
+            throw new IllegalArgumentException("labId is required");
+        }
+        // One extra row tells us whether an older page exists
+        List<LabDetectionSummaryDto> rows;
+        if (date == null) {
+            rows = labDetectionRepo.findFeedPage(labId, beforeId, Limit.of(limit + 1));
+        } else {
+            rows = fetchWindow(labId, beforeId, date, limit + 1);
+        }
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+        return LabDetectionPageResponse.builder()
+                .detections(rows)
+                .cursor(rows.isEmpty() ? beforeId : rows.get(rows.size() - 1).getId())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Rows above the migration checkpoint, or without detected_at, are matched on the raw timestamp and
+    // everything else on detected_at; the two pages are disjoint and merged newest first
+    private List<LabDetectionSummaryDto> fetchWindow(Integer labId, Integer beforeId, String date, int max) {
+        LocalDateTime from;
+        LocalDateTime to;
+        try {
+            if (date.matches("\\d{8}")) {
+                from = LocalDate.parse(date, DateTimeFormatter.BASIC_ISO_DATE).atStartOfDay();
+                to = from.plusDays(1);
+            } else if (date.matches("\\d{8}_\\d{2}")) {
+                from = LocalDateTime.parse(date + "0000", DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+                to = from.plusHours(1);
+            } else {
+                throw new IllegalArgumentException("date must be yyyyMMdd or yyyyMMdd_HH");
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("date must be yyyyMMdd or yyyyMMdd_HH");
+        }
+
+        int checkpoint = (int) labDataMigrator.detectionCheckpoint();
+        List<LabDetectionSummaryDto> rows = new ArrayList<>(
+                labDetectionRepo.findUnmigratedFeedPage(labId, checkpoint, beforeId, date, Limit.of(max)));
+        int below = beforeId == null ? checkpoint + 1 : Math.min(beforeId, checkpoint + 1);
+        rows.addAll(labDetectionRepo.findFeedPageInRange(labId, from, to, below, Limit.of(max)));
+        rows.sort(Comparator.comparing(LabDetectionSummaryDto::getId).reversed());
+        return rows.size() > max ? rows.subList(0, max) : rows;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<LabDetectionImagesDto> fetchLabDetectionImages(Integer labId, List<Integer> ids) {
+        if (labId == null) {
+            throw new IllegalArgumentException("labId is required");
+        }
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        long checkpoint = labDataMigrator.detectionCheckpoint();
+        List<Integer> migrated = ids.stream().filter(id -> id <= checkpoint).toList();
+        List<Integer> pending = ids.stream().filter(id -> id > checkpoint).toList();
+
+        List<LabDetectionImagesDto> result = new ArrayList<>();
+        if (!pending.isEmpty()) {
+            result.addAll(labDetectionRepo.findPackedImages(labId, pending));
+        }
+        if (!migrated.isEmpty()) {
+            addMigratedImages(labId, migrated, result);
+        }
+        result.sort(Comparator.comparing(LabDetectionImagesDto::getId).reversed());
+        return result;
+    }
+
+    private void addMigratedImages(Integer labId, List<Integer> migrated, List<LabDetectionImagesDto> result) {
+        // Only ids of this lab, so one lab cannot read another's paths by id
+        Set<Integer> ofLab = new HashSet<>(labDetectionRepo.findIdsOfLab(labId, migrated));
+        if (ofLab.isEmpty()) {
+            return;
+        }
+        Map<Integer, Map<String, List<String>>> byDetection = new LinkedHashMap<>();
+        for (LabDetectionImage img : imageRepository.findByDetectionIdInOrderByDetectionIdAscKindAscSeqAsc(ofLab)) {
+            byDetection.computeIfAbsent(img.getDetectionId(), k -> new HashMap<>())
+                    .computeIfAbsent(img.getKind(), k -> new ArrayList<>())
+                    .add(img.getPath());
+        }
+        // No child rows: committed behind the checkpoint and not split yet (or nothing to split)
+        List<Integer> unsplit = ofLab.stream().filter(id -> !byDetection.containsKey(id)).toList();
+        if (!unsplit.isEmpty()) {
+            result.addAll(labDetectionRepo.findPackedImages(labId, unsplit));
+        }
+        for (Integer id : ofLab) {
+            Map<String, List<String>> kinds = byDetection.get(id);
+            if (kinds == null) {
+                continue;
+            }
+            result.add(LabDetectionImagesDto.builder()
+                    .id(id)
+                    .personImgPath(join(kinds, LabDetectionImage.KIND_PERSON))
+                    .objectImgPath(join(kinds, LabDetectionImage.KIND_OBJECT))
+                    .fireImgPath(join(kinds, LabDetectionImage.KIND_FIRE))
+                    .frameImgPath(join(kinds, LabDetectionImage.KIND_FRAME))
+                    .frameDetectedImgPath(join(kinds, LabDetectionImage.KIND_FRAME_DETECTED))
+                    .build());
+        }
+    }
 
+    // Same comma-separated shape the pages already parse
+    private static String join(Map<String, List<String>> kinds, String kind) {
+        List<String> paths = kinds.get(kind);
+        return paths == null ? null : String.join(",", paths);
+    }
 
     @Override
     public byte[] getFileData(String filePath) throws IOException {
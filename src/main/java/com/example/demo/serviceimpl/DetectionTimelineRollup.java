@@ -0,0 +1,220 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.DetectionTickDto;
+import com.example.demo.entity.LabDetectionBucket;
+import com.example.demo.entity.MigrationCheckpoint;
+import com.example.demo.repository.LabDetectionBucketRepository;
+import com.example.demo.repository.LabDetectionRepo;
+import com.example.demo.repository.MigrationCheckpointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps lab_detection_bucket up to date with labDetection.
+ * <p>
+ * Detections are written by the camera analytics service, not through this application, so
+ * the roll-up tails the table by id: every poll folds the rows after the watermark into their
+ * minute and hour buckets. AUTO_INCREMENT ids are handed out at insert but become visible at
+ * commit, so a lower id can show up after a higher one was read. The watermark therefore trails
+ * the newest row by a commit-safety lag: rows above it are re-read on every poll, those already
+ * applied are skipped, and it only moves past an id once that id has been applied for
+ * commit-lag-seconds. The settled watermark is persisted in migration_checkpoint whenever it moves,
+ * and a restart resumes from it; the rows applied above it in the last commit lag before the stop
+ * are folded a second time, which is the bound accepted for not storing applied ids. A first start
+ * with no checkpoint falls back to the highest lastDetectionId of the buckets. Each
+ * committed batch is also handed to {@link LabThresholdEvaluator} and {@link LabStatsTracker}, so
+ * the table is read once for all three.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DetectionTimelineRollup {
+
+    static final String CHECKPOINT = "labDetection.timeline";
+
+    private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final LabDetectionRepo labDetectionRepo;
+    private final LabDetectionBucketRepository bucketRepository;
+    private final MigrationCheckpointRepository checkpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final LabThresholdEvaluator thresholdEvaluator;
+    private final LabStatsTracker labStatsTracker;
+
+    @Value("${lab.timeline.batch-size:5000}")
+    private int batchSize = 5000;
+
+    // A row committed this long after a higher id was read would be missed
+    @Value("${lab.timeline.commit-lag-seconds:30}")
+    private long commitLagSeconds = 30;
+
+    // Every id at or below this is final
+    private Integer watermark;
+
+    // Ids above the watermark that are already in the buckets -> time (ms) they were applied
+    private final TreeMap<Integer, Long> applied = new TreeMap<>();
+
+    @Scheduled(fixedDelayString = "${lab.timeline.poll-ms:2000}")
+    public synchronized void poll() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        try {
+            if (watermark == null) {
+                watermark = checkpointRepository.findById(CHECKPOINT)
+                        .map(cp -> (int) cp.getLastId())
+                        .orElseGet(bucketRepository::findWatermark);
+                applied.clear();
+            }
+            int cursor = watermark;
+            while (true) {
+                List<DetectionTickDto> page = labDetectionRepo.findTicksAfter(cursor, Limit.of(batchSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                cursor = page.get(page.size() - 1).getId();
+                List<DetectionTickDto> batch = page.stream()
+                        .filter(t -> !applied.containsKey(t.getId()))
+                        .toList();
+                if (!batch.isEmpty()) {
+                    tx.executeWithoutResult(status -> apply(batch));
+                    long now = System.currentTimeMillis();
+                    batch.forEach(t -> applied.put(t.getId(), now));
+                    thresholdEvaluator.accept(batch);
+                    labStatsTracker.recordDetections(batch);
+                }
+                if (page.size() < batchSize) {
+                    break;
+                }
+            }
+            settle(tx, System.currentTimeMillis());
+        } catch (Exception e) {
+            // A failed batch was rolled back and is not in applied; the next poll reads it again
+            log.error("Detection timeline roll-up failed", e);
+        }
+    }
+
+    /**
+     * Moves the watermark to the highest applied id below which every applied id is older than
+     * the commit lag; gaps under it are then taken to be rolled-back or deleted inserts.
+     */
+    private void settle(TransactionTemplate tx, long now) {
+        long cutoff = now - commitLagSeconds * 1000;
+        Integer floor = null;
+        for (Map.Entry<Integer, Long> e : applied.entrySet()) {
+            if (e.getValue() > cutoff) {
+                break;
+            }
+            floor = e.getKey();
+        }
+        if (floor != null) {
+            int settled = floor;
+            int rows = applied.headMap(floor, true).size();
+            tx.executeWithoutResult(status -> {
+                MigrationCheckpoint cp = checkpointRepository.findById(CHECKPOINT)
+                        .orElseGet(() -> MigrationCheckpoint.builder().name(CHECKPOINT).build());
+                cp.setLastId(settled);
+                cp.setRowsProcessed(cp.getRowsProcessed() + rows);
+                cp.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.save(cp);
+            });
+            applied.headMap(floor, true).clear();
+            watermark = floor;
+        }
+    }
+
+    private void apply(List<DetectionTickDto> batch) {
+        int maxId = batch.get(batch.size() - 1).getId();
+        Map<BucketKey, LabDetectionBucket> deltas = fold(batch);
+
+        // One lookup per lab and resolution for the buckets this batch touches
+        Map<BucketKey, LabDetectionBucket> existing = new HashMap<>();
+        deltas.keySet().stream()
+                .collect(Collectors.groupingBy(k -> List.of(k.labId, k.resolution),
+                        Collectors.mapping(BucketKey::start, Collectors.toSet())))
+                .forEach((group, starts) -> bucketRepository
+                        .findByLabIdAndResolutionAndBucketStartIn((Integer) group.get(0), (String) group.get(1), starts)
+                        .forEach(b -> existing.put(new BucketKey(b.getLabId(), b.getResolution(), b.getBucketStart()), b)));
+
+        List<LabDetectionBucket> toSave = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            LabDetectionBucket b = existing.get(key);
+            if (b == null) {
+                b = delta;
+            } else {
+                merge(b, delta);
+            }
+            // A late row must not lower the first-start fallback watermark
+            if (b.getLastDetectionId() == null || b.getLastDetectionId() < maxId) {
+                b.setLastDetectionId(maxId);
+            }
+            toSave.add(b);
+        });
+        bucketRepository.saveAll(toSave);
+        log.debug("Folded {} detections into {} timeline buckets", batch.size(), toSave.size());
+    }
+
+    static Map<BucketKey, LabDetectionBucket> fold(List<DetectionTickDto> batch) {
+        Map<BucketKey, LabDetectionBucket> deltas = new LinkedHashMap<>();
+        for (DetectionTickDto t : batch) {
+            LocalDateTime at = parse(t.getTimestamp());
+            if (at == null || t.getLabId() == null) {
+                continue;
+            }
+            LabDetectionBucket one = LabDetectionBucket.builder()
+                    .detections(1)
+                    .personMax(t.getPersonCount())
+                    .personSum(t.getPersonCount() == null ? 0 : t.getPersonCount())
+                    .objectTotal(t.getObjectTotalCount() == null ? 0 : t.getObjectTotalCount())
+                    .fireCount(Boolean.TRUE.equals(t.getFireDetected()) ? 1 : 0)
+                    .build();
+            accumulate(deltas, new BucketKey(t.getLabId(), LabDetectionBucket.RESOLUTION_MINUTE,
+                    at.truncatedTo(ChronoUnit.MINUTES)), one);
+            accumulate(deltas, new BucketKey(t.getLabId(), LabDetectionBucket.RESOLUTION_HOUR,
+                    at.truncatedTo(ChronoUnit.HOURS)), one);
+        }
+        return deltas;
+    }
+
+    private static void accumulate(Map<BucketKey, LabDetectionBucket> deltas, BucketKey key, LabDetectionBucket one) {
+        LabDetectionBucket b = deltas.computeIfAbsent(key, k -> LabDetectionBucket.builder()
+                .labId(k.labId).resolution(k.resolution).bucketStart(k.start).build());
+        merge(b, one);
+    }
+
+    private static void merge(LabDetectionBucket into, LabDetectionBucket delta) {
+        into.setDetections(into.getDetections() + delta.getDetections());
+        into.setPersonSum(into.getPersonSum() + delta.getPersonSum());
+        into.setObjectTotal(into.getObjectTotal() + delta.getObjectTotal());
+        into.setFireCount(into.getFireCount() + delta.getFireCount());
+        if (delta.getPersonMax() != null
+                && (into.getPersonMax() == null || delta.getPersonMax() > into.getPersonMax())) {
+            into.setPersonMax(delta.getPersonMax());
+        }
+    }
+
+    static LocalDateTime parse(String timestamp) {
+        if (timestamp == null || timestamp.length() < 15) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(timestamp.substring(0, 15), TS_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    record BucketKey(Integer labId, String resolution, LocalDateTime start) {
+    }
+}
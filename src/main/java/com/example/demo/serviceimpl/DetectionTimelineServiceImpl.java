@@ -0,0 +1,57 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.LabDetectionBucket;
+import com.example.demo.repository.LabDetectionBucketRepository;
+import com.example.demo.service.DetectionTimelineService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class DetectionTimelineServiceImpl implements DetectionTimelineService {
+
+    private final LabDetectionBucketRepository bucketRepository;
+
+    // Keeps a minute-resolution response to a few thousand buckets
+    @Value("${lab.timeline.max-minute-range-hours:48}")
+    private long maxMinuteRangeHours = 48;
+
+    @Value("${lab.timeline.max-hour-range-days:92}")
+    private long maxHourRangeDays = 92;
+
+    @Override
+    public List<LabDetectionBucket> getTimeline(Integer labId, LocalDateTime from, LocalDateTime to,
+                                                String resolution) {
+        if (labId == null) {
+            throw new IllegalArgumentException("labId is required");
+        }
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        String res = resolution == null ? "" : resolution.trim().toUpperCase(Locale.ROOT);
+        Duration range = Duration.between(from, to);
+        switch (res) {
+            case LabDetectionBucket.RESOLUTION_MINUTE -> {
+                if (range.toHours() > maxMinuteRangeHours) {
+                    throw new IllegalArgumentException(
+                            "Minute resolution is limited to " + maxMinuteRangeHours + " hours");
+                }
+            }
+            case LabDetectionBucket.RESOLUTION_HOUR -> {
+                if (range.toDays() > maxHourRangeDays) {
+                    throw new IllegalArgumentException("Hour resolution is limited to " + maxHourRangeDays + " days");
+                }
+            }
+            default -> throw new IllegalArgumentException("resolution must be minute or hour");
+        }
+        return bucketRepository.findRange(labId, res, from, to);
+    }
+}
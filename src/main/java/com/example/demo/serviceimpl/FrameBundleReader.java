@@ -0,0 +1,130 @@
+package com.example.demo.serviceimpl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Packs a window of consecutive frames into one length-prefixed binary response for playback.
+ * <p>
+ * Layout (big-endian): {@code int frameCount}, then per frame in request order
+ * {@code short pathLength, path (UTF-8), int dataLength, data}. A dataLength of -1 marks a frame
+ * that is missing or could not be read. All reads are started before the first byte is written,
+ * so the window costs roughly one disk read of latency rather than one per frame.
+ * <p>
+ * Frames are held on the heap until written, so frames above {@code lab.frames.max-entry-bytes},
+ * and those past the window's {@code lab.frames.bundle-max-bytes}, are sent as missing; the
+ * player fetches them from /frame, which streams large files from disk.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FrameBundleReader {
+
+    public static final int MISSING = -1;
+
+    private final FrameCache frameCache;
+
+    @Value("${lab.frames.bundle-max-frames:16}")
+    private int maxFrames = 16;
+
+    // Bytes read for one bundle; later frames beyond it are sent as missing
+    @Value("${lab.frames.bundle-max-bytes:33554432}")
+    private long maxBytes = 32L * 1024 * 1024;
+
+    // A frame still not read after this long is sent as missing rather than stalling the bundle
+    @Value("${lab.frames.bundle-timeout-ms:10000}")
+    private long timeoutMs = 10000;
+
+    /**
+     * Validates the paths and starts reading every frame. Throws IllegalArgumentException for an
+     * empty or oversized window, or a path outside the frame directory.
+     */
+    public Bundle open(List<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            throw new IllegalArgumentException("At least one frame path is required");
+        }
+        if (paths.size() > maxFrames) {
+            throw new IllegalArgumentException("At most " + maxFrames + " frames per bundle");
+        }
+
+        List<CompletableFuture<byte[]>> frames = new ArrayList<>(paths.size());
+        long budget = maxBytes;
+        for (String path : paths) {
+            if (path.getBytes(StandardCharsets.UTF_8).length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Frame path is too long");
+            }
+            FrameCache.Frame frame;
+            try {
+                frame = frameCache.stat(path);
+            } catch (IOException e) {
+                frames.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            if (frame.size() > frameCache.maxEntryBytes() || frame.size() > budget) {
+                log.debug("Frame {} ({} bytes) left out of the bundle", path, frame.size());
+                frames.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            budget -= frame.size();
+            frames.add(frameCache.load(frame).exceptionally(e -> {
+                log.warn("Could not read frame {}: {}", path, e.getMessage());
+                return null;
+            }));
+        }
+        return new Bundle(List.copyOf(paths), frames);
+    }
+
+    /**
+     * Writes the bundle in request order as each frame becomes available; returns the number of frames sent.
+     */
+    public int write(Bundle bundle, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(bundle.paths().size());
+        int sent = 0;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        for (int i = 0; i < bundle.paths().size(); i++) {
+            byte[] path = bundle.paths().get(i).getBytes(StandardCharsets.UTF_8);
+            byte[] frame = await(bundle.frames().get(i), deadline);
+            data.writeShort(path.length);
+            data.write(path);
+            if (frame == null) {
+                data.writeInt(MISSING);
+            } else {
+                data.writeInt(frame.length);
+                data.write(frame);
+                sent++;
+            }
+        }
+        data.flush();
+        return sent;
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> frame, long deadline) throws IOException {
+        try {
+            return frame.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading frames");
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    public record Bundle(List<String> paths, List<CompletableFuture<byte[]>> frames) {
+    }
+}
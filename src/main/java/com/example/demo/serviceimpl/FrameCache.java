@@ -0,0 +1,210 @@
+package com.example.demo.serviceimpl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Camera frames under {@code profile.directory}, with an in-memory LRU tier bounded in bytes.
+ * <p>
+ * Frames are written once by the analytics service and never change, so the ETag is derived
+ * from size and modification time and clients may cache them as immutable. Recently viewed
+ * frames are kept in memory so replaying a detection sequence rarely touches the disk; frames
+ * larger than {@code lab.frames.max-entry-bytes} are streamed from disk and never cached.
+ */
+@Service
+@Slf4j
+public class FrameCache {
+
+    @Value("${profile.directory}")
+    private String profileDirectory;
+
+    @Value("${lab.frames.cache-bytes:134217728}")
+    private long maxBytes = 128L * 1024 * 1024;
+
+    @Value("${lab.frames.max-entry-bytes:4194304}")
+    private long maxEntryBytes = 4L * 1024 * 1024;
+
+    // Access-ordered: iteration starts at the least recently used frame
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long usedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong streamed = new AtomicLong();
+
+    /**
+     * Resolves a frame path the same way {@code DataService.getFileData} does and reads its attributes.
+     * Throws IllegalArgumentException for paths escaping the frame directory, NoSuchFileException when absent.
+     */
+    public Frame stat(String filePath) throws IOException {
+        if (filePath == null || filePath.isBlank()) {
+            throw new IllegalArgumentException("Frame path is required");
+        }
+        Path base = Paths.get(profileDirectory).toAbsolutePath().normalize();
+        Path file = Paths.get(profileDirectory + filePath).toAbsolutePath().normalize();
+        if (!file.startsWith(base)) {
+            throw new IllegalArgumentException("Frame path is outside the frame directory");
+        }
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        if (!attrs.isRegularFile()) {
+            throw new NoSuchFileException(filePath);
+        }
+        long modified = attrs.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(attrs.size()) + "-" + Long.toHexString(modified) + "\"";
+        return new Frame(file, etag, attrs.size(), modified);
+    }
+
+    public Resource open(Frame frame) throws IOException {
+        String key = frame.file().toString();
+        synchronized (this) {
+            Entry cached = entries.get(key);
+            if (cached != null && cached.etag.equals(frame.etag())) {
+                hits.incrementAndGet();
+                return new ByteArrayResource(cached.data);
+            }
+        }
+        misses.incrementAndGet();
+
+        if (frame.size() > maxEntryBytes || frame.size() > maxBytes) {
+            streamed.incrementAndGet();
+            return new FileSystemResource(frame.file());
+        }
+
+        byte[] data = Files.readAllBytes(frame.file());
+        put(key, new Entry(frame.etag(), data));
+        return new ByteArrayResource(data);
+    }
+
+    /**
+     * Whole frame as bytes, read with an asynchronous channel so several frames can be in flight
+     * at once without holding a thread each. Cacheable frames are kept in the memory tier as usual;
+     * frames larger than {@code lab.frames.max-entry-bytes} are refused, use {@link #open} to stream them.
+     */
+    public CompletableFuture<byte[]> load(Frame frame) {
+        String key = frame.file().toString();
+        synchronized (this) {
+            Entry cached = entries.get(key);
+            if (cached != null && cached.etag.equals(frame.etag())) {
+                hits.incrementAndGet();
+                return CompletableFuture.completedFuture(cached.data);
+            }
+        }
+        misses.incrementAndGet();
+
+        if (frame.size() > maxEntryBytes) {
+            return CompletableFuture.failedFuture(new IOException("Frame too large to load: " + frame.file()));
+        }
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(frame.file(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        ByteBuffer buffer = ByteBuffer.allocate((int) frame.size());
+        channel.read(buffer, 0, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer read, Void attachment) {
+                if (read >= 0 && buffer.hasRemaining()) {
+                    channel.read(buffer, buffer.position(), null, this);
+                    return;
+                }
+                close(channel);
+                // A file truncated since stat() is returned as read, and not cached
+                byte[] data = buffer.hasRemaining() ? Arrays.copyOf(buffer.array(), buffer.position()) : buffer.array();
+                if (!buffer.hasRemaining() && data.length <= maxEntryBytes && data.length <= maxBytes) {
+                    put(key, new Entry(frame.etag(), data));
+                }
+                result.complete(data);
+            }
+
+            @Override
+            public void failed(Throwable e, Void attachment) {
+                close(channel);
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    public long maxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    // Drops a frame from the memory tier, e.g. once its file has been deleted
+    public synchronized void evict(Frame frame) {
+        Entry old = entries.remove(frame.file().toString());
+        if (old != null) {
+            usedBytes -= old.data.length;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long h = hits.get();
+        long m = misses.get();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("usedBytes", usedBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("evictions", evictions.get());
+        stats.put("streamedFromDisk", streamed.get());
+        return stats;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry old = entries.put(key, entry);
+        if (old != null) {
+            usedBytes -= old.data.length;
+        }
+        usedBytes += entry.data.length;
+
+        var it = entries.values().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            usedBytes -= eldest.data.length;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static void close(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Could not close frame channel", e);
+        }
+    }
+
+    public record Frame(Path file, String etag, long size, long lastModified) {
+    }
+
+    private record Entry(String etag, byte[] data) {
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.Employee;
+import com.example.demo.entity.Geofence;
+import com.example.demo.entity.GeofenceEvent;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.GeofenceEventRepository;
+import com.example.demo.repository.GeofenceRepository;
+import com.example.demo.util.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates every incoming fix against the configured geofences.
+ * Fences are bucketed by the grid cells their bounding box covers, so a ping only
+ * tests the handful of fences around it; per-user membership is kept in memory and
+ * only transitions (ENTER / EXIT) are persisted and pushed over STOMP.
+ * <p>
+ * Ingest calls this after its own commit, so events are stored in a transaction of their own
+ * and pushed only once that has committed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GeofenceEngine {
+
+    private final GeofenceRepository geofenceRepository;
+    private final GeofenceEventRepository geofenceEventRepository;
+    private final SimpMessagingTemplate messaging;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${location.geofence.cell-degrees:0.1}")
+    private double cellDegrees = 0.1;
+
+    private volatile FenceSnapshot snapshot = new FenceSnapshot(Map.of(), Map.of());
+
+    // username -> ids of fences the user was inside at the last evaluated fix
+    private final Map<String, Set<Long>> membership = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        Map<Long, List<CompiledFence>> cells = new HashMap<>();
+        Map<Long, CompiledFence> byId = new HashMap<>();
+
+        for (Geofence g : geofenceRepository.findAllActive()) {
+            CompiledFence fence;
+            try {
+                fence = compile(g);
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping invalid geofence {}: {}", g.getId(), e.getMessage());
+                continue;
+            }
+            byId.put(g.getId(), fence);
+            for (int r = row(fence.minLat); r <= row(fence.maxLat); r++) {
+                for (int c = col(fence.minLon); c <= col(fence.maxLon); c++) {
+                    cells.computeIfAbsent(key(r, c), k -> new ArrayList<>()).add(fence);
+                }
+            }
+        }
+        snapshot = new FenceSnapshot(cells, byId);
+        log.info("Geofence engine loaded {} active fences over {} cells", byId.size(), cells.size());
+    }
+
+    public List<GeofenceEvent> evaluate(Employee employee, WffLocationTracking fix) {
+        if (fix == null || !GeoUtils.isValid(fix.getLat(), fix.getLon())) {
+            return List.of();
+        }
+        FenceSnapshot current = snapshot;
+        String userName = fix.getUserName();
+        double lat = fix.getLat();
+        double lon = fix.getLon();
+
+        Set<Long> inside = new HashSet<>();
+        for (CompiledFence fence : current.cells.getOrDefault(key(row(lat), col(lon)), List.of())) {
+            if (fence.appliesTo(employee, userName) && fence.contains(lat, lon)) {
+                inside.add(fence.source.getId());
+            }
+        }
+
+        Set<Long> previous = membership.put(userName, inside);
+        if (previous == null) {
+            // First fix since startup: adopt the membership without emitting events
+            return List.of();
+        }
+
+        List<GeofenceEvent> events = new ArrayList<>();
+        for (Long id : inside) {
+            if (!previous.contains(id)) {
+                events.add(event(current.byId.get(id), fix, GeofenceEvent.ENTER));
+            }
+        }
+        for (Long id : previous) {
+            CompiledFence fence = current.byId.get(id);
+            // Fences deleted since the last fix just drop out silently
+            if (fence != null && !inside.contains(id)) {
+                events.add(event(fence, fix, GeofenceEvent.EXIT));
+            }
+        }
+
+        if (!events.isEmpty()) {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            List<GeofenceEvent> saved;
+            try {
+                saved = tx.execute(status -> geofenceEventRepository.saveAll(events));
+            } catch (RuntimeException e) {
+                // Same transitions again on the next fix
+                membership.put(userName, previous);
+                throw e;
+            }
+            for (GeofenceEvent e : saved) {
+                messaging.convertAndSend("/topic/geofence.events", e);
+                messaging.convertAndSend("/topic/geofence.user." + userName, e);
+            }
+            return saved;
+        }
+        return events;
+    }
+
+    /**
+     * Distance in metres from a point to the nearest boundary of a fence that applies to the user,
+     * looking only at fences within {@code searchMeters}; empty when there is none that close.
+     */
+    public OptionalDouble nearestBoundaryMeters(Employee employee, String userName, double lat, double lon,
+                                                double searchMeters) {
+        FenceSnapshot current = snapshot;
+        double dLat = GeoUtils.metersToLatDegrees(searchMeters);
+        double dLon = GeoUtils.metersToLonDegrees(searchMeters, lat);
+        double best = Double.MAX_VALUE;
+        Set<Long> seen = new HashSet<>();
+
+        for (int r = row(lat - dLat); r <= row(lat + dLat); r++) {
+            for (int c = col(lon - dLon); c <= col(lon + dLon); c++) {
+                for (CompiledFence fence : current.cells.getOrDefault(key(r, c), List.of())) {
+                    if (seen.add(fence.source.getId()) && fence.appliesTo(employee, userName)) {
+                        best = Math.min(best, fence.boundaryDistanceMeters(lat, lon));
+                    }
+                }
+            }
+        }
+        return best <= searchMeters ? OptionalDouble.of(best) : OptionalDouble.empty();
+    }
+
+    /**
+     * Parses and validates a fence; throws IllegalArgumentException when the geometry is unusable.
+     */
+    public static CompiledFence compile(Geofence g) {
+        if (g.getScopeType() == null) {
+            throw new IllegalArgumentException("Scope type is required");
+        }
+        if (!Geofence.SCOPE_ALL.equals(g.getScopeType())
+                && (g.getScopeValue() == null || g.getScopeValue().isBlank())) {
+            throw new IllegalArgumentException("Scope value is required for scope " + g.getScopeType());
+        }
+
+        if (Geofence.SHAPE_CIRCLE.equals(g.getShape())) {
+            if (!GeoUtils.isValid(g.getCenterLat(), g.getCenterLon())
+                    || g.getRadiusMeters() == null || g.getRadiusMeters() <= 0) {
+                throw new IllegalArgumentException("Circle geofence needs a valid center and a positive radius");
+            }
+            double dLat = GeoUtils.metersToLatDegrees(g.getRadiusMeters());
+            double dLon = GeoUtils.metersToLonDegrees(g.getRadiusMeters(), g.getCenterLat());
+            return new CompiledFence(g,
+                    g.getCenterLat() - dLat, g.getCenterLon() - dLon,
+                    g.getCenterLat() + dLat, g.getCenterLon() + dLon,
+                    null, null);
+        }
+
+        if (Geofence.SHAPE_POLYGON.equals(g.getShape())) {
+            if (g.getPolygon() == null || g.getPolygon().isBlank()) {
+                throw new IllegalArgumentException("Polygon geofence needs vertices");
+            }
+            String[] vertices = g.getPolygon().trim().split(";");
+            if (vertices.length < 3) {
+                throw new IllegalArgumentException("Polygon geofence needs at least 3 vertices");
+            }
+            double[] lats = new double[vertices.length];
+            double[] lons = new double[vertices.length];
+            double minLat = 90, minLon = 180, maxLat = -90, maxLon = -180;
+            for (int i = 0; i < vertices.length; i++) {
+                String[] parts = vertices[i].trim().split(",");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Invalid polygon vertex: " + vertices[i]);
+                }
+                try {
+                    lats[i] = Double.parseDouble(parts[0].trim());
+                    lons[i] = Double.parseDouble(parts[1].trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid polygon vertex: " + vertices[i]);
+                }
+                if (!GeoUtils.isValid(lats[i], lons[i])) {
+                    throw new IllegalArgumentException("Polygon vertex out of range: " + vertices[i]);
+                }
+                minLat = Math.min(minLat, lats[i]);
+                maxLat = Math.max(maxLat, lats[i]);
+                minLon = Math.min(minLon, lons[i]);
+                maxLon = Math.max(maxLon, lons[i]);
+            }
+            return new CompiledFence(g, minLat, minLon, maxLat, maxLon, lats, lons);
+        }
+
+        throw new IllegalArgumentException("Unknown geofence shape: " + g.getShape());
+    }
+
+    private static GeofenceEvent event(CompiledFence fence, WffLocationTracking fix, String type) {
+        return GeofenceEvent.builder()
+                .geofenceId(fence.source.getId())
+                .geofenceName(fence.source.getName())
+                .fenceType(fence.source.getFenceType())
+                .userName(fix.getUserName())
+                .eventType(type)
+                .lat(fix.getLat())
+                .lon(fix.getLon())
+                .timestamp(fix.getTimestamp())
+                .build();
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor(lat / cellDegrees);
+    }
+
+    private int col(double lon) {
+        return (int) Math.floor(lon / cellDegrees);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    private record FenceSnapshot(Map<Long, List<CompiledFence>> cells, Map<Long, CompiledFence> byId) {
+    }
+
+    public static final class CompiledFence {
+
+        private final Geofence source;
+        private final double minLat, minLon, maxLat, maxLon;
+        private final double[] lats, lons;
+
+        private CompiledFence(Geofence source, double minLat, double minLon, double maxLat, double maxLon,
+                              double[] lats, double[] lons) {
+            this.source = source;
+            this.minLat = minLat;
+            this.minLon = minLon;
+            this.maxLat = maxLat;
+            this.maxLon = maxLon;
+            this.lats = lats;
+            this.lons = lons;
+        }
+
+        boolean appliesTo(Employee employee, String userName) {
+            String value = source.getScopeValue();
+            return switch (source.getScopeType()) {
+                case Geofence.SCOPE_ALL -> true;
+                case Geofence.SCOPE_EMPLOYEE -> value.equalsIgnoreCase(userName);
+                case Geofence.SCOPE_OFFICE -> employee != null && value.equalsIgnoreCase(employee.getOfficeName());
+                case Geofence.SCOPE_DISTRICT -> employee != null && value.equalsIgnoreCase(employee.getDistrict());
+                default -> false;
+            };
+        }
+
+        boolean contains(double lat, double lon) {
+            if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon) {
+                return false;
+            }
+            if (lats == null) {
+                return GeoUtils.haversineMeters(source.getCenterLat(), source.getCenterLon(), lat, lon)
+                        <= source.getRadiusMeters();
+            }
+            // Even-odd ray casting; fences are small enough to treat lat/lon as planar
+            boolean inside = false;
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                if ((lats[i] > lat) != (lats[j] > lat)
+                        && lon < (lons[j] - lons[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lons[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        double boundaryDistanceMeters(double lat, double lon) {
+            if (lats == null) {
+                return Math.abs(GeoUtils.haversineMeters(source.getCenterLat(), source.getCenterLon(), lat, lon)
+                        - source.getRadiusMeters());
+            }
+            // Point-to-segment distance on a local equirectangular projection around the point
+            double kx = GeoUtils.METERS_PER_DEGREE * Math.cos(Math.toRadians(lat));
+            double ky = GeoUtils.METERS_PER_DEGREE;
+            double best = Double.MAX_VALUE;
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                double ax = (lons[j] - lon) * kx, ay = (lats[j] - lat) * ky;
+                double bx = (lons[i] - lon) * kx, by = (lats[i] - lat) * ky;
+                double dx = bx - ax, dy = by - ay;
+                double len2 = dx * dx + dy * dy;
+                double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / len2));
+                best = Math.min(best, Math.hypot(ax + t * dx, ay + t * dy));
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.Geofence;
+import com.example.demo.entity.GeofenceEvent;
+import com.example.demo.repository.GeofenceEventRepository;
+import com.example.demo.repository.GeofenceRepository;
+import com.example.demo.service.GeofenceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Service
+@Transactional
+public class GeofenceServiceImpl extends BaseServiceImpl<Geofence, Long> implements GeofenceService {
+
+    private final GeofenceEventRepository geofenceEventRepository;
+    private final GeofenceEngine geofenceEngine;
+
+    public GeofenceServiceImpl(GeofenceRepository geofenceRepository,
+                               GeofenceEventRepository geofenceEventRepository,
+                               GeofenceEngine geofenceEngine) {
+        super(geofenceRepository);
+        this.geofenceEventRepository = geofenceEventRepository;
+        this.geofenceEngine = geofenceEngine;
+    }
+
+    @Override
+    public Geofence save(Geofence geofence) {
+        // Throws IllegalArgumentException for unusable geometry before anything is written
+        GeofenceEngine.compile(geofence);
+        if (geofence.getCreatedAt() == null) {
+            geofence.setCreatedAt(LocalDateTime.now());
+        }
+        Geofence saved = repository.save(geofence);
+        repository.flush();
+        geofenceEngine.reload();
+        return saved;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        repository.deleteById(id);
+        repository.flush();
+        geofenceEngine.reload();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<GeofenceEvent> findEvents(String userName, LocalDateTime from, LocalDateTime to) {
+        if (userName != null && !userName.isBlank()) {
+            return geofenceEventRepository.findByUserNameAndTimestampBetweenOrderByTimestampDesc(userName, from, to);
+        }
+        return geofenceEventRepository.findByTimestampBetweenOrderByTimestampDesc(from, to);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.AllAlertNotification;
+import com.example.demo.entity.LabDetection;
+import com.example.demo.entity.LabDetectionImage;
+import com.example.demo.entity.MigrationCheckpoint;
+import com.example.demo.repository.AllAlertNotificationRepo;
+import com.example.demo.repository.LabDetectionImageRepository;
+import com.example.demo.repository.LabDetectionRepo;
+import com.example.demo.repository.MigrationCheckpointRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Resumable batch migration of the string-typed lab columns.
+ * <p>
+ * labDetection: parses timestamp into detected_at and splits the comma-packed image path
+ * columns into lab_detection_image. allAlertNotification: back-fills generated_at. Each batch
+ * and its checkpoint commit together, so the job can stop at any point and resume after the
+ * checkpoint. Because the analytics service keeps inserting detections in the old shape, the
+ * job keeps running after the backfill and converts new rows within one poll.
+ * <p>
+ * An insert can commit after a higher id was already read, so the checkpoint trails the newest
+ * converted row by commit-lag-seconds: rows above it are re-read every poll and the ones already
+ * converted in this run are skipped. Converting is idempotent (a detection's image rows are
+ * replaced, typed columns are only filled when empty), so rows above the checkpoint that are
+ * converted again after a restart come out the same.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LabDataMigrator {
+
+    public static final String DETECTIONS = "labDetection.typed";
+    public static final String ALERTS = "allAlertNotification.typed";
+
+    private static final DateTimeFormatter DETECTION_TS = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final DateTimeFormatter ALERT_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter[] ALERT_TS = {
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
+            DETECTION_TS
+    };
+
+    private final LabDetectionRepo labDetectionRepo;
+    private final LabDetectionImageRepository imageRepository;
+    private final AllAlertNotificationRepo alertRepo;
+    private final MigrationCheckpointRepository checkpointRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${lab.migration.batch-size:500}")
+    private int batchSize = 500;
+
+    // A row committed this long after a higher id was read would be left unconverted
+    @Value("${lab.migration.commit-lag-seconds:30}")
+    private long commitLagSeconds = 30;
+
+    // Every detection id at or below this has its typed columns and image rows committed; -1 until first read
+    private volatile long detectionCheckpoint = -1;
+
+    // Set once a poll has read every detection; until then the rows above the checkpoint are the backlog
+    private volatile boolean detectionsCaughtUp;
+
+    // Per migration: ids above the checkpoint converted in this run -> time (ms) of the commit
+    private final Map<String, TreeMap<Integer, Long>> converted = new HashMap<>();
+
+    @Scheduled(fixedDelayString = "${lab.migration.poll-ms:5000}")
+    public synchronized void run() {
+        try {
+            migrate(DETECTIONS, after -> labDetectionRepo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(batchSize)),
+                    this::migrateDetections, LabDetection::getId);
+            detectionsCaughtUp = true;
+            migrate(ALERTS, after -> alertRepo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(batchSize)),
+                    batch -> batch.forEach(this::migrateAlert), AllAlertNotification::getId);
+        } catch (Exception e) {
+            log.error("Lab data migration failed; it resumes from the last checkpoint", e);
+        }
+    }
+
+    public long detectionCheckpoint() {
+        if (detectionCheckpoint < 0) {
+            detectionCheckpoint = checkpointRepository.findById(DETECTIONS).map(MigrationCheckpoint::getLastId).orElse(0L);
+        }
+        return detectionCheckpoint;
+    }
+
+    /**
+     * True once the detection backlog has been converted, so only the last commit-lag's worth of
+     * rows sits above {@link #detectionCheckpoint()}.
+     */
+    public boolean detectionsCaughtUp() {
+        return detectionsCaughtUp;
+    }
+
+    private <T> void migrate(String name, Function<Integer, List<T>> nextBatch, Consumer<List<T>> convert,
+                             Function<T, Integer> idOf) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        TreeMap<Integer, Long> done = converted.computeIfAbsent(name, k -> new TreeMap<>());
+        int[] cursor = {-1};
+        Progress progress;
+        do {
+            progress = tx.execute(status -> {
+                MigrationCheckpoint cp = checkpointRepository.findById(name)
+                        .orElseGet(() -> MigrationCheckpoint.builder().name(name).build());
+                if (cursor[0] < 0) {
+                    cursor[0] = (int) cp.getLastId();
+                }
+                List<T> page = nextBatch.apply(cursor[0]);
+                if (page.isEmpty()) {
+                    return new Progress(cp.getLastId(), 0, cursor[0], List.of());
+                }
+                int lastRowId = idOf.apply(page.get(page.size() - 1));
+                List<T> fresh = page.stream().filter(r -> !done.containsKey(idOf.apply(r))).toList();
+                long settled = settled(done, cp.getLastId());
+                if (fresh.isEmpty() && settled == cp.getLastId()) {
+                    return new Progress(cp.getLastId(), page.size(), lastRowId, List.of());
+                }
+                if (!fresh.isEmpty()) {
+                    convert.accept(fresh);
+                }
+                cp.setLastId(settled);
+                cp.setRowsProcessed(cp.getRowsProcessed() + fresh.size());
+                cp.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.save(cp);
+                entityManager.flush();
+                entityManager.clear();
+                return new Progress(settled, page.size(), lastRowId, fresh.stream().map(idOf).toList());
+            });
+            long now = System.currentTimeMillis();
+            done.headMap((int) progress.lastId, true).clear();
+            progress.fresh.forEach(id -> done.put(id, now));
+            if (DETECTIONS.equals(name)) {
+                detectionCheckpoint = progress.lastId;
+            }
+            cursor[0] = progress.lastRowId;
+            if (!progress.fresh.isEmpty()) {
+                log.debug("Migrated {} rows of {}; checkpoint at id {}", progress.fresh.size(), name, progress.lastId);
+            }
+        } while (progress.rows == batchSize); // a short page means we have caught up
+    }
+
+    /**
+     * Highest converted id below which every converted id is older than the commit lag; gaps under
+     * it are then taken to be rolled-back or deleted inserts.
+     */
+    private long settled(TreeMap<Integer, Long> done, long checkpoint) {
+        long cutoff = System.currentTimeMillis() - commitLagSeconds * 1000;
+        long floor = checkpoint;
+        for (Map.Entry<Integer, Long> e : done.entrySet()) {
+            if (e.getValue() > cutoff) {
+                break;
+            }
+            floor = e.getKey();
+        }
+        return floor;
+    }
+
+    private void migrateDetections(List<LabDetection> batch) {
+        // Rows re-read after a restart may already have been split
+        imageRepository.deleteByDetectionIdIn(batch.stream().map(LabDetection::getId).toList());
+        batch.forEach(this::migrateDetection);
+    }
+
+    private void migrateDetection(LabDetection d) {
+        if (d.getDetectedAt() == null) {
+            d.setDetectedAt(parse(d.getTimestamp(), DETECTION_TS));
+        }
+        split(d.getId(), LabDetectionImage.KIND_PERSON, d.getPersonImgPath());
+        split(d.getId(), LabDetectionImage.KIND_OBJECT, d.getObjectImgPath());
+        split(d.getId(), LabDetectionImage.KIND_FIRE, d.getFireImgPath());
+        split(d.getId(), LabDetectionImage.KIND_FRAME, d.getFrameImgPath());
+        split(d.getId(), LabDetectionImage.KIND_FRAME_DETECTED, d.getFrameDetectedImgPath());
+    }
+
+    private void migrateAlert(AllAlertNotification a) {
+        if (a.getGeneratedAt() != null) {
+            return;
+        }
+        LocalDateTime at = parse(a.getGeneratedTimeStamp(), ALERT_TS);
+        if (at == null && a.getDate() != null) {
+            try {
+                at = LocalDate.parse(a.getDate().trim(), ALERT_DATE).atStartOfDay();
+            } catch (DateTimeParseException e) {
+                // leave null
+            }
+        }
+        a.setGeneratedAt(at);
+    }
+
+    private void split(Integer detectionId, String kind, String packed) {
+        if (packed == null || packed.isBlank()) {
+            return;
+        }
+        int seq = 0;
+        for (String path : packed.split(",")) {
+            if (!path.isBlank()) {
+                // persist, not save: the natural key is assigned, so save would SELECT first
+                entityManager.persist(new LabDetectionImage(detectionId, kind, seq++, path.trim()));
+            }
+        }
+    }
+
+    static LocalDateTime parse(String value, DateTimeFormatter... formats) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String v = value.trim();
+        for (DateTimeFormatter f : formats) {
+            try {
+                return LocalDateTime.parse(f == DETECTION_TS && v.length() > 15 ? v.substring(0, 15) : v, f);
+            } catch (DateTimeParseException e) {
+                // try the next format
+            }
+        }
+        return null;
+    }
+
+    private record Progress(long lastId, int rows, int lastRowId, List<Integer> fresh) {
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LabDetectionImagesDto;
+import com.example.demo.dto.RetentionCandidateDto;
+import com.example.demo.dto.RetentionReportDto;
+import com.example.demo.entity.AllLabRtspUrl;
+import com.example.demo.entity.LabRetentionPolicy;
+import com.example.demo.entity.MigrationCheckpoint;
+import com.example.demo.repository.AllAlertNotificationRepo;
+import com.example.demo.repository.AllLabRtspUrlRepo;
+import com.example.demo.repository.LabDetectionImageRepository;
+import com.example.demo.repository.LabDetectionRepo;
+import com.example.demo.repository.LabRetentionPolicyRepository;
+import com.example.demo.repository.MigrationCheckpointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Nightly retention for labDetection, allAlertNotification and the frame files they reference.
+ * <p>
+ * Per lab (lab_retention_policy, falling back to the lab.retention.* defaults): every detection
+ * is kept for full-detail-days; after that only fire and threshold detections (person count over
+ * crowdThreshold, or a watched object) survive, until significant-days. Alerts are kept for
+ * alert-days. Frame files of deleted detections and alerts are removed once nothing the lab
+ * keeps still shows them: no surviving alert, no lab_detection_image row, and no packed path
+ * column of a detection the migrator has not split yet. The minute / hour buckets of {@link DetectionTimelineRollup} are untouched, so the
+ * timeline keeps its counts after the rows are gone. Runs are skipped until {@link LabDataMigrator}
+ * has caught up with its backlog, so that last check only ever reads the few rows inside its
+ * commit lag.
+ * <p>
+ * Work is done in short transactions of {@code batch-size} rows with a pause between them, and
+ * stops at the run's time budget or when working hours begin; the full-detail pass resumes from
+ * a per-lab watermark, so kept rows are not scanned again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LabRetentionJob {
+
+    static final String CHECKPOINT_PREFIX = "retention.lab.";
+
+    private final AllLabRtspUrlRepo labRepo;
+    private final LabRetentionPolicyRepository policyRepository;
+    private final LabDetectionRepo labDetectionRepo;
+    private final LabDetectionImageRepository imageRepository;
+    private final AllAlertNotificationRepo alertRepo;
+    private final MigrationCheckpointRepository checkpointRepository;
+    private final FrameCache frameCache;
+    private final LabDataMigrator labDataMigrator;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${lab.retention.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${lab.retention.full-detail-days:30}")
+    private int defaultFullDetailDays = 30;
+
+    @Value("${lab.retention.significant-days:365}")
+    private int defaultSignificantDays = 365;
+
+    @Value("${lab.retention.alert-days:180}")
+    private int defaultAlertDays = 180;
+
+    @Value("${lab.retention.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${lab.retention.pause-ms:250}")
+    private long pauseMs = 250;
+
+    @Value("${lab.retention.max-run-minutes:240}")
+    private long maxRunMinutes = 240;
+
+    // Local hours [start, end) in which no batch is started; equal values disable the guard
+    @Value("${lab.retention.work-start-hour:8}")
+    private int workStartHour = 8;
+
+    @Value("${lab.retention.work-end-hour:20}")
+    private int workEndHour = 20;
+
+    private volatile RetentionReportDto lastReport;
+
+    @Scheduled(cron = "${lab.retention.cron:0 30 1 * * *}")
+    public synchronized RetentionReportDto run() {
+        if (!enabled) {
+            return null;
+        }
+        // Before that every batch would re-read the packed columns of the whole unsplit backlog
+        if (!labDataMigrator.detectionsCaughtUp()) {
+            log.info("Lab retention skipped: detection migration has not caught up yet");
+            return null;
+        }
+        Run run = new Run(LocalDateTime.now(), System.currentTimeMillis() + maxRunMinutes * 60_000);
+        Map<Integer, LabRetentionPolicy> policies = policyRepository.findAll().stream()
+                .collect(Collectors.toMap(LabRetentionPolicy::getLabId, Function.identity()));
+
+        boolean completed = true;
+        try {
+            for (AllLabRtspUrl lab : labRepo.findAll()) {
+                LabRetentionPolicy policy = policies.get(lab.getId());
+                if (!sweepDetail(lab, days(policy == null ? null : policy.getFullDetailDays(), defaultFullDetailDays), run)
+                        || !sweepSignificant(lab, days(policy == null ? null : policy.getSignificantDays(), defaultSignificantDays), run)
+                        || !sweepAlerts(lab, days(policy == null ? null : policy.getAlertDays(), defaultAlertDays), run)) {
+                    completed = false;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completed = false;
+        } catch (Exception e) {
+            log.error("Lab retention run failed; the next run resumes from the last committed batch", e);
+            completed = false;
+        }
+
+        RetentionReportDto report = run.report(completed);
+        lastReport = report;
+        log.info("Lab retention {}: {} detections deleted, {} kept, {} image rows, {} alerts, {} files ({} bytes)",
+                completed ? "completed" : "stopped early", report.getDetectionsDeleted(), report.getDetectionsKept(),
+                report.getImageRowsDeleted(), report.getAlertsDeleted(), report.getFilesDeleted(), report.getBytesReclaimed());
+        return report;
+    }
+
+    public RetentionReportDto lastReport() {
+        return lastReport;
+    }
+
+    // Full-detail pass: past fullDetailDays keep only fire / threshold detections
+    private boolean sweepDetail(AllLabRtspUrl lab, int fullDetailDays, Run run) throws InterruptedException {
+        if (fullDetailDays <= 0) {
+            return true;
+        }
+        LocalDateTime before = run.startedAt.minusDays(fullDetailDays);
+        String name = CHECKPOINT_PREFIX + lab.getId();
+        Integer threshold = LabThresholdEvaluator.crowdThreshold(lab);
+        Set<String> watched = LabThresholdEvaluator.names(lab.getThingsToBeDetected());
+
+        while (run.mayContinue()) {
+            MigrationCheckpoint cp = checkpointRepository.findById(name)
+                    .orElseGet(() -> MigrationCheckpoint.builder().name(name).build());
+            List<RetentionCandidateDto> batch = labDetectionRepo.findRetentionCandidates(
+                    lab.getId(), (int) cp.getLastId(), before, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                return true;
+            }
+
+            List<RetentionCandidateDto> drop = new ArrayList<>();
+            Set<String> keptPaths = new HashSet<>();
+            for (RetentionCandidateDto d : batch) {
+                if (significant(d, threshold, watched)) {
+                    run.kept++;
+                    addPaths(keptPaths, d);
+                } else {
+                    drop.add(d);
+                }
+            }
+            cp.setLastId(batch.get(batch.size() - 1).getId());
+            cp.setRowsProcessed(cp.getRowsProcessed() + batch.size());
+            cp.setUpdatedAt(LocalDateTime.now());
+            delete(lab, drop, keptPaths, cp, run);
+
+            if (batch.size() < batchSize) {
+                return true;
+            }
+            Thread.sleep(pauseMs);
+        }
+        return false;
+    }
+
+    // Past significantDays every detection goes
+    private boolean sweepSignificant(AllLabRtspUrl lab, int significantDays, Run run) throws InterruptedException {
+        if (significantDays <= 0) {
+            return true;
+        }
+        LocalDateTime before = run.startedAt.minusDays(significantDays);
+        while (run.mayContinue()) {
+            List<RetentionCandidateDto> batch = labDetectionRepo.findDetectedBefore(lab.getId(), before, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                return true;
+            }
+            delete(lab, batch, Set.of(), null, run);
+            if (batch.size() < batchSize) {
+                return true;
+            }
+            Thread.sleep(pauseMs);
+        }
+        return false;
+    }
+
+    private boolean sweepAlerts(AllLabRtspUrl lab, int alertDays, Run run) throws InterruptedException {
+        if (alertDays <= 0) {
+            return true;
+        }
+        LocalDateTime before = run.startedAt.minusDays(alertDays);
+        while (run.mayContinue()) {
+            List<Integer> ids = alertRepo.findIdsGeneratedBefore(lab.getId(), before, Limit.of(batchSize));
+            if (ids.isEmpty()) {
+                return true;
+            }
+            // Paths are read before the rows go; the files follow after the commit
+            Set<String> paths = new LinkedHashSet<>(alertRepo.findFramePathsByIdIn(ids));
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> alertRepo.deleteAllByIdInBatch(ids));
+            run.alerts += ids.size();
+            deleteUnreferenced(lab, paths, run);
+            if (ids.size() < batchSize) {
+                return true;
+            }
+            Thread.sleep(pauseMs);
+        }
+        return false;
+    }
+
+    // Rows (and the watermark, when given) commit together; files go only after the commit
+    private void delete(AllLabRtspUrl lab, List<RetentionCandidateDto> drop, Set<String> keptPaths,
+                        MigrationCheckpoint cp, Run run) {
+        List<Integer> ids = drop.stream().map(RetentionCandidateDto::getId).toList();
+        int imageRows = Optional.ofNullable(new TransactionTemplate(transactionManager).execute(status -> {
+            int deleted = 0;
+            if (!ids.isEmpty()) {
+                deleted = imageRepository.deleteByDetectionIdIn(ids);
+                labDetectionRepo.deleteAllByIdInBatch(ids);
+            }
+            if (cp != null) {
+                checkpointRepository.save(cp);
+            }
+            return deleted;
+        })).orElse(0);
+        run.detections += ids.size();
+        run.imageRows += imageRows;
+
+        Set<String> paths = new LinkedHashSet<>();
+        drop.forEach(d -> addPaths(paths, d));
+        // Rows kept from this batch are known without a query
+        paths.removeAll(keptPaths);
+        deleteUnreferenced(lab, paths, run);
+    }
+
+    // Deletes the files of rows that are gone, unless an alert or detection the lab keeps still lists them
+    private void deleteUnreferenced(AllLabRtspUrl lab, Set<String> paths, Run run) {
+        if (paths.isEmpty()) {
+            return;
+        }
+        paths.removeAll(alertRepo.findReferencedFramePaths(lab.getId(), paths));
+        if (!paths.isEmpty()) {
+            paths.removeAll(imageRepository.findReferencedPaths(lab.getId(), paths));
+        }
+        if (!paths.isEmpty()) {
+            Set<String> unsplit = new HashSet<>();
+            for (LabDetectionImagesDto d : labDetectionRepo.findPackedImagesAfter(
+                    lab.getId(), (int) labDataMigrator.detectionCheckpoint())) {
+                addPaths(unsplit, d.getPersonImgPath(), d.getObjectImgPath(), d.getFireImgPath(),
+                        d.getFrameImgPath(), d.getFrameDetectedImgPath());
+            }
+            paths.removeAll(unsplit);
+        }
+        paths.forEach(path -> deleteFile(path, run));
+    }
+
+    private void deleteFile(String path, Run run) {
+        try {
+            FrameCache.Frame frame = frameCache.stat(path);
+            frameCache.evict(frame);
+            if (Files.deleteIfExists(frame.file())) {
+                run.files++;
+                run.bytes += frame.size();
+            }
+        } catch (NoSuchFileException e) {
+            // already gone
+        } catch (IllegalArgumentException | IOException e) {
+            log.warn("Could not delete frame {}: {}", path, e.getMessage());
+        }
+    }
+
+    static boolean significant(RetentionCandidateDto d, Integer threshold, Set<String> watched) {
+        if (Boolean.TRUE.equals(d.getFireDetected())) {
+            return true;
+        }
+        if (threshold != null && d.getPersonCount() != null && d.getPersonCount() > threshold) {
+            return true;
+        }
+        if (!watched.isEmpty()) {
+            for (String name : LabThresholdEvaluator.names(d.getObjectName())) {
+                if (watched.contains(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void addPaths(Set<String> paths, RetentionCandidateDto d) {
+        addPaths(paths, d.getPersonImgPath(), d.getObjectImgPath(), d.getFireImgPath(),
+                d.getFrameImgPath(), d.getFrameDetectedImgPath());
+    }
+
+    private static void addPaths(Set<String> paths, String... packed) {
+        for (String p : packed) {
+            if (p == null || p.isBlank()) {
+                continue;
+            }
+            for (String path : p.split(",")) {
+                if (!path.isBlank()) {
+                    paths.add(path.trim());
+                }
+            }
+        }
+    }
+
+    private static int days(Integer override, int fallback) {
+        return override != null ? override : fallback;
+    }
+
+    private final class Run {
+
+        private final LocalDateTime startedAt;
+        private final long deadline;
+        private long detections, kept, imageRows, alerts, files, bytes;
+
+        private Run(LocalDateTime startedAt, long deadline) {
+            this.startedAt = startedAt;
+            this.deadline = deadline;
+        }
+
+        boolean mayContinue() {
+            int hour = LocalDateTime.now().getHour();
+            boolean workingHours = workStartHour <= workEndHour
+                    ? hour >= workStartHour && hour < workEndHour
+                    : hour >= workStartHour || hour < workEndHour;
+            return System.currentTimeMillis() < deadline && (workStartHour == workEndHour || !workingHours);
+        }
+
+        RetentionReportDto report(boolean completed) {
+            return RetentionReportDto.builder()
+                    .startedAt(startedAt)
+                    .finishedAt(LocalDateTime.now())
+                    .completed(completed)
+                    .detectionsDeleted(detections)
+                    .detectionsKept(kept)
+                    .imageRowsDeleted(imageRows)
+                    .alertsDeleted(alerts)
+                    .filesDeleted(files)
+                    .bytesReclaimed(bytes)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.DetectionTickDto;
+import com.example.demo.dto.LabAlertEvent;
+import com.example.demo.dto.LabStatsDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-lab rolling statistics for the lab dashboard, kept in memory and updated as detections
+ * (from the timeline tailer) and alerts (from the ingest pipeline) arrive.
+ * <p>
+ * Counts over the last {@code lab.stats.window-seconds} and the last hour live in small slotted
+ * counters, so an update is O(1) and nothing is re-queried from labDetection. Every
+ * {@code lab.stats.push-ms} the labs whose numbers changed since the last push, including
+ * windows that merely aged, go out as one array frame on /topic/labs.stats.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LabStatsTracker {
+
+    public static final String TOPIC = "/topic/labs.stats";
+
+    private static final int SLOT_SECONDS = 10;
+    private static final int HOUR_SLOT_SECONDS = 60;
+
+    private final SimpMessagingTemplate messaging;
+
+    @Value("${lab.stats.window-seconds:300}")
+    private int windowSeconds = 300;
+
+    private final Map<Integer, LabStats> labs = new ConcurrentHashMap<>();
+
+    // labId -> snapshot last pushed, to send only labs that changed
+    private final Map<Integer, LabStatsDto> lastSent = new HashMap<>();
+
+    public void recordDetections(List<DetectionTickDto> batch) {
+        for (DetectionTickDto tick : batch) {
+            LocalDateTime at = DetectionTimelineRollup.parse(tick.getTimestamp());
+            if (tick.getLabId() == null || at == null) {
+                continue;
+            }
+            stats(tick.getLabId()).onDetection(at, tick.getPersonCount(), Boolean.TRUE.equals(tick.getFireDetected()));
+        }
+    }
+
+    public void recordAlert(LabAlertEvent alert) {
+        if (alert.getLabId() == null || alert.getReceivedAt() == null) {
+            return;
+        }
+        stats(alert.getLabId()).onAlert(alert.getReceivedAt(), alert.getMessage());
+    }
+
+    public List<LabStatsDto> snapshot() {
+        long now = epoch(LocalDateTime.now());
+        List<LabStatsDto> snapshot = new ArrayList<>(labs.size());
+        labs.forEach((labId, stats) -> snapshot.add(stats.snapshot(labId, now)));
+        snapshot.sort(Comparator.comparing(LabStatsDto::getLabId));
+        return snapshot;
+    }
+
+    @Scheduled(fixedDelayString = "${lab.stats.push-ms:2000}")
+    public synchronized void push() {
+        List<LabStatsDto> changed = new ArrayList<>();
+        for (LabStatsDto dto : snapshot()) {
+            if (!dto.equals(lastSent.get(dto.getLabId()))) {
+                changed.add(dto);
+                lastSent.put(dto.getLabId(), dto);
+            }
+        }
+        if (!changed.isEmpty()) {
+            try {
+                messaging.convertAndSend(TOPIC, changed);
+            } catch (Exception e) {
+                log.warn("Lab stats broadcast failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private LabStats stats(Integer labId) {
+        return labs.computeIfAbsent(labId, id -> new LabStats(windowSeconds));
+    }
+
+    private static long epoch(LocalDateTime at) {
+        return at.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static final class LabStats {
+
+        private final int windowSeconds;
+        private final SlotCounter detections;
+        private final SlotCounter alerts = new SlotCounter(3600 / HOUR_SLOT_SECONDS, HOUR_SLOT_SECONDS);
+
+        private Integer personCount;
+        private LocalDateTime lastDetectionAt;
+        private LocalDateTime lastFireAt;
+        private String lastFireMessage;
+
+        LabStats(int windowSeconds) {
+            this.windowSeconds = windowSeconds;
+            this.detections = new SlotCounter(Math.max(1, windowSeconds / SLOT_SECONDS), SLOT_SECONDS);
+        }
+
+        synchronized void onDetection(LocalDateTime at, Integer persons, boolean fire) {
+            detections.add(epoch(at));
+            // Late rows still count towards the window but do not roll the current count back
+            if (lastDetectionAt == null || !at.isBefore(lastDetectionAt)) {
+                lastDetectionAt = at;
+                personCount = persons;
+            }
+            if (fire) {
+                fire(at, "Fire detected");
+            }
+        }
+
+        synchronized void onAlert(LocalDateTime at, String message) {
+            alerts.add(epoch(at));
+            if (message != null && message.toLowerCase(Locale.ROOT).contains("fire")) {
+                fire(at, message);
+            }
+        }
+
+        private void fire(LocalDateTime at, String message) {
+            if (lastFireAt == null || !at.isBefore(lastFireAt)) {
+                lastFireAt = at;
+                lastFireMessage = message;
+            }
+        }
+
+        synchronized LabStatsDto snapshot(Integer labId, long now) {
+            return LabStatsDto.builder()
+                    .labId(labId)
+                    .personCount(personCount)
+                    .lastDetectionAt(lastDetectionAt)
+                    .detectionsLastWindow(detections.sum(now))
+                    .windowSeconds(windowSeconds)
+                    .lastFireAt(lastFireAt)
+                    .lastFireMessage(lastFireMessage)
+                    .alertsLastHour(alerts.sum(now))
+                    .build();
+        }
+    }
+
+    /**
+     * Event counts in fixed-width time slots over a sliding window; a slot is reused once its
+     * start falls out of the window.
+     */
+    static final class SlotCounter {
+
+        private final int slotSeconds;
+        private final long[] slotStart;
+        private final int[] counts;
+
+        SlotCounter(int slots, int slotSeconds) {
+            this.slotSeconds = slotSeconds;
+            this.slotStart = new long[slots];
+            this.counts = new int[slots];
+            Arrays.fill(slotStart, Long.MIN_VALUE);
+        }
+
+        void add(long epochSecond) {
+            long slot = Math.floorDiv(epochSecond, slotSeconds);
+            int i = (int) Math.floorMod(slot, (long) counts.length);
+            if (slotStart[i] != slot) {
+                if (slotStart[i] > slot) {
+                    return; // older than the window this slot now covers
+                }
+                slotStart[i] = slot;
+                counts[i] = 0;
+            }
+            counts[i]++;
+        }
+
+        int sum(long nowEpochSecond) {
+            long newest = Math.floorDiv(nowEpochSecond, slotSeconds);
+            long oldest = newest - counts.length + 1;
+            int sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (slotStart[i] >= oldest && slotStart[i] <= newest) {
+                    sum += counts[i];
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.DetectionTickDto;
+import com.example.demo.entity.AllLabRtspUrl;
+import com.example.demo.repository.AllLabRtspUrlRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates each lab's crowdThreshold and thingsToBeDetected against incoming detections.
+ * <p>
+ * Every lab keeps per-second sample counts per rule: person count above the threshold, or a
+ * watched object named in the detection. A rule fires once {@code min-ratio} of the samples
+ * over the last {@code hold-seconds} match and the samples reach back that far, and re-arms only
+ * after the window is mostly clear again, so a brief dip does not re-alert. Alerts go through
+ * {@link AlertIngestPipeline}, which stores and broadcasts them like camera alerts.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LabThresholdEvaluator {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final AllLabRtspUrlRepo labRepo;
+    private final AlertIngestPipeline alertPipeline;
+    private final ObjectMapper objectMapper;
+
+    @Value("${lab.crowd.hold-seconds:60}")
+    private long holdSeconds = 60;
+
+    @Value("${lab.crowd.min-ratio:0.8}")
+    private double minRatio = 0.8;
+
+    // Older detections (e.g. a roll-up catching up on history) are not evaluated
+    @Value("${lab.crowd.max-age-seconds:300}")
+    private long maxAgeSeconds = 300;
+
+    private volatile Map<Integer, LabRule> rules = Map.of();
+
+    // "labId|crowd" or "labId|object:name" -> recent samples
+    private final Map<String, SampleRing> rings = new ConcurrentHashMap<>();
+    private final Set<String> firing = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void validate() {
+        if (holdSeconds < 1 || holdSeconds > 86_400) {
+            throw new IllegalStateException("lab.crowd.hold-seconds must be between 1 and 86400, was " + holdSeconds);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${lab.crowd.config-refresh-ms:60000}")
+    public void reloadRules() {
+        Map<Integer, LabRule> loaded = new HashMap<>();
+        for (AllLabRtspUrl lab : labRepo.findAll()) {
+            Integer threshold = crowdThreshold(lab);
+            Set<String> watched = names(lab.getThingsToBeDetected());
+            if (threshold != null || !watched.isEmpty()) {
+                loaded.put(lab.getId(), new LabRule(lab.getLabName(), threshold, watched));
+            }
+        }
+        rules = loaded;
+    }
+
+    public synchronized void accept(List<DetectionTickDto> batch) {
+        Map<Integer, LabRule> current = rules;
+        long oldest = System.currentTimeMillis() / 1000 - maxAgeSeconds;
+
+        for (DetectionTickDto tick : batch) {
+            LabRule rule = current.get(tick.getLabId());
+            LocalDateTime at = rule == null ? null : DetectionTimelineRollup.parse(tick.getTimestamp());
+            if (at == null) {
+                continue;
+            }
+            long epoch = at.atZone(ZoneId.systemDefault()).toEpochSecond();
+            if (epoch < oldest) {
+                continue;
+            }
+
+            if (rule.threshold != null) {
+                int persons = tick.getPersonCount() == null ? 0 : tick.getPersonCount();
+                if (evaluate(tick.getLabId() + "|crowd", epoch, persons > rule.threshold)) {
+                    raise(tick.getLabId(), at, "Overcrowd detected in " + rule.labName + ": " + persons
+                            + " persons for over " + holdSeconds + "s (allowed " + rule.threshold + ")");
+                }
+            }
+            Set<String> seen = names(tick.getObjectName());
+            for (String object : rule.watched) {
+                if (evaluate(tick.getLabId() + "|object:" + object, epoch, seen.contains(object))) {
+                    raise(tick.getLabId(), at, "Warning: " + object + " detected in " + rule.labName
+                            + " for over " + holdSeconds + "s");
+                }
+            }
+        }
+    }
+
+    // True exactly once per episode: when the rule starts holding
+    private boolean evaluate(String key, long epoch, boolean hit) {
+        SampleRing ring = rings.computeIfAbsent(key, k -> new SampleRing(holdSeconds));
+        ring.add(epoch, hit);
+        SampleRing.Window w = ring.window();
+        double ratio = w.total == 0 ? 0 : (double) w.hits / w.total;
+
+        if (w.covered && ratio >= minRatio) {
+            return firing.add(key);
+        }
+        if (ratio <= 1 - minRatio) {
+            firing.remove(key);
+        }
+        return false;
+    }
+
+    private void raise(Integer labId, LocalDateTime at, String message) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("labId", labId);
+        payload.put("message", message);
+        payload.put("time", at.format(TIME_FORMAT));
+        payload.put("source", "threshold");
+        try {
+            AlertIngestPipeline.Outcome outcome = alertPipeline.submit(objectMapper.writeValueAsString(payload));
+            log.info("Threshold alert for lab {} ({}): {}", labId, outcome, message);
+        } catch (JsonProcessingException e) {
+            log.error("Could not encode threshold alert for lab {}", labId, e);
+        }
+    }
+
+    // Total crowd allowed, or null when the lab has none (blank, negative or not a number)
+    static Integer crowdThreshold(AllLabRtspUrl lab) {
+        String value = lab.getCrowdThreshold();
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            int threshold = Integer.parseInt(value.trim());
+            return threshold < 0 ? null : threshold;
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring non-numeric crowd threshold '{}' of lab {}", value, lab.getId());
+            return null;
+        }
+    }
+
+    // Lower-cased names of a comma-separated object list (thingsToBeDetected, objectName)
+    static Set<String> names(String csv) {
+        if (csv == null || csv.isBlank()) {
+            return Set.of();
+        }
+        Set<String> names = new HashSet<>();
+        for (String name : csv.split(",")) {
+            if (!name.isBlank()) {
+                names.add(name.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+
+    private record LabRule(String labName, Integer threshold, Set<String> watched) {
+    }
+
+    /**
+     * Per-second sample counts over the last holdSeconds, in a ring of holdSeconds + 1 slots indexed
+     * by epoch second, so the span it covers does not depend on the detection rate. A gap longer than
+     * the window starts the history afresh.
+     */
+    static final class SampleRing {
+
+        private final long holdSeconds;
+        private final long[] seconds;
+        private final int[] totals;
+        private final int[] hits;
+        private long first = Long.MIN_VALUE;
+        private long newest = Long.MIN_VALUE;
+
+        SampleRing(long holdSeconds) {
+            this.holdSeconds = holdSeconds;
+            int slots = Math.toIntExact(holdSeconds + 1);
+            seconds = new long[slots];
+            totals = new int[slots];
+            hits = new int[slots];
+            Arrays.fill(seconds, Long.MIN_VALUE);
+        }
+
+        void add(long epoch, boolean hit) {
+            if (newest == Long.MIN_VALUE || epoch - newest > holdSeconds) {
+                Arrays.fill(seconds, Long.MIN_VALUE);
+                first = epoch;
+                newest = epoch;
+            } else if (epoch < newest - holdSeconds) {
+                return; // late sample that no longer falls in the window
+            }
+            newest = Math.max(newest, epoch);
+            first = Math.min(first, epoch);
+            int idx = (int) Math.floorMod(epoch, (long) seconds.length);
+            if (seconds[idx] != epoch) {
+                seconds[idx] = epoch;
+                totals[idx] = 0;
+                hits[idx] = 0;
+            }
+            totals[idx]++;
+            if (hit) {
+                hits[idx]++;
+            }
+        }
+
+        // Samples within holdSeconds of the newest one; covered when the history reaches back that far
+        Window window() {
+            long from = newest - holdSeconds;
+            int total = 0;
+            int matched = 0;
+            for (int i = 0; i < seconds.length; i++) {
+                if (seconds[i] >= from && seconds[i] <= newest) {
+                    total += totals[i];
+                    matched += hits[i];
+                }
+            }
+            return new Window(total, matched, newest != Long.MIN_VALUE && first <= from);
+        }
+
+        record Window(int total, int hits, boolean covered) {
+        }
+    }
+}
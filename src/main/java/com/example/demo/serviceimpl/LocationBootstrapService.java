@@ -0,0 +1,151 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationBootstrapResponse;
+import com.example.demo.dto.LocationFixDto;
+import com.example.demo.dto.LocationPointDto;
+import com.example.demo.dto.RosterEntryDto;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.EmployeeRepository;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import com.example.demo.util.TrackSimplifier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Everything the location-tracking page needs on first paint, in one response:
+ * today's roster, the latest fix per user (from the in-memory spatial index),
+ * optionally a simplified recent track per user, and the sync cursor to continue from.
+ * Tracks include fixes already folded into daily blobs by {@link DailyTrackStore}.
+ * <p>
+ * The independent sub-queries run in parallel on {@code locationQueryExecutor}, and
+ * concurrent requests with the same parameters within {@code location.bootstrap.cache-seconds}
+ * share one computation, so a room of dashboards opening at 9am costs one round of queries.
+ */
+@Service
+@Slf4j
+public class LocationBootstrapService {
+
+    private final EmployeeRepository employeeRepository;
+    private final WffLocationTrackingRepository locationTrackingRepository;
+    private final LocationSpatialIndex spatialIndex;
+    private final LocationSyncCursor syncCursor;
+    private final DailyTrackStore dailyTrackStore;
+    private final Executor executor;
+
+    @Value("${location.bootstrap.cache-seconds:5}")
+    private long cacheSeconds = 5;
+
+    @Value("${location.bootstrap.max-track-hours:24}")
+    private int maxTrackHours = 24;
+
+    @Value("${location.bootstrap.track-tolerance-meters:15}")
+    private double trackToleranceMeters = 15;
+
+    // request key -> in-flight or recently completed bootstrap
+    private final Map<String, CachedBootstrap> cache = new ConcurrentHashMap<>();
+
+    public LocationBootstrapService(EmployeeRepository employeeRepository,
+                                    WffLocationTrackingRepository locationTrackingRepository,
+                                    LocationSpatialIndex spatialIndex,
+                                    LocationSyncCursor syncCursor,
+                                    DailyTrackStore dailyTrackStore,
+                                    @Qualifier("locationQueryExecutor") Executor executor) {
+        this.employeeRepository = employeeRepository;
+        this.locationTrackingRepository = locationTrackingRepository;
+        this.spatialIndex = spatialIndex;
+        this.syncCursor = syncCursor;
+        this.dailyTrackStore = dailyTrackStore;
+        this.executor = executor;
+    }
+
+    public LocationBootstrapResponse bootstrap(boolean includeTracks, int trackHours) {
+        if (includeTracks && (trackHours < 1 || trackHours > maxTrackHours)) {
+            throw new IllegalArgumentException("trackHours must be between 1 and " + maxTrackHours);
+        }
+        String key = includeTracks ? "tracks:" + trackHours : "plain";
+        long now = System.currentTimeMillis();
+
+        CachedBootstrap entry = cache.compute(key, (k, existing) ->
+                existing != null && existing.expiresAt > now && !existing.result.isCompletedExceptionally()
+                        ? existing
+                        : new CachedBootstrap(now + cacheSeconds * 1000, load(includeTracks, trackHours)));
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            cache.remove(key, entry);
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<LocationBootstrapResponse> load(boolean includeTracks, int trackHours) {
+        LocalDateTime generatedAt = LocalDateTime.now();
+
+        // Cursor first: anything stored after this point reaches the client through location-sync
+        CompletableFuture<Long> cursor =
+                CompletableFuture.supplyAsync(syncCursor::settled, executor);
+        CompletableFuture<List<RosterEntryDto>> roster =
+                CompletableFuture.supplyAsync(() -> employeeRepository.findRosterForDate(LocalDate.now()), executor);
+        CompletableFuture<List<LocationPointDto>> latest =
+                CompletableFuture.supplyAsync(spatialIndex::all, executor);
+        CompletableFuture<Map<String, List<double[]>>> tracks = includeTracks
+                ? CompletableFuture.supplyAsync(() -> tracks(generatedAt.minusHours(trackHours), generatedAt), executor)
+                : CompletableFuture.completedFuture(null);
+
+        return CompletableFuture.allOf(cursor, roster, latest, tracks).thenApply(v -> {
+            LocationBootstrapResponse response = LocationBootstrapResponse.builder()
+                    .generatedAt(generatedAt)
+                    .roster(roster.join())
+                    .latest(latest.join())
+                    .cursor(cursor.join())
+                    .tracks(tracks.join())
+                    .build();
+            log.debug("Location bootstrap: {} roster, {} latest, tracks={}",
+                    response.getRoster().size(), response.getLatest().size(), includeTracks);
+            return response;
+        });
+    }
+
+    private Map<String, List<double[]>> tracks(LocalDateTime from, LocalDateTime to) {
+        Map<String, List<double[]>> raw = new LinkedHashMap<>();
+        for (LocationFixDto f : locationTrackingRepository.findFixesSince(from)) {
+            addPoint(raw, f.getUserName(), f.getTimestamp(), f.getLat(), f.getLon());
+        }
+        // A window reaching back past midnight may cover a day already sealed into a blob
+        List<WffLocationTracking> sealed = dailyTrackStore.sealedHistory(null, from, to);
+        if (!sealed.isEmpty()) {
+            for (WffLocationTracking w : sealed) {
+                addPoint(raw, w.getUserName(), w.getTimestamp(), w.getLat(), w.getLon());
+            }
+            raw.values().forEach(track -> track.sort(Comparator.comparingDouble(p -> p[0])));
+        }
+        raw.replaceAll((user, track) -> TrackSimplifier.simplify(track, trackToleranceMeters));
+        return raw;
+    }
+
+    private static void addPoint(Map<String, List<double[]>> tracks, String userName,
+                                 LocalDateTime timestamp, double lat, double lon) {
+        tracks.computeIfAbsent(userName, u -> new ArrayList<>()).add(new double[]{
+                timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), lat, lon});
+    }
+
+    private record CachedBootstrap(long expiresAt, CompletableFuture<LocationBootstrapResponse> result) {
+    }
+}
@@ -1,37 +1,185 @@
 package com.example.demo.serviceimpl;
 
 import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.util.GeoHash;
+import com.example.demo.util.GeoUtils;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Pushes location fixes to STOMP subscribers.
+ * <p>
+ * immediate: every fix is sent as soon as it is stored.
+ * tick: fixes are coalesced per user (latest wins) and flushed every
+ * {@code location.publisher.tick-ms} as one JSON array frame per destination.
+ * In both modes each payload is serialised once and sent as pre-encoded bytes,
+ * so the broker never re-runs Jackson per destination.
+ * <p>
+ * Besides the statewide topic every fix is routed to the scopes that contain it,
+ * /topic/location.district.{district} and /topic/location.cell.{geohash}, so a
+ * dashboard zoomed into one area only receives that area's traffic.
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class LocationEventPublisher {
 
+    public static final String MODE_IMMEDIATE = "immediate";
+    public static final String MODE_TICK = "tick";
+
+    private static final String LATEST_TOPIC = "/topic/location.latest";
+    private static final String USER_TOPIC_PREFIX = "/topic/location.user.";
+    private static final String DISTRICT_TOPIC_PREFIX = "/topic/location.district.";
+    private static final String CELL_TOPIC_PREFIX = "/topic/location.cell.";
+
+    private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
     private final SimpMessagingTemplate messaging;
+    private final ObjectMapper objectMapper;
 
-    public void publish(WffLocationTracking w) {
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("id", w.getId());
-        payload.put("userName", w.getUserName());
-        payload.put("lat", w.getLat());
-        payload.put("lon", w.getLon());
-        payload.put("timestamp", w.getTimestamp());
+    @Value("${location.publisher.mode:immediate}")
+    private String mode = MODE_IMMEDIATE;
 
-        Map<String, Object> location = new HashMap<>();
-        location.put("lat", w.getLat());
-        location.put("lng", w.getLon());
+    // Geohash length of the /topic/location.cell.* scopes; must match the client
+    @Value("${location.publisher.cell-precision:4}")
+    private int cellPrecision = 4;
 
-        payload.put("location", location);
+    // username -> latest fix not yet flushed (tick mode only)
+    private final Map<String, PendingFix> pending = new ConcurrentHashMap<>();
+
+    public void publish(WffLocationTracking w, String district) {
+        if (MODE_TICK.equals(mode)) {
+            pending.merge(w.getUserName(), new PendingFix(w, district), (old, neu) ->
+                    old.fix.getTimestamp() != null && neu.fix.getTimestamp() != null
+                            && neu.fix.getTimestamp().isBefore(old.fix.getTimestamp()) ? old : neu);
+            return;
+        }
+
+        byte[] payload = encode(w);
 
         // broadcast to all dashboards
-        messaging.convertAndSend("/topic/location.latest", payload);
+        send(LATEST_TOPIC, payload);
 
         // per-user stream (optional)
-        messaging.convertAndSend("/topic/location.user." + w.getUserName(), payload);
+        send(USER_TOPIC_PREFIX + w.getUserName(), payload);
+
+        // scoped streams for district / viewport subscribers
+        for (String scope : scopeTopics(w, district)) {
+            send(scope, payload);
+        }
+    }
+
+    public static String districtTopic(String district) {
+        return DISTRICT_TOPIC_PREFIX + district.trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-");
+    }
+
+    @Scheduled(fixedDelayString = "${location.publisher.tick-ms:1000}")
+    public void flush() {
+        if (!MODE_TICK.equals(mode) || pending.isEmpty()) {
+            return;
+        }
+
+        // destination -> payloads for that destination's frame
+        Map<String, List<byte[]>> frames = new HashMap<>();
+        for (String userName : pending.keySet()) {
+            PendingFix p = pending.remove(userName);
+            if (p == null) {
+                continue;
+            }
+            byte[] payload = encode(p.fix);
+            send(USER_TOPIC_PREFIX + userName, payload);
+            frames.computeIfAbsent(LATEST_TOPIC, d -> new ArrayList<>()).add(payload);
+            for (String scope : scopeTopics(p.fix, p.district)) {
+                frames.computeIfAbsent(scope, d -> new ArrayList<>()).add(payload);
+            }
+        }
+
+        frames.forEach((destination, payloads) -> send(destination, frame(payloads)));
+    }
+
+    private List<String> scopeTopics(WffLocationTracking w, String district) {
+        List<String> scopes = new ArrayList<>(2);
+        if (district != null && !district.isBlank()) {
+            scopes.add(districtTopic(district));
+        }
+        if (GeoUtils.isValid(w.getLat(), w.getLon())) {
+            scopes.add(CELL_TOPIC_PREFIX + GeoHash.encode(w.getLat(), w.getLon(), cellPrecision));
+        }
+        return scopes;
+    }
+
+    // Joins already-encoded objects into a JSON array without re-serialising them
+    private static byte[] frame(List<byte[]> encoded) {
+        int sizeHint = 2;
+        for (byte[] e : encoded) {
+            sizeHint += e.length + 1;
+        }
+        ByteArrayBuilder out = new ByteArrayBuilder(sizeHint);
+        out.append('[');
+        for (int i = 0; i < encoded.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.write(encoded.get(i), 0, encoded.get(i).length);
+        }
+        out.append(']');
+        return out.toByteArray();
+    }
+
+    private byte[] encode(WffLocationTracking w) {
+        try (ByteArrayBuilder out = new ByteArrayBuilder(160);
+             JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeObjectField("id", w.getId());
+            gen.writeStringField("userName", w.getUserName());
+            gen.writeObjectField("lat", w.getLat());
+            gen.writeObjectField("lon", w.getLon());
+            gen.writeStringField("timestamp", w.getTimestamp() != null ? w.getTimestamp().format(TS_FORMAT) : null);
+            if (w.getLat() != null && w.getLon() != null) {
+                gen.writeObjectFieldStart("location");
+                gen.writeNumberField("lat", w.getLat());
+                gen.writeNumberField("lng", w.getLon());
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+            gen.flush();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void send(String destination, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+        messaging.send(destination, message);
+    }
+
+    private record PendingFix(WffLocationTracking fix, String district) {
     }
 }
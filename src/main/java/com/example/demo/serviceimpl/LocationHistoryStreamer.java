@@ -0,0 +1,146 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationFixDto;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes location history straight from a forward-only DB cursor to the response, newest first,
+ * so an all-users pull never holds more than one sealed day in server memory.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LocationHistoryStreamer {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_COMPACT = "compact";
+
+    private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    // Push partial output to the client every N rows so it can start rendering early
+    private static final int FLUSH_EVERY = 1000;
+
+    private final WffLocationTrackingRepository locationTrackingRepository;
+    private final ObjectMapper objectMapper;
+    private final DailyTrackStore dailyTrackStore;
+
+    /**
+     * ndjson:  one {"userName","lat","lon","timestamp"} object per line.
+     * compact: {"fields":[...],"rows":[[...],...]} with epoch-millis timestamps;
+     * userName is dropped from the rows when a single user is requested.
+     */
+    @Transactional(readOnly = true)
+    public long stream(String userName, LocalDateTime from, LocalDateTime to, String format, OutputStream out)
+            throws IOException {
+        boolean singleUser = userName != null && !userName.isBlank();
+        long rows = 0;
+
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            // The caller owns the response stream (and any gzip wrapper around it)
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            boolean compact = FORMAT_COMPACT.equals(format);
+            if (compact) {
+                gen.writeStartObject();
+                gen.writeArrayFieldStart("fields");
+                if (!singleUser) {
+                    gen.writeString("userName");
+                }
+                gen.writeString("ts");
+                gen.writeString("lat");
+                gen.writeString("lon");
+                gen.writeEndArray();
+                gen.writeArrayFieldStart("rows");
+            } else {
+                // Drop the default space between root values; each object ends with its own newline
+                gen.setRootValueSeparator(null);
+            }
+
+            // Day by day, newest first: a sealed day's fixes interleave with the raw rows kept for
+            // that day (its anchor, late uploads), so each day is merged on timestamp. The day's
+            // blobs are read before its cursor opens, as a streaming cursor must be the only
+            // statement in flight on the connection.
+            for (LocalDate day = to.toLocalDate(); !day.isBefore(from.toLocalDate()); day = day.minusDays(1)) {
+                LocalDateTime dayFrom = max(from, day.atStartOfDay());
+                LocalDateTime dayTo = min(to, day.plusDays(1).atStartOfDay().minusNanos(1000));
+                Iterator<LocationFixDto> sealed = dailyTrackStore
+                        .sealedDayNewestFirst(singleUser ? userName : null, day, dayFrom, dayTo).iterator();
+
+                try (Stream<LocationFixDto> fixes = singleUser
+                        ? locationTrackingRepository.streamHistoryForUser(userName, dayFrom, dayTo)
+                        : locationTrackingRepository.streamHistory(dayFrom, dayTo)) {
+                    Iterator<LocationFixDto> raw = fixes.iterator();
+                    LocationFixDto r = raw.hasNext() ? raw.next() : null;
+                    LocationFixDto s = sealed.hasNext() ? sealed.next() : null;
+                    while (r != null || s != null) {
+                        if (s == null || (r != null && !r.getTimestamp().isBefore(s.getTimestamp()))) {
+                            writeRow(gen, r, compact, singleUser, ++rows);
+                            r = raw.hasNext() ? raw.next() : null;
+                        } else {
+                            writeRow(gen, s, compact, singleUser, ++rows);
+                            s = sealed.hasNext() ? sealed.next() : null;
+                        }
+                    }
+                }
+            }
+
+            if (compact) {
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.flush();
+        }
+
+        log.debug("Streamed {} location rows ({}) for {}", rows, format, singleUser ? userName : "all users");
+        return rows;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static void writeRow(JsonGenerator gen, LocationFixDto f, boolean compact, boolean singleUser, long row)
+            throws IOException {
+        if (compact) {
+            gen.writeStartArray();
+            if (!singleUser) {
+                gen.writeString(f.getUserName());
+            }
+            gen.writeNumber(f.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            gen.writeNumber(f.getLat());
+            gen.writeNumber(f.getLon());
+            gen.writeEndArray();
+        } else {
+            gen.writeStartObject();
+            gen.writeStringField("userName", f.getUserName());
+            gen.writeNumberField("lat", f.getLat());
+            gen.writeNumberField("lon", f.getLon());
+            gen.writeStringField("timestamp", f.getTimestamp().format(TS_FORMAT));
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        }
+        if (row % FLUSH_EVERY == 0) {
+            gen.flush();
+        }
+    }
+}
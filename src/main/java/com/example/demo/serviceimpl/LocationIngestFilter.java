@@ -0,0 +1,126 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationFixDto;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import com.example.demo.util.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether an incoming fix is worth a row, by comparing it with the user's last stored point.
+ * <ul>
+ *     <li>within {@code min-distance-meters} of it and younger than {@code heartbeat-seconds}: dropped
+ *     (a phone standing still keeps posting the same spot)</li>
+ *     <li>reachable only faster than {@code max-speed-mps}: rejected as a GPS jump</li>
+ *     <li>anything else, including one heartbeat row per interval while stationary: stored</li>
+ * </ul>
+ * Fixes without coordinates and late arrivals (older than the last stored point) are passed through.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LocationIngestFilter {
+
+    public enum Decision {
+        ACCEPT, DROP_STATIONARY, REJECT_SPEED
+    }
+
+    private static final LastPoint NONE = new LastPoint(null, 0, 0);
+
+    private final WffLocationTrackingRepository locationTrackingRepository;
+
+    @Value("${location.filter.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${location.filter.min-distance-meters:25}")
+    private double minDistanceMeters = 25;
+
+    @Value("${location.filter.heartbeat-seconds:300}")
+    private long heartbeatSeconds = 300;
+
+    @Value("${location.filter.max-speed-mps:70}")
+    private double maxSpeedMps = 70;
+
+    // username -> last stored point (NONE when the user has no usable row yet)
+    private final Map<String, LastPoint> lastStored = new ConcurrentHashMap<>();
+
+    public Decision check(String userName, LocalDateTime timestamp, Double lat, Double lon) {
+        if (!enabled) {
+            return Decision.ACCEPT;
+        }
+        LastPoint last = lastStored.computeIfAbsent(userName, this::load);
+        return decide(last, timestamp, lat, lon);
+    }
+
+    /**
+     * Filters an oldest-first batch; each fix is compared with the last one kept before it.
+     */
+    public List<LocationFixDto> filterBatch(String userName, List<LocationFixDto> sortedFixes) {
+        if (!enabled) {
+            return sortedFixes;
+        }
+        LastPoint last = lastStored.computeIfAbsent(userName, this::load);
+        List<LocationFixDto> kept = new ArrayList<>(sortedFixes.size());
+        for (LocationFixDto f : sortedFixes) {
+            if (decide(last, f.getTimestamp(), f.getLat(), f.getLon()) == Decision.ACCEPT) {
+                kept.add(f);
+                if (GeoUtils.isValid(f.getLat(), f.getLon())
+                        && (last.timestamp == null || f.getTimestamp().isAfter(last.timestamp))) {
+                    last = new LastPoint(f.getTimestamp(), f.getLat(), f.getLon());
+                }
+            }
+        }
+        if (kept.size() < sortedFixes.size()) {
+            log.debug("Batch for {}: kept {} of {} fixes", userName, kept.size(), sortedFixes.size());
+        }
+        return kept;
+    }
+
+    // Called once the row is stored, so a failed insert never becomes the reference point
+    public void remember(WffLocationTracking saved) {
+        if (saved.getTimestamp() == null || !GeoUtils.isValid(saved.getLat(), saved.getLon())) {
+            return;
+        }
+        LastPoint next = new LastPoint(saved.getTimestamp(), saved.getLat(), saved.getLon());
+        lastStored.merge(saved.getUserName(), next, (old, neu) ->
+                old.timestamp != null && !neu.timestamp.isAfter(old.timestamp) ? old : neu);
+    }
+
+    private Decision decide(LastPoint last, LocalDateTime timestamp, Double lat, Double lon) {
+        if (last.timestamp == null || timestamp == null || !GeoUtils.isValid(lat, lon)
+                || timestamp.isBefore(last.timestamp)) {
+            return Decision.ACCEPT;
+        }
+        double meters = GeoUtils.haversineMeters(last.lat, last.lon, lat, lon);
+        long seconds = Duration.between(last.timestamp, timestamp).getSeconds();
+
+        if (meters < minDistanceMeters) {
+            return seconds >= heartbeatSeconds ? Decision.ACCEPT : Decision.DROP_STATIONARY;
+        }
+        if (meters / Math.max(seconds, 1) > maxSpeedMps) {
+            return Decision.REJECT_SPEED;
+        }
+        return Decision.ACCEPT;
+    }
+
+    private LastPoint load(String userName) {
+        WffLocationTracking latest = locationTrackingRepository.findLatestForUserOne(userName);
+        if (latest == null || latest.getTimestamp() == null) {
+            return NONE;
+        }
+        return new LastPoint(latest.getTimestamp(), latest.getLat(), latest.getLon());
+    }
+
+    private record LastPoint(LocalDateTime timestamp, double lat, double lon) {
+    }
+}
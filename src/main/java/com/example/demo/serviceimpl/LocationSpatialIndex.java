@@ -0,0 +1,345 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationClusterResponse;
+import com.example.demo.dto.LocationPointDto;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import com.example.demo.util.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Uniform lat/lon grid over the latest known position of every WFF user.
+ * Seeded from the latest-per-user query at startup and kept current from the
+ * location ingest path, so radius / box / nearest lookups never touch the DB.
+ * A {@link ClusterPyramid} over the same positions serves the map's cluster view.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LocationSpatialIndex {
+
+    private final WffLocationTrackingRepository locationTrackingRepository;
+
+    @Value("${location.index.cell-degrees:0.05}")
+    private double cellDegrees = 0.05;
+
+    // Zoom levels above this get individual points instead of clusters
+    @Value("${location.cluster.max-zoom:15}")
+    private int clusterMaxZoom = 15;
+
+    @Value("${location.cluster.cells-per-tile:4}")
+    private int clusterCellsPerTile = 4;
+
+    private ClusterPyramid pyramid;
+
+    private final Map<String, Position> positions = new HashMap<>();
+    private final Map<Long, Set<String>> cells = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<WffLocationTracking> latest = locationTrackingRepository.findLatestPerUser();
+        lock.writeLock().lock();
+        try {
+            positions.clear();
+            cells.clear();
+            pyramid().clear();
+            latest.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Location spatial index built with {} users", size());
+    }
+
+    public void update(WffLocationTracking w) {
+        if (w == null || w.getUserName() == null || !GeoUtils.isValid(w.getLat(), w.getLon())) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            put(w);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String userName) {
+        lock.writeLock().lock();
+        try {
+            Position old = positions.remove(userName);
+            if (old != null) {
+                removeFromCell(old.cell, userName);
+                pyramid().remove(old.lat, old.lon);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return positions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<LocationPointDto> get(String userName) {
+        lock.readLock().lock();
+        try {
+            Position p = positions.get(userName);
+            return Optional.ofNullable(p).map(pos -> toDto(pos, null));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<LocationPointDto> all() {
+        lock.readLock().lock();
+        try {
+            List<LocationPointDto> result = new ArrayList<>(positions.size());
+            positions.values().forEach(p -> result.add(toDto(p, null)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<LocationPointDto> withinRadius(double lat, double lon, double radiusMeters) {
+        double dLat = GeoUtils.metersToLatDegrees(radiusMeters);
+        double dLon = GeoUtils.metersToLonDegrees(radiusMeters, lat);
+
+        List<LocationPointDto> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            forEachInBox(lat - dLat, lon - dLon, lat + dLat, lon + dLon, p -> {
+                double d = GeoUtils.haversineMeters(lat, lon, p.lat, p.lon);
+                if (d <= radiusMeters) {
+                    result.add(toDto(p, d));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.sort(Comparator.comparingDouble(LocationPointDto::getDistanceMeters));
+        return result;
+    }
+
+    public List<LocationPointDto> withinBox(double minLat, double minLon, double maxLat, double maxLon) {
+        List<LocationPointDto> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            forEachInBox(minLat, minLon, maxLat, maxLon, p -> result.add(toDto(p, null)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Clusters (count + centroid) for a map zoom and viewport; individual points once the zoom
+     * is past {@code location.cluster.max-zoom}. Payload size tracks the viewport, not headcount.
+     */
+    public LocationClusterResponse clusters(int zoom, double minLat, double minLon, double maxLat, double maxLon) {
+        lock.readLock().lock();
+        try {
+            if (zoom > clusterMaxZoom) {
+                List<LocationPointDto> points = new ArrayList<>();
+                forEachInBox(minLat, minLon, maxLat, maxLon, p -> points.add(toDto(p, null)));
+                return LocationClusterResponse.builder().zoom(zoom).clustered(false).points(points).build();
+            }
+            return LocationClusterResponse.builder()
+                    .zoom(zoom)
+                    .clustered(true)
+                    .clusters(pyramid == null ? List.of() : pyramid.query(zoom, minLat, minLon, maxLat, maxLon))
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Expands square rings of cells around the query point and stops once the
+     * closest possible point in the next ring is farther than the current k-th hit.
+     */
+    public List<LocationPointDto> nearest(double lat, double lon, int k) {
+        if (k <= 0) {
+            return List.of();
+        }
+        // Max-heap on distance so the worst of the current k sits on top
+        PriorityQueue<LocationPointDto> best =
+                new PriorityQueue<>(Comparator.comparingDouble(LocationPointDto::getDistanceMeters).reversed());
+
+        lock.readLock().lock();
+        try {
+            int total = positions.size();
+            int row0 = row(lat);
+            int col0 = col(lon);
+            int maxRing = (int) Math.ceil(360 / cellDegrees);
+            int visited = 0;
+
+            for (int ring = 0; visited < total && ring <= maxRing; ring++) {
+                if (8L * ring > cells.size()) {
+                    // Sparse grid far from the query point; a flat scan is cheaper than more rings
+                    best.clear();
+                    for (Position p : positions.values()) {
+                        offer(best, k, p, GeoUtils.haversineMeters(lat, lon, p.lat, p.lon));
+                    }
+                    break;
+                }
+                for (int r = row0 - ring; r <= row0 + ring; r++) {
+                    boolean edgeRow = r == row0 - ring || r == row0 + ring;
+                    int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+                    for (int c = col0 - ring; c <= col0 + ring; c += step) {
+                        Set<String> users = cells.get(key(r, c));
+                        if (users == null) {
+                            continue;
+                        }
+                        for (String user : users) {
+                            Position p = positions.get(user);
+                            visited++;
+                            offer(best, k, p, GeoUtils.haversineMeters(lat, lon, p.lat, p.lon));
+                        }
+                    }
+                }
+
+                if (best.size() == k) {
+                    double edgeLat = Math.min(89.0, Math.abs(lat) + (ring + 1) * cellDegrees);
+                    double nextRingMinMeters = ring * cellDegrees * GeoUtils.METERS_PER_DEGREE
+                            * Math.cos(Math.toRadians(edgeLat));
+                    if (nextRingMinMeters >= best.peek().getDistanceMeters()) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<LocationPointDto> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(LocationPointDto::getDistanceMeters));
+        return result;
+    }
+
+    // ---- internals (callers hold the lock) ----
+
+    private static void offer(PriorityQueue<LocationPointDto> best, int k, Position p, double distance) {
+        if (best.size() < k) {
+            best.add(toDto(p, distance));
+        } else if (distance < best.peek().getDistanceMeters()) {
+            best.poll();
+            best.add(toDto(p, distance));
+        }
+    }
+
+    private void put(WffLocationTracking w) {
+        if (!GeoUtils.isValid(w.getLat(), w.getLon())) {
+            return;
+        }
+        Position old = positions.get(w.getUserName());
+        if (old != null && old.timestamp != null && w.getTimestamp() != null
+                && w.getTimestamp().isBefore(old.timestamp)) {
+            // Late / out-of-order fix; keep the newer position
+            return;
+        }
+        long cell = key(row(w.getLat()), col(w.getLon()));
+        if (old != null && old.cell != cell) {
+            removeFromCell(old.cell, w.getUserName());
+        }
+        if (old != null) {
+            pyramid().move(old.lat, old.lon, w.getLat(), w.getLon());
+        } else {
+            pyramid().add(w.getLat(), w.getLon());
+        }
+        positions.put(w.getUserName(),
+                new Position(w.getUserName(), w.getLat(), w.getLon(), w.getTimestamp(), cell));
+        cells.computeIfAbsent(cell, c -> new HashSet<>()).add(w.getUserName());
+    }
+
+    // Created on first write (under the write lock) so the @Value settings are already injected
+    private ClusterPyramid pyramid() {
+        if (pyramid == null) {
+            pyramid = new ClusterPyramid(clusterMaxZoom, clusterCellsPerTile);
+        }
+        return pyramid;
+    }
+
+    private void removeFromCell(long cell, String userName) {
+        Set<String> users = cells.get(cell);
+        if (users != null) {
+            users.remove(userName);
+            if (users.isEmpty()) {
+                cells.remove(cell);
+            }
+        }
+    }
+
+    private void forEachInBox(double minLat, double minLon, double maxLat, double maxLon,
+                              Consumer<Position> action) {
+        int r0 = row(minLat), r1 = row(maxLat);
+        int c0 = col(minLon), c1 = col(maxLon);
+        long boxCells = (long) (r1 - r0 + 1) * (c1 - c0 + 1);
+
+        if (boxCells > cells.size()) {
+            // Box is larger than the occupied grid; scanning occupied cells is cheaper
+            for (Position p : positions.values()) {
+                if (p.lat >= minLat && p.lat <= maxLat && p.lon >= minLon && p.lon <= maxLon) {
+                    action.accept(p);
+                }
+            }
+            return;
+        }
+
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                Set<String> users = cells.get(key(r, c));
+                if (users == null) {
+                    continue;
+                }
+                for (String user : users) {
+                    Position p = positions.get(user);
+                    if (p.lat >= minLat && p.lat <= maxLat && p.lon >= minLon && p.lon <= maxLon) {
+                        action.accept(p);
+                    }
+                }
+            }
+        }
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor(lat / cellDegrees);
+    }
+
+    private int col(double lon) {
+        return (int) Math.floor(lon / cellDegrees);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    private static LocationPointDto toDto(Position p, Double distance) {
+        return LocationPointDto.builder()
+                .userName(p.userName)
+                .lat(p.lat)
+                .lon(p.lon)
+                .timestamp(p.timestamp)
+                .distanceMeters(distance)
+                .build();
+    }
+
+    private record Position(String userName, double lat, double lon, LocalDateTime timestamp, long cell) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.repository.WffLocationTrackingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Highest wff_location_tracking id a sync client may be handed as its cursor.
+ * <p>
+ * IDENTITY ids are assigned at INSERT but become visible at commit, and the ingest transaction
+ * stays open after the INSERT, so a lower id can appear after a higher one was already read.
+ * A visible row inserted more than {@code location.sync.commit-lag-seconds} ago is taken to
+ * have every lower id committed before it; the cursor never passes the newest such row. Rows
+ * above it may be sent again on the next call, so clients de-dupe fixes on id.
+ */
+@Service
+@RequiredArgsConstructor
+public class LocationSyncCursor {
+
+    private final WffLocationTrackingRepository locationTrackingRepository;
+
+    @Value("${location.sync.commit-lag-seconds:30}")
+    private long commitLagSeconds = 30;
+
+    public long settled() {
+        Long firstRecent = locationTrackingRepository.findFirstIdStoredAfter(
+                LocalDateTime.now().minusSeconds(commitLagSeconds));
+        return firstRecent == null
+                ? locationTrackingRepository.findMaxId()
+                : locationTrackingRepository.findMaxIdBelow(firstRecent);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.DailyMovementSummary;
+import com.example.demo.entity.Employee;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.DailyMovementSummaryRepository;
+import com.example.demo.util.GeoUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a running per-user, per-day movement state from the fixes that go through ingest.
+ * <p>
+ * Distance is measured between stop anchors: a fix within {@code stop-radius-meters} of the
+ * current anchor is treated as GPS jitter, a fix outside it adds the hop and becomes the new
+ * anchor. Staying near one anchor for {@code stop-min-seconds} counts as a stop and its time
+ * as dwell. Dirty states are written back every {@code location.summary.flush-ms}.
+ * <p>
+ * The states are shared by every ingest thread, so they are never managed by a caller's
+ * persistence context: loads and writes each run in their own transaction, which leaves the
+ * state detached, and flush() is the only path that writes it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovementSummaryAggregator {
+
+    private final DailyMovementSummaryRepository summaryRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${location.summary.stop-radius-meters:50}")
+    private double stopRadiusMeters = 50;
+
+    @Value("${location.summary.stop-min-seconds:300}")
+    private long stopMinSeconds = 300;
+
+    @Value("${location.summary.active-gap-seconds:300}")
+    private long activeGapSeconds = 300;
+
+    // "user|date" -> running state; the entity doubles as the state object
+    private final Map<String, DailyMovementSummary> states = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    public void record(Employee employee, WffLocationTracking fix) {
+        if (fix == null || fix.getTimestamp() == null || !GeoUtils.isValid(fix.getLat(), fix.getLon())) {
+            return;
+        }
+        LocalDate day = fix.getTimestamp().toLocalDate();
+        String key = fix.getUserName() + "|" + day;
+        DailyMovementSummary s = states.computeIfAbsent(key, k -> load(fix.getUserName(), day));
+
+        synchronized (s) {
+            if (employee != null) {
+                s.setDistrict(employee.getDistrict());
+                s.setOfficeName(employee.getOfficeName());
+            }
+            if (apply(s, fix)) {
+                dirty.add(key);
+            }
+        }
+    }
+
+    /**
+     * Writes every changed state back, then drops finished days from memory.
+     */
+    @Scheduled(fixedDelayString = "${location.summary.flush-ms:60000}")
+    public void flush() {
+        int written = 0;
+        for (String key : dirty) {
+            dirty.remove(key);
+            DailyMovementSummary s = states.get(key);
+            if (s == null) {
+                continue;
+            }
+            try {
+                synchronized (s) {
+                    DailyMovementSummary saved = ownTransaction().execute(status -> summaryRepository.save(s));
+                    s.setId(saved.getId());
+                }
+                written++;
+            } catch (Exception e) {
+                dirty.add(key);
+                log.error("Failed to write movement summary {}", key, e);
+            }
+        }
+
+        LocalDate today = LocalDate.now();
+        states.entrySet().removeIf(e -> e.getValue().getSummaryDate().isBefore(today) && !dirty.contains(e.getKey()));
+        if (written > 0) {
+            log.debug("Flushed {} movement summaries", written);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Returns false for fixes that do not move the state forward (duplicates, late arrivals)
+    boolean apply(DailyMovementSummary s, WffLocationTracking fix) {
+        LocalDateTime ts = fix.getTimestamp();
+        double lat = fix.getLat();
+        double lon = fix.getLon();
+
+        if (s.getLastFixAt() != null && !ts.isAfter(s.getLastFixAt())) {
+            return false;
+        }
+        s.setFixCount(s.getFixCount() + 1);
+
+        if (s.getFirstFixAt() == null) {
+            s.setFirstFixAt(ts);
+            moveAnchor(s, lat, lon, ts);
+        } else {
+            long gap = Duration.between(s.getLastFixAt(), ts).getSeconds();
+            if (gap <= activeGapSeconds) {
+                long active = s.getActiveSecondsRemainder() + gap;
+                s.setActiveMinutes(s.getActiveMinutes() + active / 60);
+                s.setActiveSecondsRemainder(active % 60);
+            }
+
+            double fromAnchor = GeoUtils.haversineMeters(s.getAnchorLat(), s.getAnchorLon(), lat, lon);
+            if (fromAnchor <= stopRadiusMeters) {
+                if (s.isInStop()) {
+                    s.setDwellSeconds(s.getDwellSeconds() + gap);
+                } else {
+                    long held = Duration.between(s.getAnchorSince(), ts).getSeconds();
+                    if (held >= stopMinSeconds) {
+                        s.setInStop(true);
+                        s.setStopCount(s.getStopCount() + 1);
+                        s.setDwellSeconds(s.getDwellSeconds() + held);
+                    }
+                }
+            } else {
+                s.setDistanceMeters(s.getDistanceMeters() + fromAnchor);
+                moveAnchor(s, lat, lon, ts);
+            }
+        }
+
+        s.setLastLat(lat);
+        s.setLastLon(lon);
+        s.setLastFixAt(ts);
+        return true;
+    }
+
+    private static void moveAnchor(DailyMovementSummary s, double lat, double lon, LocalDateTime ts) {
+        s.setAnchorLat(lat);
+        s.setAnchorLon(lon);
+        s.setAnchorSince(ts);
+        s.setInStop(false);
+    }
+
+    // Own transaction: the entity comes back detached even when record() runs inside one
+    private DailyMovementSummary load(String userName, LocalDate day) {
+        return ownTransaction().execute(status -> summaryRepository.findByUserNameAndSummaryDate(userName, day))
+                .orElseGet(() -> DailyMovementSummary.builder()
+                        .userName(userName)
+                        .summaryDate(day)
+                        .build());
+    }
+
+    private TransactionTemplate ownTransaction() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return tx;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.DailyMovementSummary;
+import com.example.demo.repository.DailyMovementSummaryRepository;
+import com.example.demo.service.MovementSummaryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MovementSummaryServiceImpl implements MovementSummaryService {
+
+    private final DailyMovementSummaryRepository summaryRepository;
+    private final MovementSummaryAggregator aggregator;
+
+    @Value("${location.summary.max-range-days:92}")
+    private long maxRangeDays = 92;
+
+    @Override
+    public List<DailyMovementSummary> findSummaries(List<String> userNames, String district, String officeName,
+                                                    LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new IllegalArgumentException("Date range is limited to " + maxRangeDays + " days");
+        }
+
+        // Today's rows are only as fresh as the last flush; write pending state first
+        if (!to.isBefore(LocalDate.now())) {
+            aggregator.flush();
+        }
+
+        if (userNames != null && !userNames.isEmpty()) {
+            return summaryRepository.findUserSummaries(userNames, from, to);
+        }
+        return summaryRepository.findTeamSummaries(blankToNull(district), blankToNull(officeName), from, to);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.repository.EmployeeRepository;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory presence driven by location pings.
+ * <p>
+ * A ping (re)arms the user's expiry {@code location.presence.ttl-seconds} ahead on a timing
+ * wheel of {@code location.presence.tick-ms} slots; each tick only looks at the users due in
+ * that slot. Pings never touch the database: users whose state flipped are queued and the tick
+ * writes is_active and publishes on /topic/presence for those transitions only.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceTracker {
+
+    private static final String PRESENCE_TOPIC = "/topic/presence";
+
+    private final EmployeeRepository employeeRepository;
+    private final WffLocationTrackingRepository locationTrackingRepository;
+    private final SimpMessagingTemplate messaging;
+
+    @Value("${location.presence.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    @Value("${location.presence.tick-ms:5000}")
+    private long tickMs = 5000;
+
+    private long ttlTicks;
+    private List<Set<String>> wheel;
+    private final AtomicLong currentTick = new AtomicLong();
+
+    // username -> tick at which the user expires; present means online
+    private final Map<String, Long> deadlines = new ConcurrentHashMap<>();
+
+    // users whose state may differ from what was last written
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+
+    // username -> is_active as last written (tick thread only after seeding)
+    private final Map<String, Boolean> persisted = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        ttlTicks = Math.max(1, (ttlSeconds * 1000 + tickMs - 1) / tickMs);
+        List<Set<String>> slots = new ArrayList<>((int) ttlTicks + 1);
+        for (int i = 0; i <= ttlTicks; i++) {
+            slots.add(ConcurrentHashMap.newKeySet());
+        }
+        wheel = slots;
+    }
+
+    /**
+     * Called for every ping. {@code active=false} means the phone stopped tracking on purpose.
+     */
+    public void ping(String userName, boolean active) {
+        if (!active) {
+            if (deadlines.remove(userName) != null) {
+                changed.add(userName);
+            }
+            return;
+        }
+        arm(userName, currentTick.get() + ttlTicks);
+    }
+
+    public boolean isOnline(String userName) {
+        return deadlines.containsKey(userName);
+    }
+
+    @Scheduled(fixedDelayString = "${location.presence.tick-ms:5000}")
+    public void tick() {
+        long now = currentTick.incrementAndGet();
+        Set<String> due = wheel.get((int) (now % wheel.size()));
+        for (Iterator<String> it = due.iterator(); it.hasNext(); ) {
+            String userName = it.next();
+            it.remove();
+            // Users pinged since they were slotted here have a later deadline and stay
+            if (deadlines.remove(userName, now) || expired(userName, now)) {
+                changed.add(userName);
+            }
+        }
+        writeTransitions();
+    }
+
+    /**
+     * Rebuilds presence from recent fixes and aligns is_active with it once at startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void seed() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> online = new ArrayList<>();
+        for (Object[] row : locationTrackingRepository.findLastSeenSince(now.minusSeconds(ttlSeconds))) {
+            String userName = (String) row[0];
+            LocalDateTime lastSeen = (LocalDateTime) row[1];
+            long remainingMs = Duration.between(now, lastSeen.plusSeconds(ttlSeconds)).toMillis();
+            arm(userName, currentTick.get() + Math.max(1, remainingMs / tickMs));
+            online.add(userName);
+        }
+        changed.removeAll(online);
+
+        employeeRepository.deactivateAll();
+        if (!online.isEmpty()) {
+            employeeRepository.activateUsernames(online);
+        }
+        online.forEach(u -> persisted.put(u, true));
+        log.info("Presence seeded with {} online users", online.size());
+    }
+
+    private void arm(String userName, long expiryTick) {
+        Long previous = deadlines.put(userName, expiryTick);
+        // Re-slot only when the deadline moved to a different slot
+        if (previous == null || previous != expiryTick) {
+            wheel.get((int) (expiryTick % wheel.size())).add(userName);
+        }
+        if (previous == null) {
+            changed.add(userName);
+        }
+    }
+
+    private boolean expired(String userName, long now) {
+        Long deadline = deadlines.get(userName);
+        return deadline != null && deadline < now && deadlines.remove(userName, deadline);
+    }
+
+    private void writeTransitions() {
+        for (Iterator<String> it = changed.iterator(); it.hasNext(); ) {
+            String userName = it.next();
+            it.remove();
+            boolean online = deadlines.containsKey(userName);
+            if (persisted.getOrDefault(userName, false) == online) {
+                continue;
+            }
+            try {
+                employeeRepository.updateActiveByUsername(userName, online);
+                persisted.put(userName, online);
+                messaging.convertAndSend(PRESENCE_TOPIC, Map.of(
+                        "userName", userName,
+                        "active", online,
+                        "timestamp", LocalDateTime.now().withNano(0).toString()));
+            } catch (Exception e) {
+                changed.add(userName);
+                log.error("Failed to record presence change for {}", userName, e);
+                // retry on the next tick
+                return;
+            }
+        }
+    }
+}
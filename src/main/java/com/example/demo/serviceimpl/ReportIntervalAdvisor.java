@@ -0,0 +1,111 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.Employee;
+import com.example.demo.util.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recommends when a phone should report next.
+ * <p>
+ * The interval aims for one fix every {@code target-spacing-meters} at the user's smoothed speed,
+ * drops to the minimum near a geofence boundary (so ENTER / EXIT are timely), and is stretched
+ * while more than {@code busy-in-flight} location requests are being processed at once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportIntervalAdvisor {
+
+    // Below this the user is treated as standing still
+    private static final double STATIONARY_MPS = 0.5;
+
+    // Weight of the newest speed sample in the moving average
+    private static final double SPEED_ALPHA = 0.5;
+
+    private final GeofenceEngine geofenceEngine;
+
+    @Value("${location.report.min-seconds:10}")
+    private int minSeconds = 10;
+
+    @Value("${location.report.max-seconds:300}")
+    private int maxSeconds = 300;
+
+    @Value("${location.report.target-spacing-meters:100}")
+    private double targetSpacingMeters = 100;
+
+    @Value("${location.report.fence-proximity-meters:300}")
+    private double fenceProximityMeters = 300;
+
+    @Value("${location.report.busy-in-flight:50}")
+    private int busyInFlight = 50;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // username -> last observed position and smoothed speed
+    private final Map<String, Motion> motion = new ConcurrentHashMap<>();
+
+    public void ingestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void ingestFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Records the fix (stored or not) and returns the recommended seconds until the next report.
+     */
+    public int recommend(Employee employee, String userName, LocalDateTime timestamp, Double lat, Double lon) {
+        if (timestamp == null || !GeoUtils.isValid(lat, lon)) {
+            return applyLoad(maxSeconds);
+        }
+        Motion m = motion.compute(userName, (u, prev) -> prev == null ? new Motion(timestamp, lat, lon, 0)
+                : prev.next(timestamp, lat, lon));
+
+        double interval = m.speedMps < STATIONARY_MPS
+                ? maxSeconds
+                : targetSpacingMeters / m.speedMps;
+
+        OptionalDouble boundary = geofenceEngine.nearestBoundaryMeters(employee, userName, lat, lon, fenceProximityMeters);
+        if (boundary.isPresent()) {
+            interval = minSeconds;
+        }
+        return applyLoad(interval);
+    }
+
+    // After a rejected fix ask for a fresh one soon, load permitting
+    public int retrySeconds() {
+        return applyLoad(minSeconds);
+    }
+
+    private int applyLoad(double interval) {
+        int current = inFlight.get();
+        if (busyInFlight > 0 && current > busyInFlight) {
+            // Linear back-off: twice the threshold doubles the interval
+            interval *= (double) current / busyInFlight;
+        }
+        return (int) Math.round(Math.max(minSeconds, Math.min(maxSeconds, interval)));
+    }
+
+    private record Motion(LocalDateTime timestamp, double lat, double lon, double speedMps) {
+
+        Motion next(LocalDateTime ts, double nLat, double nLon) {
+            long seconds = Duration.between(timestamp, ts).getSeconds();
+            if (seconds <= 0) {
+                return this;
+            }
+            double sample = GeoUtils.haversineMeters(lat, lon, nLat, nLon) / seconds;
+            return new Motion(ts, nLat, nLon, SPEED_ALPHA * sample + (1 - SPEED_ALPHA) * speedMps);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.util;
+
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    // Length of one degree of latitude (and of longitude at the equator)
+    public static final double METERS_PER_DEGREE = 111_320.0;
+
+    private GeoUtils() {
+    }
+
+    public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    public static double metersToLatDegrees(double meters) {
+        return meters / METERS_PER_DEGREE;
+    }
+
+    public static double metersToLonDegrees(double meters, double atLat) {
+        double cos = Math.cos(Math.toRadians(atLat));
+        // Near the poles a longitude degree collapses; clamp so the box stays finite
+        return meters / (METERS_PER_DEGREE * Math.max(cos, 0.01));
+    }
+
+    public static boolean isValid(Double lat, Double lon) {
+        return lat != null && lon != null
+                && lat >= -90 && lat <= 90
+                && lon >= -180 && lon <= 180;
+    }
+}
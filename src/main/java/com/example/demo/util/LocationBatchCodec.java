@@ -0,0 +1,166 @@
+package com.example.demo.util;
+
+import com.example.demo.dto.LocationBatchRequest;
+import com.example.demo.dto.LocationFixDto;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decoder (and reference encoder) for batched location uploads.
+ * <p>
+ * Binary layout, all integers as zig-zag varints:
+ * <pre>
+ *   version(=1) scale baseTimeMillis count
+ *   count x [ dtMillis dLat dLon ]
+ * </pre>
+ * The first fix carries absolute fixed-point coordinates, later fixes carry deltas from
+ * the previous fix, and every dtMillis is relative to the previous timestamp.
+ * A stationary phone therefore costs about three bytes per fix.
+ * <p>
+ * The same layout stores sealed per-user-day tracks; those only differ in the fix limit.
+ */
+public final class LocationBatchCodec {
+
+    public static final int VERSION = 1;
+    public static final int MAX_FIXES = 5000;
+
+    // A day of one-second fixes, with headroom; guards against corrupt counts only
+    public static final int MAX_TRACK_FIXES = 200_000;
+
+    private LocationBatchCodec() {
+    }
+
+    public static List<LocationFixDto> decode(LocationBatchRequest request) {
+        if (request.getBaseTime() == null || request.getFixes() == null) {
+            throw new IllegalArgumentException("baseTime and fixes are required");
+        }
+        int scale = request.getScale() != null ? request.getScale() : 1_000_000;
+        checkBatch(request.getFixes().size(), scale, MAX_FIXES);
+
+        List<LocationFixDto> result = new ArrayList<>(request.getFixes().size());
+        long ts = request.getBaseTime();
+        long lat = 0;
+        long lon = 0;
+        for (long[] row : request.getFixes()) {
+            if (row == null || row.length != 3) {
+                throw new IllegalArgumentException("Each fix must be [dtMillis, dLat, dLon]");
+            }
+            ts += row[0];
+            lat += row[1];
+            lon += row[2];
+            result.add(toFix(request.getUserName(), ts, lat, lon, scale));
+        }
+        return result;
+    }
+
+    public static List<LocationFixDto> decode(String userName, byte[] body) {
+        return decode(userName, body, MAX_FIXES);
+    }
+
+    public static List<LocationFixDto> decodeTrack(String userName, byte[] body) {
+        return decode(userName, body, MAX_TRACK_FIXES);
+    }
+
+    private static List<LocationFixDto> decode(String userName, byte[] body, int maxFixes) {
+        ByteBuffer buf = ByteBuffer.wrap(body);
+        try {
+            long version = readVarLong(buf);
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported batch version: " + version);
+            }
+            int scale = (int) readVarLong(buf);
+            long ts = readVarLong(buf);
+            int count = (int) readVarLong(buf);
+            checkBatch(count, scale, maxFixes);
+
+            List<LocationFixDto> result = new ArrayList<>(count);
+            long lat = 0;
+            long lon = 0;
+            for (int i = 0; i < count; i++) {
+                ts += readVarLong(buf);
+                lat += readVarLong(buf);
+                lon += readVarLong(buf);
+                result.add(toFix(userName, ts, lat, lon, scale));
+            }
+            return result;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated location batch");
+        }
+    }
+
+    public static byte[] encode(List<LocationFixDto> fixes, int scale) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + fixes.size() * 4);
+        long baseTime = fixes.isEmpty() ? 0 : epochMillis(fixes.get(0).getTimestamp());
+        writeVarLong(out, VERSION);
+        writeVarLong(out, scale);
+        writeVarLong(out, baseTime);
+        writeVarLong(out, fixes.size());
+
+        long prevTs = baseTime;
+        long prevLat = 0;
+        long prevLon = 0;
+        for (LocationFixDto f : fixes) {
+            long ts = epochMillis(f.getTimestamp());
+            long lat = Math.round(f.getLat() * scale);
+            long lon = Math.round(f.getLon() * scale);
+            writeVarLong(out, ts - prevTs);
+            writeVarLong(out, lat - prevLat);
+            writeVarLong(out, lon - prevLon);
+            prevTs = ts;
+            prevLat = lat;
+            prevLon = lon;
+        }
+        return out.toByteArray();
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    static long readVarLong(ByteBuffer buf) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in location batch");
+    }
+
+    private static void checkBatch(int count, int scale, int maxFixes) {
+        if (count < 0 || count > maxFixes) {
+            throw new IllegalArgumentException("A batch may carry between 0 and " + maxFixes + " fixes");
+        }
+        if (scale <= 0) {
+            throw new IllegalArgumentException("scale must be positive");
+        }
+    }
+
+    private static LocationFixDto toFix(String userName, long ts, long lat, long lon, int scale) {
+        double dLat = (double) lat / scale;
+        double dLon = (double) lon / scale;
+        if (!GeoUtils.isValid(dLat, dLon)) {
+            throw new IllegalArgumentException("Fix out of range: " + dLat + "," + dLon);
+        }
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(ts), ZoneId.systemDefault());
+        return new LocationFixDto(userName, time, dLat, dLon);
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer / multi-consumer queue (Vyukov's array queue).
+ * Every slot carries a sequence number telling producers and consumers whose turn it is,
+ * so neither side ever blocks; {@link #offer} simply fails when the ring is full.
+ */
+public final class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    public RingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two >= 2");
+        }
+        mask = capacity - 1;
+        slots = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(E e) {
+        while (true) {
+            long pos = tail.get();
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(index, e);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false; // full
+            }
+            // else another producer claimed the slot first; retry with the new tail
+        }
+    }
+
+    public E poll() {
+        while (true) {
+            long pos = head.get();
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E e = slots.getAndSet(index, null);
+                    sequences.set(index, pos + mask + 1);
+                    return e;
+                }
+            } else if (diff < 0) {
+                return null; // empty
+            }
+        }
+    }
+
+    public int drainTo(List<E> target, int max) {
+        int n = 0;
+        E e;
+        while (n < max && (e = poll()) != null) {
+            target.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Douglas-Peucker simplification of a time-ordered track of [epochMillis, lat, lon] rows.
+ * Distances are measured on a local equirectangular projection, which is plenty for
+ * tracks a few kilometres across.
+ */
+public final class TrackSimplifier {
+
+    private TrackSimplifier() {
+    }
+
+    public static List<double[]> simplify(List<double[]> track, double toleranceMeters) {
+        if (track.size() < 3) {
+            return track;
+        }
+        boolean[] keep = new boolean[track.size()];
+        keep[0] = true;
+        keep[track.size() - 1] = true;
+
+        // Explicit stack instead of recursion; long tracks would otherwise go deep
+        int[] stack = new int[2 * track.size()];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = track.size() - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double maxDistance = 0;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = distanceToSegment(track.get(i), track.get(first), track.get(last));
+                if (d > maxDistance) {
+                    maxDistance = d;
+                    index = i;
+                }
+            }
+            if (index >= 0 && maxDistance > toleranceMeters) {
+                keep[index] = true;
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+
+        List<double[]> result = new ArrayList<>();
+        for (int i = 0; i < track.size(); i++) {
+            if (keep[i]) {
+                result.add(track.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static double distanceToSegment(double[] p, double[] a, double[] b) {
+        double kx = GeoUtils.METERS_PER_DEGREE * Math.cos(Math.toRadians(p[1]));
+        double ky = GeoUtils.METERS_PER_DEGREE;
+        double ax = (a[2] - p[2]) * kx, ay = (a[1] - p[1]) * ky;
+        double bx = (b[2] - p[2]) * kx, by = (b[1] - p[1]) * ky;
+        double dx = bx - ax, dy = by - ay;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / len2));
+        return Math.hypot(ax + t * dx, ay + t * dy);
+    }
+}
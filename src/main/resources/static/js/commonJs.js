@@ -4,16 +4,13 @@ const labName = urlParams.get('labName');
 const labId = urlParams.get('id');  // Extract 'id' parameter
 
 
-async function sam(PAGE) {
-    // Prepare FormData
-    const formData = new FormData();
-    console.log("labId", labId);
-    formData.append("id", labId);  // Append the extracted id
+// Lab profile shows the latest detections; the timeline walks back through the selected day
+const DETECTION_PAGE_SIZE = {LAB_PROFILE: 50, DETECTION_TIMELINE: 500};
 
-// Send the form data to the backend
-    const endPoint = "/monitoring/api/data/fetchLabDetectionData";
+async function sam(PAGE, options = {}) {
+    console.log("labId", labId);
 
-    const result = await fetchData(endPoint, formData);
+    const result = await fetchDetectionsWithImages(DETECTION_PAGE_SIZE[PAGE] || 50, options.date);
 
     console.log("Lab Detection Data Result: ", result);
     if (PAGE === "LAB_PROFILE")
@@ -25,17 +22,40 @@ async function sam(PAGE) {
 
 }
 
+// Lean keyset pages first, then image paths only for the rows that were returned
+async function fetchDetectionsWithImages(limit, date) {
+    const detections = [];
+    let beforeId = null;
+    let hasMore = true;
+    // A day is paged through in full; otherwise only the newest page is shown
+    while (hasMore && (date || detections.length === 0)) {
+        const params = new URLSearchParams({labId, limit});
+        if (beforeId != null) params.append('beforeId', beforeId);
+        if (date) params.append('date', date);
+        const page = (await fetchData(`/monitoring/api/data/labDetectionFeed?${params}`))?.data;
+        if (!page) break;
+        detections.push(...page.detections);
+        beforeId = page.cursor;
+        hasMore = page.hasMore;
+    }
+
+    for (let i = 0; i < detections.length; i += limit) {
+        const ids = detections.slice(i, i + limit).map(d => d.id).join(',');
+        const images = (await fetchData(`/monitoring/api/data/labDetectionImages?labId=${labId}&ids=${ids}`))?.data || [];
+        const byId = new Map(images.map(img => [img.id, img]));
+        for (let j = i; j < Math.min(i + limit, detections.length); j++) {
+            Object.assign(detections[j], byId.get(detections[j].id) || {});
+        }
+    }
+    return detections;
+}
+
 
 // Function to get profile image DATA simply
 async function getProfileImage(imagePath) {
     try {
-        const response = await fetch('/monitoring/api/data/', {
-            method: 'POST',
-            headers: {
-                'Content-Type': 'application/x-www-form-urlencoded',
-            },
-            body: `filePath=${encodeURIComponent(imagePath)}`
-        });
+        // GET so the browser cache (ETag + immutable) serves repeated frames without a round trip
+        const response = await fetch(`/monitoring/api/data/frame?path=${encodeURIComponent(imagePath)}`);
 
         if (!response.ok) {
             throw new Error(`HTTP error! status: ${response.status}`);
@@ -50,7 +70,36 @@ async function getProfileImage(imagePath) {
 }
 
 
-// Function to create loading placeholder
+// Several frames in one request: int count, then per frame short pathLen, path, int dataLen (-1 = missing), data
+async function fetchFrameBundle(paths) {
+    const params = new URLSearchParams();
+    paths.forEach(path => params.append('path', path));
+    const response = await fetch(`/monitoring/api/data/frame-bundle?${params}`);
+    if (!response.ok) {
+        throw new Error(`HTTP error! status: ${response.status}`);
+    }
+
+    const buffer = await response.arrayBuffer();
+    const view = new DataView(buffer);
+    const decoder = new TextDecoder();
+    const urls = new Map();
+    let offset = 0;
+    const count = view.getInt32(offset);
+    offset += 4;
+    for (let i = 0; i < count; i++) {
+        const pathLength = view.getUint16(offset);
+        offset += 2;
+        const path = decoder.decode(new Uint8Array(buffer, offset, pathLength));
+        offset += pathLength;
+        const dataLength = view.getInt32(offset);
+        offset += 4;
+        if (dataLength >= 0) {
+            urls.set(path, URL.createObjectURL(new Blob([new Uint8Array(buffer, offset, dataLength)])));
+            offset += dataLength;
+        }
+    }
+    return urls;
+}
 function createLoadingPlaceholder() {
     const placeholder = document.createElement('div');
     placeholder.className = 'loading-placeholder me-2 mb-2';
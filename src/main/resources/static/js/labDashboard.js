@@ -35,9 +35,43 @@ function connect() {
             // handle alert
             showAlert(alert)
         });
+
+        // Only labs whose numbers changed since the last push are sent
+        stompClient.subscribe('/topic/labs.stats', function (message) {
+            JSON.parse(message.body).forEach(updateLabStats);
+        });
+        loadLabStats();
     });
 }
 
+// Initial live numbers; /topic/labs.stats keeps them current afterwards
+async function loadLabStats() {
+    try {
+        const response = await fetch('/monitoring/api/data/labStats');
+        if (!response.ok) {
+            throw new Error(`HTTP error! status: ${response.status}`);
+        }
+        ((await response.json()).data || []).forEach(updateLabStats);
+    } catch (error) {
+        console.error('Error loading lab stats:', error);
+    }
+}
+
+function updateLabStats(stats) {
+    const el = document.getElementById(`lab-stats-${stats.labId}`);
+    if (!el) return;
+    const fire = stats.lastFireAt
+        ? `<div class="text-danger small">Last fire: ${stats.lastFireAt.replace('T', ' ')}</div>` : '';
+    el.innerHTML = `
+        <div class="d-flex justify-content-between text-muted small">
+            <span>Persons now <span class="fw-bold">${stats.personCount ?? '-'}</span></span>
+            <span>Detections (${Math.round(stats.windowSeconds / 60)} min) <span class="fw-bold">${stats.detectionsLastWindow}</span></span>
+            <span>Alerts/h <span class="fw-bold">${stats.alertsLastHour}</span></span>
+        </div>
+        ${fire}
+    `;
+}
+
 function showAlert(alert) {
     // Get current time if not provided
     const currentTime = alert.time || new Date().toLocaleTimeString();
@@ -215,7 +249,8 @@ function removeAlert(button) {
                     </div>
                 </div>
                 <div class="mb-2 text-muted small">Total Assigned Person <span class="fw-bold">${lab.totalAssignedPerson}</span></div>
-                <div class="mb-3 text-muted small">Total Crowed Allowed <span class="fw-bold">${lab.crowdThreshold}</span></div>
+                <div class="mb-2 text-muted small">Total Crowed Allowed <span class="fw-bold">${lab.crowdThreshold}</span></div>
+                <div class="mb-3" id="lab-stats-${lab.id}"></div>
                 <a href="/upfsdaMonitoring/labProfilePage?labName=${lab.labName}&id=${lab.id}" class="btn btn-green w-100">View Details</a>
             </div>
         `;
@@ -1,5 +1,13 @@
 console.log('DETECTION TIMELINE loaded', new Date().toLocaleTimeString());
 
+// Frames fetched per /frame-bundle request during playback; the next window loads while this one plays
+const FRAME_WINDOW = 8;
+
+// Playback shows the first frame of a detection
+function firstFramePath(framePath) {
+    return (framePath || '').split(',')[0].trim();
+}
+
 
 
 
@@ -13,6 +21,7 @@ class TimelineDetectionSystem {
         this.isPlaying = false;
         this.playSpeed = 1;
         this.playInterval = null;
+        this.frameUrls = new Map(); // frame path -> object URL from a prefetched bundle
 
         this.initializeTimeline();
         this.setupEventListeners();
@@ -109,58 +118,53 @@ class TimelineDetectionSystem {
         };
     }
 
-    // Process detection data and organize by timeline
+    // Hour counts come from the timeline buckets; raw rows only fill in the hours that were loaded
     processDetectionData(dataArray) {
         console.log("Processing detection data:", dataArray);
 
         if (!Array.isArray(dataArray) || dataArray.length === 0) {
-            this.displayEmptyTimeline();
             return;
         }
 
-        // Reset timeline
-        this.timelineHours = Array.from({length: 24}, (_, i) => ({
-            hour: i,
-            detectionCount: 0,
-            detections: []
-        }));
-
         // Filter data for current selected date
         const selectedDate = this.currentDate;
-        const filteredData = dataArray.filter(detection => {
-            const parsedTime = this.parseTimestamp(detection.timestamp);
-            return parsedTime && parsedTime.date === selectedDate;
-        });
-
-        console.log(`Filtered ${filteredData.length} detections for date: ${selectedDate}`);
-
-        // Process each detection
-        filteredData.forEach(detection => {
+        const byHour = {};
+        dataArray.forEach(detection => {
             const parsedTime = this.parseTimestamp(detection.timestamp);
-            if (parsedTime) {
-                // Add to timeline
-                const hourIndex = parsedTime.hour;
-                this.timelineHours[hourIndex].detectionCount++;
-                this.timelineHours[hourIndex].detections.push({
-                    ...detection,
-                    parsedTime: parsedTime
-                });
+            if (parsedTime && parsedTime.date === selectedDate) {
+                (byHour[parsedTime.hour] = byHour[parsedTime.hour] || []).push({...detection, parsedTime});
             }
         });
 
-        // Sort detections within each hour by time
-        this.timelineHours.forEach(hour => {
-            hour.detections.sort((a, b) =>
-                a.parsedTime.fullDateTime - b.parsedTime.fullDateTime
-            );
+        Object.entries(byHour).forEach(([hour, detections]) => {
+            // Sort detections within the hour by time
+            detections.sort((a, b) => a.parsedTime.fullDateTime - b.parsedTime.fullDateTime);
+            this.timelineHours[hour].detections = detections;
         });
 
-        this.detectionData = filteredData;
-        this.renderTimeline();
-        this.updateTotalDetections();
+        if (this.selectedHour != null && byHour[this.selectedHour]) {
+            this.displayHourDetections(this.selectedHour);
+        }
+    }
 
-        // Auto-select first hour with detections or current hour if no detections
-        this.autoSelectRelevantHour();
+    // One small query for the day's hourly buckets instead of every detection
+    async loadHourBuckets(dateStr) {
+        this.timelineHours = Array.from({length: 24}, (_, i) => ({
+            hour: i,
+            detectionCount: 0,
+            detections: [],
+            loaded: false
+        }));
+
+        const params = new URLSearchParams({
+            labId, resolution: 'hour', from: `${dateStr}T00:00:00`, to: `${nextDay(dateStr)}T00:00:00`
+        });
+        const buckets = (await fetchData(`/monitoring/api/data/labDetectionTimeline?${params}`))?.data || [];
+        buckets.forEach(bucket => {
+            const hour = parseInt(bucket.bucketStart.substring(11, 13));
+            this.timelineHours[hour].detectionCount = bucket.detections;
+        });
+        return buckets.length;
     }
 
     // Auto-select most relevant hour
@@ -222,6 +226,14 @@ class TimelineDetectionSystem {
         this.renderTimeline();
         this.displayHourDetections(hour);
         this.updateTimeDisplay(hour);
+
+        // Frames are fetched one hour at a time, the first time the hour is opened
+        const hourData = this.timelineHours[hour];
+        if (!hourData.loaded && hourData.detectionCount > 0 && typeof sam === 'function') {
+            hourData.loaded = true;
+            const apiHour = `${this.currentDate.replace(/-/g, '')}_${hour.toString().padStart(2, '0')}`;
+            sam("DETECTION_TIMELINE", {date: apiHour});
+        }
     }
 
     // Display detections for selected hour
@@ -287,6 +299,11 @@ class TimelineDetectionSystem {
 
     // Load frame image
     async loadFrameImage(imgElement, framePath) {
+        const prefetched = this.frameUrls.get(firstFramePath(framePath));
+        if (prefetched) {
+            imgElement.src = prefetched;
+            return;
+        }
         try {
             // Use your existing getProfileImage function
             if (typeof getProfileImage === 'function') {
@@ -357,13 +374,35 @@ class TimelineDetectionSystem {
             return;
         }
 
+        const detections = hourData.detections;
+        const windows = new Map(); // window start index -> {done}
+        const loadWindow = start => {
+            if (start >= detections.length || windows.has(start)) return;
+            const win = {done: false};
+            windows.set(start, win);
+            const paths = detections.slice(start, start + FRAME_WINDOW)
+                .map(d => firstFramePath(d.frameImgPath))
+                .filter(path => path && !this.frameUrls.has(path));
+            const loaded = paths.length > 0 && typeof fetchFrameBundle === 'function'
+                ? fetchFrameBundle(paths).then(urls => urls.forEach((url, path) => this.frameUrls.set(path, url)))
+                : Promise.resolve();
+            // A failed bundle falls back to per-frame loading in createFrameCard
+            loaded.catch(error => console.error('Error loading frame bundle:', error))
+                .finally(() => win.done = true);
+        };
+        loadWindow(0);
+
         let index = 0;
         const intervalTime = 2000 / this.playSpeed; // e.g., 2s per frame / speed multiplier
 
         this.playInterval = setInterval(() => {
-            const detection = hourData.detections[index];
+            const detection = detections[index];
 
             if (detection) {
+                const start = index - index % FRAME_WINDOW;
+                loadWindow(start);
+                loadWindow(start + FRAME_WINDOW); // prefetch while this window plays
+                if (!windows.get(start).done) return; // hold the current frame until its bundle arrives
                 this.displaySingleFrame(detection);
                 index++;
             } else {
@@ -426,22 +465,23 @@ class TimelineDetectionSystem {
     }
 
     // Load data for specific date
-    loadDataForDate(dateStr) {
+    async loadDataForDate(dateStr) {
         console.log('Loading data for date:', dateStr);
         this.currentDate = dateStr;
+        this.selectedHour = null;
+        this.frameUrls.forEach(url => URL.revokeObjectURL(url));
+        this.frameUrls.clear();
 
-        // Convert date format for API call (YYYY-MM-DD to YYYYMMDD)
-        const apiDateFormat = dateStr.replace(/-/g, '');
-
-        // Make API call to get data for the specific date
-        if (typeof sam === 'function') {
-            sam("DETECTION_TIMELINE", {date: apiDateFormat});
-        }
+        const bucketCount = await this.loadHourBuckets(dateStr);
+        if (this.currentDate !== dateStr) return; // another date was picked meanwhile
 
-        // If we already have data, filter and process it
-        if (this.detectionData && this.detectionData.length > 0) {
-            this.processDetectionData(this.detectionData);
+        if (bucketCount === 0) {
+            this.displayEmptyTimeline();
+            return;
         }
+        this.renderTimeline();
+        this.updateTotalDetections();
+        this.autoSelectRelevantHour();
     }
 
     // Get today's date in format needed for filtering
@@ -456,6 +496,12 @@ class TimelineDetectionSystem {
     }
 }
 
+function nextDay(dateStr) {
+    const d = new Date(`${dateStr}T00:00:00`);
+    d.setDate(d.getDate() + 1);
+    return `${d.getFullYear()}-${String(d.getMonth() + 1).padStart(2, '0')}-${String(d.getDate()).padStart(2, '0')}`;
+}
+
 // Initialize timeline system
 const timelineSystem = new TimelineDetectionSystem();
 
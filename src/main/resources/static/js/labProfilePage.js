@@ -1,6 +1,5 @@
 console.log('Lab Profile Page Data loaded', new Date().toLocaleTimeString());
 
-console.log(allLabDetectionData)
 //  Common Function is used to fetch data from  Lab Detection Data
 sam("LAB_PROFILE");
 
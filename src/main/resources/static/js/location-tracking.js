@@ -41,10 +41,15 @@ function connectLiveSocket() {
                 reconnectTimer = null;
             }
 
-            stompClient.subscribe('/topic/location.latest', msg => {
-                const ev = JSON.parse(msg.body);
-                onLivePoint(ev);
-            });
+            // fresh connection: (re)subscribe to whatever scope the map currently shows
+            liveSubscriptions = {};
+            refreshLiveSubscriptions();
+
+            // online / offline transitions from the server's presence tracker
+            stompClient.subscribe('/topic/presence', msg => onPresenceChange(JSON.parse(msg.body)));
+
+            // pull whatever was stored while the socket was down
+            catchUpMissedFixes();
         },
         (err) => {
             console.error('WS error', err);
@@ -59,6 +64,148 @@ function connectLiveSocket() {
     );
 }
 
+/* ========================
+   Incremental sync
+   /api/data/location-sync returns only fixes stored after the cursor, so refreshes
+   and reconnects transfer deltas instead of the whole history window.
+======================== */
+const BOOTSTRAP_TRACK_HOURS = 24;
+let syncCursor = null;    // last WffLocationTracking id received through location-sync
+// The cursor trails the newest fix by a commit lag, so fixes above it can arrive twice
+const syncSeenIds = new Set();
+
+function toLocalIso(date) {
+    const pad = n => String(n).padStart(2, '0');
+    return `${date.getFullYear()}-${pad(date.getMonth() + 1)}-${pad(date.getDate())}` +
+        `T${pad(date.getHours())}:${pad(date.getMinutes())}:${pad(date.getSeconds())}`;
+}
+
+function normalizeFix(item) {
+    return {
+        ...item, // the backend gives userName; keep a lowercase alias for existing code paths
+        username: item.userName,
+        location: item.location ?? ((item.lat != null && item.lon != null) ? {lat: item.lat, lng: item.lon} : null),
+        timestamp: new Date(item.timestamp),
+        isActive: item.isActive ?? false,
+    };
+}
+
+// sinceTimestamp is only used until the first cursor is known
+async function syncLocationDeltas(sinceTimestamp) {
+    const fresh = [];
+    let hasMore = true;
+    while (hasMore) {
+        const query = syncCursor != null
+            ? `sinceId=${syncCursor}`
+            : `sinceTimestamp=${encodeURIComponent(sinceTimestamp)}`;
+        const resp = await fetch(`/api/data/location-sync?${query}`);
+        if (!resp.ok) throw new Error(`Error syncing locations: ${resp.statusText}`);
+        const page = (await resp.json()).data || {};
+        (page.fixes || []).forEach(fix => {
+            if (!syncSeenIds.has(fix.id)) {
+                syncSeenIds.add(fix.id);
+                fresh.push(fix);
+            }
+        });
+        syncCursor = page.cursor ?? syncCursor;
+        hasMore = !!page.hasMore;
+    }
+    syncSeenIds.forEach(id => { if (id <= syncCursor) syncSeenIds.delete(id); });
+    return fresh;
+}
+
+async function catchUpMissedFixes() {
+    if (syncCursor == null) return; // initial load has not run yet
+    try {
+        (await syncLocationDeltas()).forEach(onLivePoint);
+    } catch (e) {
+        console.error(e);
+    }
+}
+
+/* ========================
+   Scoped live subscriptions
+   Statewide topic when zoomed out; per geohash cell (or one district) when zoomed in,
+   so a tab only receives pings for the area it shows.
+======================== */
+const SCOPE_CELL_PRECISION = 4;   // must match location.publisher.cell-precision
+const SCOPE_MAX_CELLS = 12;       // more visible cells than this -> statewide topic
+let liveSubscriptions = {};       // destination -> STOMP subscription
+let scopedDistrict = null;
+
+function onLiveMessage(msg) {
+    const ev = JSON.parse(msg.body);
+    // tick mode sends one array frame per interval instead of one message per ping
+    if (Array.isArray(ev)) ev.forEach(onLivePoint);
+    else onLivePoint(ev);
+}
+
+function geohashEncode(lat, lon, precision) {
+    const base32 = '0123456789bcdefghjkmnpqrstuvwxyz';
+    let minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+    let hash = '', bit = 0, ch = 0, evenBit = true;
+    while (hash.length < precision) {
+        if (evenBit) {
+            const mid = (minLon + maxLon) / 2;
+            if (lon >= mid) { ch = (ch << 1) | 1; minLon = mid; } else { ch <<= 1; maxLon = mid; }
+        } else {
+            const mid = (minLat + maxLat) / 2;
+            if (lat >= mid) { ch = (ch << 1) | 1; minLat = mid; } else { ch <<= 1; maxLat = mid; }
+        }
+        evenBit = !evenBit;
+        if (++bit === 5) { hash += base32[ch]; bit = 0; ch = 0; }
+    }
+    return hash;
+}
+
+function visibleCellTopics() {
+    const bounds = map && map.getBounds();
+    if (!bounds) return null;
+    const sw = bounds.getSouthWest(), ne = bounds.getNorthEast();
+    const bits = SCOPE_CELL_PRECISION * 5;
+    const cellLat = 180 / Math.pow(2, Math.floor(bits / 2));
+    const cellLon = 360 / Math.pow(2, Math.ceil(bits / 2));
+    const topics = new Set();
+    for (let lat = sw.lat(); ; lat += cellLat) {
+        const la = Math.min(lat, ne.lat());
+        for (let lon = sw.lng(); ; lon += cellLon) {
+            const lo = Math.min(lon, ne.lng());
+            topics.add('/topic/location.cell.' + geohashEncode(la, lo, SCOPE_CELL_PRECISION));
+            if (topics.size > SCOPE_MAX_CELLS) return null;
+            if (lo >= ne.lng()) break;
+        }
+        if (la >= ne.lat()) break;
+    }
+    return [...topics];
+}
+
+function desiredLiveTopics() {
+    if (scopedDistrict) {
+        return ['/topic/location.district.' + scopedDistrict.trim().toLowerCase().replace(/[^a-z0-9]+/g, '-')];
+    }
+    return visibleCellTopics() || ['/topic/location.latest'];
+}
+
+function refreshLiveSubscriptions() {
+    if (!stompClient || !stompClient.connected) return;
+    const wanted = new Set(desiredLiveTopics());
+    Object.keys(liveSubscriptions).forEach(dest => {
+        if (!wanted.has(dest)) {
+            liveSubscriptions[dest].unsubscribe();
+            delete liveSubscriptions[dest];
+        }
+    });
+    wanted.forEach(dest => {
+        if (!liveSubscriptions[dest]) liveSubscriptions[dest] = stompClient.subscribe(dest, onLiveMessage);
+    });
+}
+
+// Pass a district name (Employee.district) to follow only that district, or null for the map viewport
+function subscribeToDistrict(district) {
+    scopedDistrict = district || null;
+    refreshLiveSubscriptions();
+}
+
 function onLivePoint(ev) {
     const uid = ev.userName || ev.username || ev.id || ev.name;
     const loc = ev.location || ((ev.lat != null && ev.lon != null)
@@ -85,11 +232,11 @@ function onLivePoint(ev) {
         });
     }
 
-    // live marker (userMarkers)
+    // live marker (userMarkers); none are created while clusters are on the map
     if (userMarkers[uid]) {
         userMarkers[uid].setPosition(loc);
         userMarkers[uid].setIcon({url: markerIconSvg(active), scaledSize: new google.maps.Size(24, 24)});
-    } else {
+    } else if (!clusteredView) {
         const m = new google.maps.Marker({
             position: loc, map, title: uid,
             icon: {url: markerIconSvg(active), scaledSize: new google.maps.Size(24, 24)}
@@ -122,11 +269,24 @@ function onLivePoint(ev) {
         updatePersonalTrackingInfo();
     }
 
-    // append to in-memory history
-    locationHistory.unshift({username: uid, userName: uid, location: loc, timestamp: ts, isActive: active});
+    // append to in-memory history (a catch-up sync may replay fixes already pushed live)
+    if (ev.id != null && locationHistory.some(h => h.id === ev.id)) return;
+    locationHistory.unshift({id: ev.id, username: uid, userName: uid, location: loc, timestamp: ts, isActive: active});
     if (locationHistory.length > 500) locationHistory.length = 500;
 }
 
+function onPresenceChange(ev) {
+    const uid = ev.userName;
+    mockUsers = mockUsers.map(u => userId(u) === uid ? {...u, isActive: ev.active} : u);
+    [userMarkers[uid], historyMarkers[uid]].forEach(m => {
+        if (m) m.setIcon({url: markerIconSvg(ev.active), scaledSize: new google.maps.Size(24, 24)});
+    });
+    if (currentUser === 'MasterAdmin') {
+        updateAdminStatistics();
+        renderLiveUsers();
+    }
+}
+
 function markerIconSvg(active) {
     const color = active ? '#28a745' : '#6c757d';
     return 'data:image/svg+xml;charset=UTF-8,' + encodeURIComponent(`
@@ -273,6 +433,10 @@ function initializeMap() {
     `
     });
     lucknowMarker.addListener('click', () => infoWindow.open(map, lucknowMarker));
+
+    // re-scope live subscriptions (and clusters, for large rosters) whenever the visible area settles
+    map.addListener('idle', refreshLiveSubscriptions);
+    map.addListener('idle', refreshClusters);
 }
 
 /* ========================
@@ -300,47 +464,33 @@ async function initializeLocationTracking() {
 
 async function loadMockData() {
     try {
-        // 1) Users (as before)
-        const usersResponse = await fetch('/api/data/employeesDetails');
-        if (!usersResponse.ok) throw new Error(`Error fetching users: ${usersResponse.statusText}`);
-        const usersData = await usersResponse.json();
-
-        // 2) Location history from backend table
-        //    Default last 24h (controller already defaults if params are omitted)
-        const historyResponse = await fetch('/api/data/location-history');
-        if (!historyResponse.ok) throw new Error(`Error fetching location history: ${historyResponse.statusText}`);
-        const historyData = await historyResponse.json();
-
-        // Normalize to your internal shape
-        locationHistory = (historyData || []).map(item => ({
-            ...item, // the backend gives userName; keep a lowercase alias for existing code paths
-            username: item.userName,
-            location: item.location ?? ((item.lat != null && item.lon != null) ? {lat: item.lat, lng: item.lon} : null),
-            timestamp: new Date(item.timestamp),
-            isActive: item.isActive ?? false,
-        })).filter(h => h.location && !isNaN(h.timestamp?.getTime?.()));
-
-        // 3) Latest per user (for “historyMarkers” on first render)
-        const latestResponse = await fetch('/api/data/location-latest');
-        if (!latestResponse.ok) throw new Error(`Error fetching latest locations: ${latestResponse.statusText}`);
-        const latestData = await latestResponse.json();
-
-        const latestHistory = (latestData || []).map(item => ({
-            username: item.userName,
-            location: item.location ?? ((item.lat != null && item.lon != null) ? {lat: item.lat, lng: item.lon} : null),
-            timestamp: new Date(item.timestamp),
-            // was: isActive: false
-            isActive: isRecentlyActive(item.timestamp)
-        }));
-
-        // Build user models
+        // One round trip: roster, latest fix per user, simplified last-24h tracks and the sync cursor
+        const bootResponse = await fetch(`/api/data/location-bootstrap?tracks=true&trackHours=${BOOTSTRAP_TRACK_HOURS}`);
+        if (!bootResponse.ok) throw new Error(`Error loading location page: ${bootResponse.statusText}`);
+        const boot = (await bootResponse.json()).data || {};
+
+        // Everything stored after the bootstrap arrives through location-sync / the live socket
+        syncCursor = boot.cursor ?? null;
+
+        // Tracks come as {username: [[epochMillis, lat, lon], ...]}
+        locationHistory = [];
+        Object.entries(boot.tracks || {}).forEach(([name, rows]) => {
+            rows.forEach(([ts, lat, lon]) => locationHistory.push(normalizeFix({
+                userName: name, lat, lon, timestamp: ts
+            })));
+        });
+
+        // Latest per user (for “historyMarkers” on first render)
         const latestMap = {};
-        latestHistory.forEach(loc => {
-            const key = loc.username;
-            if (!latestMap[key] || loc.timestamp > latestMap[key].timestamp) latestMap[key] = loc;
+        (boot.latest || []).forEach(item => {
+            const loc = normalizeFix(item);
+            loc.isActive = isRecentlyActive(item.timestamp);
+            if (!latestMap[loc.username] || loc.timestamp > latestMap[loc.username].timestamp) {
+                latestMap[loc.username] = loc;
+            }
         });
 
-        mockUsers = (usersData || []).map(raw => {
+        mockUsers = (boot.roster || []).map(raw => {
             const uid = userId(raw);
             const lastKnown = latestMap[uid] || null;
             return {
@@ -358,9 +508,13 @@ async function loadMockData() {
 
         populateUserSelect();
 
-        renderLocationHistory(Object.values(latestMap)); // show "latest markers" only
-        setMarkersVisible(userMarkers, false);
-        setMarkersVisible(historyMarkers, true);
+        if (clusteringEnabled()) {
+            refreshClusters(); // large rosters: never create one marker per user up front
+        } else {
+            renderLocationHistory(Object.values(latestMap)); // show "latest markers" only
+            setMarkersVisible(userMarkers, false);
+            setMarkersVisible(historyMarkers, true);
+        }
     } catch (error) {
         console.error('Error loading data:', error);
         showNotification('Error', 'Failed to load data from server.', 'error');
@@ -371,7 +525,7 @@ async function loadMockData() {
    Marker/History rendering
 ======================== */
 
-function renderLocationHistory(history) {
+function renderLocationHistory(history, fit = true) {
     const bounds = new google.maps.LatLngBounds();
 
     (history || []).forEach(item => {
@@ -413,7 +567,85 @@ function renderLocationHistory(history) {
         }
     });
 
-    if (!bounds.isEmpty()) map.fitBounds(bounds);
+    if (fit && !bounds.isEmpty()) map.fitBounds(bounds);
+}
+
+/* ========================
+   Server-side clustering
+   With CLUSTER_MIN_USERS or more staff the map draws /api/data/location-clusters for the
+   viewport instead of one marker per user; per-user markers return once zoomed in.
+======================== */
+const CLUSTER_MIN_USERS = 500;
+let clusterMarkers = [];
+let clusterRequestSeq = 0;
+let clusteredView = false;  // true while clusters (not user markers) are on the map
+
+function clusteringEnabled() {
+    return mockUsers.length >= CLUSTER_MIN_USERS;
+}
+
+function clusterIconSvg(count) {
+    const r = Math.min(28, 10 + Math.log10(count + 1) * 6);
+    const size = 2 * r + 4;
+    return {
+        url: 'data:image/svg+xml;charset=UTF-8,' + encodeURIComponent(`
+    <svg width="${size}" height="${size}" viewBox="0 0 ${size} ${size}" xmlns="http://www.w3.org/2000/svg">
+      <circle cx="${size / 2}" cy="${size / 2}" r="${r}" fill="#0d6efd" fill-opacity="0.85" stroke="#ffffff" stroke-width="2"/>
+    </svg>`),
+        scaledSize: new google.maps.Size(size, size),
+        anchor: new google.maps.Point(size / 2, size / 2)
+    };
+}
+
+async function refreshClusters() {
+    if (!clusteringEnabled()) return;
+    const bounds = map && map.getBounds();
+    if (!bounds) return;
+    const sw = bounds.getSouthWest(), ne = bounds.getNorthEast();
+    const seq = ++clusterRequestSeq;
+
+    try {
+        const url = `/api/data/location-clusters?zoom=${map.getZoom()}` +
+            `&minLat=${sw.lat()}&minLon=${sw.lng()}&maxLat=${ne.lat()}&maxLon=${ne.lng()}`;
+        const resp = await fetch(url);
+        if (!resp.ok) throw new Error('cluster fetch failed');
+        const data = await resp.json();
+        if (seq !== clusterRequestSeq) return; // a newer viewport has been requested meanwhile
+
+        clusterMarkers.forEach(m => m.setMap(null));
+        clusterMarkers = [];
+        clusteredView = data.clustered;
+
+        if (data.clustered) {
+            setMarkersVisible(historyMarkers, false);
+            setMarkersVisible(userMarkers, false);
+            clusterMarkers = (data.clusters || []).map(c => {
+                const m = new google.maps.Marker({
+                    position: {lat: c.lat, lng: c.lon}, map,
+                    icon: clusterIconSvg(c.count),
+                    label: {text: String(c.count), color: '#ffffff', fontSize: '11px', fontWeight: '600'},
+                    title: `${c.count} staff`
+                });
+                m.addListener('click', () => {
+                    map.setCenter(m.getPosition());
+                    map.setZoom(map.getZoom() + 2);
+                });
+                return m;
+            });
+        } else {
+            // zoomed in: only the users inside the viewport get markers
+            setMarkersVisible(historyMarkers, false);
+            renderLocationHistory((data.points || []).map(p => ({
+                userName: p.userName,
+                location: {lat: p.lat, lng: p.lon},
+                timestamp: p.timestamp,
+                isActive: isRecentlyActive(p.timestamp)
+            })), false);
+            (data.points || []).forEach(p => historyMarkers[p.userName]?.setMap(map));
+        }
+    } catch (e) {
+        console.error(e);
+    }
 }
 
 /* ========================
@@ -778,20 +1010,14 @@ async function updateLocationHistory() {
         // Start of today (00:00:00)
         const from = new Date(now.getFullYear(), now.getMonth(), now.getDate());
 
-        // End of today (23:59:59)
-        const to = new Date(now.getFullYear(), now.getMonth(), now.getDate(), 23, 59, 59);
-
-        const url = `/api/data/location-history?from=${encodeURIComponent(from.toISOString())}&to=${encodeURIComponent(to.toISOString())}`;
-        const resp = await fetch(url);
-        if (!resp.ok) throw new Error('history fetch failed');
-        const data = await resp.json();
+        // Merge only what was stored since the last sync, then keep today's fixes
+        const known = new Set(locationHistory.map(h => h.id).filter(id => id != null));
+        const fresh = (await syncLocationDeltas(toLocalIso(from)))
+            .filter(item => !known.has(item.id))
+            .map(normalizeFix);
 
-        locationHistory = (data || []).map(item => ({
-            ...item,
-            username: item.userName,
-            location: item.location ?? ((item.lat != null && item.lon != null) ? {lat: item.lat, lng: item.lon} : null),
-            timestamp: new Date(item.timestamp)
-        })).filter(h => h.location && !isNaN(h.timestamp?.getTime?.()));
+        locationHistory = fresh.concat(locationHistory)
+            .filter(h => h.location && !isNaN(h.timestamp?.getTime?.()) && h.timestamp >= from);
     } catch (e) {
         console.error(e);
         // keep existing locationHistory if fetch fails
@@ -0,0 +1,43 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebSocketConfigTest {
+
+    private final WebApplicationContextRunner runner = new WebApplicationContextRunner()
+            .withUserConfiguration(WebSocketConfig.class, WebSocketSessionMetrics.class);
+
+    @Test
+    void configureMessageBroker_ShouldUseTheInProcessBrokerByDefault() {
+        runner.run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context.getBeansOfType(AbstractBrokerMessageHandler.class).values())
+                    .singleElement()
+                    .isInstanceOf(SimpleBrokerMessageHandler.class);
+        });
+    }
+
+    @Test
+    void configureMessageBroker_ShouldRelayToTheExternalBrokerInRelayMode() {
+        runner.withPropertyValues(
+                        "websocket.broker.mode=relay",
+                        "websocket.relay.host=broker.internal",
+                        "websocket.relay.port=61614")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context.getBeansOfType(AbstractBrokerMessageHandler.class).values())
+                            .singleElement()
+                            .isInstanceOfSatisfying(StompBrokerRelayMessageHandler.class, relay -> {
+                                assertThat(relay.getRelayHost()).isEqualTo("broker.internal");
+                                assertThat(relay.getRelayPort()).isEqualTo(61614);
+                                assertThat(relay.getDestinationPrefixes()).containsExactly("/topic", "/queue");
+                            });
+                });
+    }
+}
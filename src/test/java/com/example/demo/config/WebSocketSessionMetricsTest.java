@@ -0,0 +1,53 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class WebSocketSessionMetricsTest {
+
+    @Mock
+    private ObjectProvider<WebSocketMessageBrokerStats> brokerStats;
+
+    @Mock
+    private WebSocketHandler handler;
+
+    @Mock
+    private WebSocketSession slow;
+
+    @Mock
+    private WebSocketSession normal;
+
+    @Test
+    void decorate_ShouldCountSessionsAndTheOnesDroppedForFallingBehind() throws Exception {
+        WebSocketSessionMetrics metrics = new WebSocketSessionMetrics(brokerStats);
+        WebSocketHandler decorated = metrics.decorate(handler);
+
+        decorated.afterConnectionEstablished(slow);
+        decorated.afterConnectionEstablished(normal);
+        decorated.handleTransportError(normal, new IOException("reset"));
+        decorated.afterConnectionClosed(slow, CloseStatus.SESSION_NOT_RELIABLE.withReason("Send time limit exceeded"));
+        decorated.afterConnectionClosed(normal, CloseStatus.NORMAL);
+
+        assertThat(metrics.snapshot())
+                .containsEntry("activeSessions", 0L)
+                .containsEntry("totalSessions", 2L)
+                .containsEntry("slowSessionsTerminated", 1L)
+                .containsEntry("transportErrors", 1L)
+                .doesNotContainKey("sessions");
+        // Events still reach the STOMP handler underneath
+        verify(handler).afterConnectionClosed(slow, CloseStatus.SESSION_NOT_RELIABLE.withReason("Send time limit exceeded"));
+    }
+}
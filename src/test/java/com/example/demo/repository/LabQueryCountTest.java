@@ -0,0 +1,121 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.LabCardDto;
+import com.example.demo.dto.LabDetectionSummaryDto;
+import com.example.demo.entity.AllAlertNotification;
+import com.example.demo.entity.AllLabRtspUrl;
+import com.example.demo.entity.LabDetection;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each lab view must cost a fixed number of statements however many detections there are.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class LabQueryCountTest {
+
+    private static final int LABS = 3;
+    private static final int DETECTIONS_PER_LAB = 20;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private LabDetectionRepo labDetectionRepo;
+
+    @Autowired
+    private AllAlertNotificationRepo alertRepo;
+
+    @Autowired
+    private AllLabRtspUrlRepo labRepo;
+
+    private Statistics statistics;
+    private Integer firstLabId;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime start = LocalDateTime.of(2025, 7, 1, 9, 0);
+        for (int l = 0; l < LABS; l++) {
+            AllLabRtspUrl lab = entityManager.persist(AllLabRtspUrl.builder()
+                    .labName("Lab " + l).crowdThreshold("5").totalAssignedPerson("3").build());
+            if (firstLabId == null) {
+                firstLabId = lab.getId();
+            }
+            for (int i = 0; i < DETECTIONS_PER_LAB; i++) {
+                entityManager.persist(LabDetection.builder()
+                        .lab(lab).timestamp("20250701_0900" + String.format("%02d", i))
+                        .detectedAt(start.plusSeconds(i)).personCount(i % 7).fireDetected(false)
+                        .frameImgPath("frames/" + l + "_" + i + ".jpg")
+                        .build());
+                entityManager.persist(AllAlertNotification.builder()
+                        .lab(lab).alertMessage("Overcrowd detected").generatedAt(start.plusSeconds(i))
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAll_ShouldLoadDetectionsWithTheirLabsInOneStatement() {
+        List<LabDetection> detections = labDetectionRepo.findAll();
+        detections.forEach(d -> assertThat(d.getLab().getLabName()).startsWith("Lab "));
+
+        assertThat(detections).hasSize(LABS * DETECTIONS_PER_LAB);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findAll_ShouldLoadAlertsWithTheirLabsInOneStatement() {
+        List<AllAlertNotification> alerts = alertRepo.findAll();
+        alerts.forEach(a -> assertThat(a.getLab().getLabName()).startsWith("Lab "));
+
+        assertThat(alerts).hasSize(LABS * DETECTIONS_PER_LAB);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void migratorBatch_ShouldNotTouchLabs() {
+        List<LabDetection> batch = labDetectionRepo.findByIdGreaterThanOrderByIdAsc(0, Limit.of(500));
+
+        assertThat(batch).hasSize(LABS * DETECTIONS_PER_LAB);
+        assertThat(batch).noneMatch(d -> Hibernate.isInitialized(d.getLab()));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void profileFeed_ShouldCostOneStatementForRowsAndOneForImages() {
+        List<LabDetectionSummaryDto> page = labDetectionRepo.findFeedPage(firstLabId, null, Limit.of(50));
+        labDetectionRepo.findPackedImages(firstLabId, page.stream().map(LabDetectionSummaryDto::getId).toList());
+
+        assertThat(page).hasSize(DETECTIONS_PER_LAB);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void dashboardCards_ShouldBeOneStatement() {
+        List<LabCardDto> cards = labRepo.findLabCards();
+
+        assertThat(cards).hasSize(LABS).allMatch(c -> "5".equals(c.getCrowdThreshold()));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
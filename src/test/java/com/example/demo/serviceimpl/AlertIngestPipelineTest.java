@@ -0,0 +1,200 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LabAlertEvent;
+import com.example.demo.entity.AllAlertNotification;
+import com.example.demo.entity.AllLabRtspUrl;
+import com.example.demo.repository.AllAlertNotificationRepo;
+import com.example.demo.repository.AllLabRtspUrlRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AlertIngestPipelineTest {
+
+    @Mock
+    private AllAlertNotificationRepo alertRepo;
+
+    @Mock
+    private AllLabRtspUrlRepo labRepo;
+
+    @Mock
+    private SimpMessagingTemplate messaging;
+
+    @Mock
+    private LabStatsTracker labStatsTracker;
+
+    private AlertIngestPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new AlertIngestPipeline(alertRepo, labRepo, messaging, new ObjectMapper(), labStatsTracker);
+        pipeline.init();
+    }
+
+    @Test
+    void submit_ShouldSuppressRepeatsFromTheSameLabWithinTheWindow() {
+        String alert = "{\"labId\":1,\"message\":\"Overcrowd detected\"}";
+
+        assertThat(pipeline.submit(alert)).isEqualTo(AlertIngestPipeline.Outcome.ACCEPTED);
+        assertThat(pipeline.submit(alert)).isEqualTo(AlertIngestPipeline.Outcome.DUPLICATE);
+        assertThat(pipeline.submit("{\"labId\":2,\"message\":\"Overcrowd detected\"}"))
+                .isEqualTo(AlertIngestPipeline.Outcome.ACCEPTED);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void drain_ShouldBroadcastEveryAlertAndStoreKnownLabsInOneBatch() {
+        AllLabRtspUrl lab = AllLabRtspUrl.builder().id(1).labName("Lab 1").build();
+        when(labRepo.findAllById(any())).thenReturn(List.of(lab));
+
+        pipeline.submit("{\"labId\":1,\"message\":\"Unauthorized person\"}");
+        pipeline.submit("{\"lab_id\":\"1\",\"message\":\"Fire detected\",\"frameImgPath\":\"/f/1.jpg\"}");
+        pipeline.submit("{\"labId\":99,\"message\":\"Unknown lab\"}");
+        pipeline.submit("Plain text alert");
+
+        pipeline.drain();
+
+        verify(messaging, times(4)).convertAndSend(eq("/topic/alerts"), anyString());
+        ArgumentCaptor<List<AllAlertNotification>> rows = ArgumentCaptor.forClass(List.class);
+        verify(alertRepo).saveAll(rows.capture());
+        assertThat(rows.getValue()).extracting(AllAlertNotification::getAlertMessage)
+                .containsExactly("Unauthorized person", "Fire detected");
+        assertThat(rows.getValue().get(1).getFrameImgPath()).isEqualTo("/f/1.jpg");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void drain_ShouldRetryABatchWhoseSaveFailedWithoutBroadcastingItAgain() {
+        ReflectionTestUtils.setField(pipeline, "retryBackoffMs", 0L);
+        AllLabRtspUrl lab = AllLabRtspUrl.builder().id(1).labName("Lab 1").build();
+        when(labRepo.findAllById(any())).thenReturn(List.of(lab));
+        when(alertRepo.saveAll(any()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenAnswer(inv -> inv.getArgument(0));
+
+        pipeline.submit("{\"labId\":1,\"message\":\"Fire detected\"}");
+        pipeline.drain();
+
+        assertThat(pipeline.stats()).containsEntry("stored", 0L).containsEntry("pendingRetry", 1L);
+
+        pipeline.drain();
+
+        verify(messaging, times(1)).convertAndSend(eq("/topic/alerts"), anyString());
+        ArgumentCaptor<List<AllAlertNotification>> rows = ArgumentCaptor.forClass(List.class);
+        verify(alertRepo, times(2)).saveAll(rows.capture());
+        assertThat(rows.getValue()).extracting(AllAlertNotification::getAlertMessage)
+                .containsExactly("Fire detected");
+        assertThat(pipeline.stats())
+                .containsEntry("stored", 1L)
+                .containsEntry("retries", 1L)
+                .containsEntry("dropped", 0L)
+                .containsEntry("pendingRetry", 0L);
+    }
+
+    @Test
+    void drain_ShouldDropAndCountABatchThatKeepsFailing() {
+        ReflectionTestUtils.setField(pipeline, "retryBackoffMs", 0L);
+        ReflectionTestUtils.setField(pipeline, "retryAttempts", 2);
+        AllLabRtspUrl lab = AllLabRtspUrl.builder().id(1).labName("Lab 1").build();
+        when(labRepo.findAllById(any())).thenReturn(List.of(lab));
+        when(alertRepo.saveAll(any())).thenThrow(new DataAccessResourceFailureException("connection refused"));
+        when(alertRepo.save(any())).thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        pipeline.submit("{\"labId\":1,\"message\":\"Fire detected\"}");
+        pipeline.submit("{\"labId\":1,\"message\":\"Smoke detected\"}");
+        pipeline.drain();
+        pipeline.drain();
+        pipeline.drain();
+        pipeline.drain();
+
+        verify(alertRepo, times(3)).saveAll(any());
+        verify(messaging, times(2)).convertAndSend(eq("/topic/alerts"), anyString());
+        assertThat(pipeline.stats())
+                .containsEntry("stored", 0L)
+                .containsEntry("retries", 2L)
+                .containsEntry("dropped", 2L)
+                .containsEntry("pendingRetry", 0L);
+    }
+
+    @Test
+    void drain_ShouldStoreTheRestOfABatchOneByOneWhenOneRowKeepsFailing() {
+        ReflectionTestUtils.setField(pipeline, "retryBackoffMs", 0L);
+        ReflectionTestUtils.setField(pipeline, "retryAttempts", 2);
+        AllLabRtspUrl lab = AllLabRtspUrl.builder().id(1).labName("Lab 1").build();
+        when(labRepo.findAllById(any())).thenReturn(List.of(lab));
+        when(alertRepo.saveAll(any())).thenThrow(new DataIntegrityViolationException("Data too long"));
+        when(alertRepo.save(any())).thenAnswer(inv -> {
+            AllAlertNotification row = inv.getArgument(0);
+            if (row.getAlertMessage().startsWith("Bad")) {
+                throw new DataIntegrityViolationException("Data too long");
+            }
+            return row;
+        });
+
+        pipeline.submit("{\"labId\":1,\"message\":\"Fire detected\"}");
+        pipeline.submit("{\"labId\":1,\"message\":\"Bad row\"}");
+        pipeline.submit("{\"labId\":1,\"message\":\"Smoke detected\"}");
+        pipeline.drain();
+        pipeline.drain();
+
+        assertThat(pipeline.stats()).containsEntry("stored", 2L).containsEntry("pendingRetry", 1L);
+
+        pipeline.drain();
+
+        // The bad row alone is retried and finally dropped
+        verify(alertRepo, times(3)).saveAll(any());
+        assertThat(pipeline.stats())
+                .containsEntry("stored", 2L)
+                .containsEntry("dropped", 1L)
+                .containsEntry("pendingRetry", 0L);
+    }
+
+    @Test
+    void parse_ShouldFitFieldsIntoTheirColumns() {
+        String longText = "x".repeat(AlertIngestPipeline.MAX_FIELD_LENGTH + 50);
+
+        LabAlertEvent alert = pipeline.parse("{\"labId\":1,\"message\":\"" + longText
+                + "\",\"frameImgPath\":\"/f/" + longText + ".jpg\"}");
+
+        assertThat(alert.getMessage()).hasSize(AlertIngestPipeline.MAX_FIELD_LENGTH);
+        assertThat(alert.getFrameImgPath()).isNull();
+        assertThat(alert.getRaw()).contains(longText);
+        assertThat(pipeline.parse(longText).getMessage()).hasSize(AlertIngestPipeline.MAX_FIELD_LENGTH);
+    }
+
+    @Test
+    void shutdown_ShouldGiveParkedBatchesOneLastTry() {
+        AllLabRtspUrl lab = AllLabRtspUrl.builder().id(1).labName("Lab 1").build();
+        when(labRepo.findAllById(any())).thenReturn(List.of(lab));
+        when(alertRepo.saveAll(any()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenAnswer(inv -> inv.getArgument(0));
+
+        pipeline.submit("{\"labId\":1,\"message\":\"Fire detected\"}");
+        pipeline.drain();
+        pipeline.shutdown();
+
+        verify(alertRepo, times(2)).saveAll(any());
+        verify(labStatsTracker, times(1)).recordAlert(any());
+        assertThat(pipeline.stats()).containsEntry("stored", 1L).containsEntry("pendingRetry", 0L);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationFixDto;
+import com.example.demo.entity.Employee;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.EmployeeRepository;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AttendanceServiceImplTest {
+
+    @Mock
+    private WffLocationTrackingRepository locationTrackingRepository;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private LocationEventPublisher publisher;
+
+    @Mock
+    private LocationSpatialIndex spatialIndex;
+
+    @Mock
+    private GeofenceEngine geofenceEngine;
+
+    @Mock
+    private MovementSummaryAggregator movementSummaryAggregator;
+
+    @Mock
+    private LocationIngestFilter ingestFilter;
+
+    @Mock
+    private PresenceTracker presenceTracker;
+
+    private AttendanceServiceImpl service;
+
+    private final Employee employee = Employee.builder().username("wff1").district("Lucknow").build();
+
+    @BeforeEach
+    void setUp() {
+        service = new AttendanceServiceImpl(publisher, spatialIndex, geofenceEngine, movementSummaryAggregator,
+                ingestFilter, null, presenceTracker, null, null);
+        ReflectionTestUtils.setField(service, "locationTrackingRepository", locationTrackingRepository);
+        ReflectionTestUtils.setField(service, "employeeRepository", employeeRepository);
+        when(employeeRepository.findByUsername("wff1")).thenReturn(employee);
+        when(ingestFilter.filterBatch(eq("wff1"), anyList())).thenAnswer(inv -> inv.getArgument(1));
+        when(locationTrackingRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void saveLocationBatch_ShouldRunSideEffectsOnlyAfterCommit() {
+        service.saveLocationBatch("wff1", List.of(
+                new LocationFixDto("wff1", LocalDateTime.of(2025, 7, 1, 10, 0), 26.84, 80.94),
+                new LocationFixDto("wff1", LocalDateTime.of(2025, 7, 1, 10, 1), 26.85, 80.95)), true);
+
+        verifyNoInteractions(publisher, spatialIndex, geofenceEngine, movementSummaryAggregator);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(spatialIndex, times(2)).update(any(WffLocationTracking.class));
+        verify(publisher, times(2)).publish(any(WffLocationTracking.class), anyString());
+        verify(geofenceEngine, times(2)).evaluate(eq(employee), any(WffLocationTracking.class));
+        verify(movementSummaryAggregator, times(2)).record(eq(employee), any(WffLocationTracking.class));
+    }
+
+    @Test
+    void saveLocationBatch_ShouldSkipSideEffectsWhenTheTransactionRollsBack() {
+        service.saveLocationBatch("wff1", List.of(
+                new LocationFixDto("wff1", LocalDateTime.of(2025, 7, 1, 10, 0), 26.84, 80.94)), true);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(publisher, spatialIndex, geofenceEngine, movementSummaryAggregator);
+    }
+
+    @Test
+    void saveLocationBatch_ShouldStillSummariseWhenGeofenceEvaluationFails() {
+        doThrow(new IllegalStateException("db down")).when(geofenceEngine).evaluate(any(), any());
+
+        service.saveLocationBatch("wff1", List.of(
+                new LocationFixDto("wff1", LocalDateTime.of(2025, 7, 1, 10, 0), 26.84, 80.94)), true);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(movementSummaryAggregator).record(eq(employee), any(WffLocationTracking.class));
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+    }
+}
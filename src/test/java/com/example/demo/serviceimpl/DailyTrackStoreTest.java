@@ -0,0 +1,121 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.DailyLocationTrack;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.DailyLocationTrackRepository;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DailyTrackStoreTest {
+
+    @Mock
+    private DailyLocationTrackRepository trackRepository;
+
+    @Mock
+    private WffLocationTrackingRepository locationTrackingRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private DailyTrackStore store;
+
+    private final LocalDate day = LocalDate.of(2025, 7, 1);
+    private final LocalDateTime start = day.atTime(9, 0);
+
+    @Test
+    void sealDay_ShouldPackAllButTheLastFixAndDeleteTheRest() {
+        List<WffLocationTracking> raw = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            raw.add(row((long) i + 1, start.plusSeconds(i * 10L), 26.8467 + i * 0.00001, 80.9462));
+        }
+        when(locationTrackingRepository.findDayForSealing("wff1", day.atStartOfDay(), day.plusDays(1).atStartOfDay())).thenReturn(raw);
+        when(trackRepository.findByUserNameAndTrackDate("wff1", day)).thenReturn(Optional.empty());
+
+        store.sealDay("wff1", day);
+
+        ArgumentCaptor<DailyLocationTrack> saved = ArgumentCaptor.forClass(DailyLocationTrack.class);
+        verify(trackRepository).save(saved.capture());
+        DailyLocationTrack track = saved.getValue();
+        assertThat(track.getFixCount()).isEqualTo(99);
+        assertThat(track.getLastFixAt()).isEqualTo(start.plusSeconds(980));
+        // ~5 bytes per fix against 100+ for a row with its indexes
+        assertThat(track.getData().length).isLessThan(99 * 6);
+        verify(locationTrackingRepository).deleteDayExcept("wff1", day.atStartOfDay(), day.plusDays(1).atStartOfDay(), 100L);
+    }
+
+    @Test
+    void sealedHistory_ShouldDecodeWithinRangeNewestFirst() {
+        List<WffLocationTracking> raw = List.of(
+                row(1L, start, 26.8467, 80.9462),
+                row(2L, start.plusMinutes(1), 26.8468, 80.9463),
+                row(3L, start.plusMinutes(2), 26.8469, 80.9464),
+                row(4L, start.plusMinutes(3), 26.8470, 80.9465));
+        when(locationTrackingRepository.findDayForSealing("wff1", day.atStartOfDay(), day.plusDays(1).atStartOfDay())).thenReturn(raw);
+        when(trackRepository.findByUserNameAndTrackDate("wff1", day)).thenReturn(Optional.empty());
+        when(trackRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        store.sealDay("wff1", day);
+        ArgumentCaptor<DailyLocationTrack> saved = ArgumentCaptor.forClass(DailyLocationTrack.class);
+        verify(trackRepository).save(saved.capture());
+
+        when(trackRepository.findByUserNameAndTrackDateBetweenOrderByTrackDateDesc("wff1", day, day))
+                .thenReturn(List.of(saved.getValue()));
+        List<WffLocationTracking> history = store.sealedHistory("wff1", start.plusSeconds(30), start.plusMinutes(5));
+
+        assertThat(history).extracting(WffLocationTracking::getTimestamp)
+                .containsExactly(start.plusMinutes(2), start.plusMinutes(1));
+        assertThat(history.get(0).getLat()).isEqualTo(26.8469);
+    }
+
+    @Test
+    void sealDay_ShouldFileALateUploadUnderItsFixDayNotItsUploadDate() {
+        // Uploaded the next morning through the single-fix path, which stamps date = upload day
+        WffLocationTracking late = row(7L, start.plusHours(14), 26.8500, 80.9500);
+        late.setDate(day.plusDays(1));
+        List<WffLocationTracking> raw = List.of(
+                row(1L, start, 26.8467, 80.9462),
+                late,
+                row(9L, start.plusHours(15), 26.8510, 80.9510));
+        when(locationTrackingRepository.findDayForSealing("wff1", day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+                .thenReturn(raw);
+        when(trackRepository.findByUserNameAndTrackDate("wff1", day)).thenReturn(Optional.empty());
+        when(trackRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        store.sealDay("wff1", day);
+
+        ArgumentCaptor<DailyLocationTrack> saved = ArgumentCaptor.forClass(DailyLocationTrack.class);
+        verify(trackRepository).save(saved.capture());
+        assertThat(saved.getValue().getTrackDate()).isEqualTo(day);
+
+        // A read of that day's afternoon finds the late fix in the day's blob
+        when(trackRepository.findByUserNameAndTrackDateBetweenOrderByTrackDateDesc("wff1", day, day))
+                .thenReturn(List.of(saved.getValue()));
+        List<WffLocationTracking> history = store.sealedHistory("wff1", start.plusHours(13), start.plusHours(14).plusMinutes(1));
+
+        assertThat(history).extracting(WffLocationTracking::getTimestamp).containsExactly(start.plusHours(14));
+    }
+
+    private static WffLocationTracking row(Long id, LocalDateTime ts, double lat, double lon) {
+        return WffLocationTracking.builder()
+                .id(id).userName("wff1").lat(lat).lon(lon).date(ts.toLocalDate()).timestamp(ts)
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LabDetectionImagesDto;
+import com.example.demo.dto.LabDetectionPageResponse;
+import com.example.demo.dto.LabDetectionSummaryDto;
+import com.example.demo.repository.AllAlertNotificationRepo;
+import com.example.demo.entity.LabDetectionImage;
+import com.example.demo.repository.AllLabRtspUrlRepo;
+import com.example.demo.repository.LabDetectionImageRepository;
+import com.example.demo.repository.LabDetectionRepo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DataServiceImplTest {
+
+    @Mock
+    private AllAlertNotificationRepo allAlertNotificationRepo;
+
+    @Mock
+    private AllLabRtspUrlRepo allLabRtspUrlRepo;
+
+    @Mock
+    private LabDetectionRepo labDetectionRepo;
+
+    @Mock
+    private LabDetectionImageRepository imageRepository;
+
+    @Mock
+    private LabDataMigrator labDataMigrator;
+
+    @InjectMocks
+    private DataServiceImpl dataService;
+
+    @Test
+    void fetchLabDetectionFeed_ShouldServeUnmigratedTailThenTypedRange() {
+        when(labDataMigrator.detectionCheckpoint()).thenReturn(100L);
+        when(labDetectionRepo.findUnmigratedFeedPage(7, 100, null, "20250701_12", Limit.of(3)))
+                .thenReturn(List.of(summary(105)));
+        when(labDetectionRepo.findFeedPageInRange(7, LocalDateTime.of(2025, 7, 1, 12, 0),
+                LocalDateTime.of(2025, 7, 1, 13, 0), 101, Limit.of(3)))
+                .thenReturn(List.of(summary(99), summary(98)));
+
+        LabDetectionPageResponse page = dataService.fetchLabDetectionFeed(7, null, "20250701_12", 2);
+
+        assertThat(page.getDetections()).extracting(LabDetectionSummaryDto::getId).containsExactly(105, 99);
+        assertThat(page.getCursor()).isEqualTo(99);
+        assertThat(page.isHasMore()).isTrue();
+    }
+
+    @Test
+    void fetchLabDetectionFeed_ShouldInterleaveUntypedRowsBehindTheCheckpoint() {
+        when(labDataMigrator.detectionCheckpoint()).thenReturn(100L);
+        // 97 has no detected_at (committed after the checkpoint passed it), so only the raw query sees it
+        when(labDetectionRepo.findUnmigratedFeedPage(7, 100, null, "20250701_12", Limit.of(4)))
+                .thenReturn(List.of(summary(105), summary(97)));
+        when(labDetectionRepo.findFeedPageInRange(7, LocalDateTime.of(2025, 7, 1, 12, 0),
+                LocalDateTime.of(2025, 7, 1, 13, 0), 101, Limit.of(4)))
+                .thenReturn(List.of(summary(99), summary(98), summary(96)));
+
+        LabDetectionPageResponse page = dataService.fetchLabDetectionFeed(7, null, "20250701_12", 3);
+
+        assertThat(page.getDetections()).extracting(LabDetectionSummaryDto::getId).containsExactly(105, 99, 98);
+        assertThat(page.isHasMore()).isTrue();
+    }
+
+    @Test
+    void fetchLabDetectionImages_ShouldFallBackToPackedColumnsForUnsplitRowsBehindTheCheckpoint() {
+        when(labDataMigrator.detectionCheckpoint()).thenReturn(100L);
+        when(labDetectionRepo.findIdsOfLab(7, List.of(99, 98))).thenReturn(List.of(99, 98));
+        when(imageRepository.findByDetectionIdInOrderByDetectionIdAscKindAscSeqAsc(any()))
+                .thenReturn(List.of(new LabDetectionImage(99, LabDetectionImage.KIND_FRAME, 0, "/f/99.jpg")));
+        when(labDetectionRepo.findPackedImages(7, List.of(98)))
+                .thenReturn(List.of(LabDetectionImagesDto.builder().id(98).frameImgPath("/f/98.jpg").build()));
+
+        List<LabDetectionImagesDto> images = dataService.fetchLabDetectionImages(7, List.of(99, 98));
+
+        assertThat(images).extracting(LabDetectionImagesDto::getId).containsExactly(99, 98);
+        assertThat(images).extracting(LabDetectionImagesDto::getFrameImgPath).containsExactly("/f/99.jpg", "/f/98.jpg");
+    }
+
+    private static LabDetectionSummaryDto summary(int id) {
+        return LabDetectionSummaryDto.builder().id(id).build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.DetectionTickDto;
+import com.example.demo.entity.LabDetectionBucket;
+import com.example.demo.entity.MigrationCheckpoint;
+import com.example.demo.repository.LabDetectionBucketRepository;
+import com.example.demo.repository.LabDetectionRepo;
+import com.example.demo.repository.MigrationCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DetectionTimelineRollupTest {
+
+    @Mock
+    private LabDetectionRepo labDetectionRepo;
+
+    @Mock
+    private LabDetectionBucketRepository bucketRepository;
+
+    @Mock
+    private MigrationCheckpointRepository checkpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private LabThresholdEvaluator thresholdEvaluator;
+
+    @Mock
+    private LabStatsTracker labStatsTracker;
+
+    @Test
+    void fold_ShouldAggregateMinuteAndHourBucketsPerLab() {
+        List<DetectionTickDto> batch = List.of(
+                new DetectionTickDto(1, 7, "20250701_122120", 3, 2, null, false),
+                new DetectionTickDto(2, 7, "20250701_122150", 5, 1, null, true),
+                new DetectionTickDto(3, 7, "20250701_124005", 1, null, null, false),
+                new DetectionTickDto(4, 8, "20250701_122130", 9, 0, null, false),
+                new DetectionTickDto(5, 7, "garbage", 4, 4, null, true)
+        );
+
+        Map<DetectionTimelineRollup.BucketKey, LabDetectionBucket> buckets = DetectionTimelineRollup.fold(batch);
+
+        LabDetectionBucket minute = buckets.get(new DetectionTimelineRollup.BucketKey(
+                7, LabDetectionBucket.RESOLUTION_MINUTE, LocalDateTime.of(2025, 7, 1, 12, 21)));
+        assertThat(minute.getDetections()).isEqualTo(2);
+        assertThat(minute.getPersonMax()).isEqualTo(5);
+        assertThat(minute.getPersonAvg()).isEqualTo(4.0);
+        assertThat(minute.getObjectTotal()).isEqualTo(3);
+        assertThat(minute.getFireCount()).isEqualTo(1);
+
+        LabDetectionBucket hour = buckets.get(new DetectionTimelineRollup.BucketKey(
+                7, LabDetectionBucket.RESOLUTION_HOUR, LocalDateTime.of(2025, 7, 1, 12, 0)));
+        assertThat(hour.getDetections()).isEqualTo(3);
+        assertThat(hour.getObjectTotal()).isEqualTo(3);
+
+        // lab 7: two minutes + one hour, lab 8: one minute + one hour; the unparsable row is skipped
+        assertThat(buckets).hasSize(5);
+    }
+
+    @Test
+    void poll_ShouldPickUpARowThatCommitsAfterAHigherId() {
+        DetectionTimelineRollup rollup = new DetectionTimelineRollup(labDetectionRepo, bucketRepository,
+                checkpointRepository, transactionManager, thresholdEvaluator, labStatsTracker);
+        DetectionTickDto t1 = new DetectionTickDto(1, 7, "20250701_122120", 3, 0, null, false);
+        DetectionTickDto t2 = new DetectionTickDto(2, 7, "20250701_122121", 3, 0, null, false);
+        DetectionTickDto t3 = new DetectionTickDto(3, 7, "20250701_122122", 3, 0, null, false);
+        DetectionTickDto t4 = new DetectionTickDto(4, 7, "20250701_122123", 3, 0, null, false);
+        when(checkpointRepository.findById(DetectionTimelineRollup.CHECKPOINT)).thenReturn(Optional.empty());
+        when(bucketRepository.findWatermark()).thenReturn(0);
+        // Row 3 is still uncommitted on the first poll
+        when(labDetectionRepo.findTicksAfter(eq(0), any()))
+                .thenReturn(List.of(t1, t2, t4))
+                .thenReturn(List.of(t1, t2, t3, t4));
+
+        rollup.poll();
+        rollup.poll();
+
+        InOrder order = inOrder(thresholdEvaluator);
+        order.verify(thresholdEvaluator).accept(List.of(t1, t2, t4));
+        order.verify(thresholdEvaluator).accept(List.of(t3));
+        order.verifyNoMoreInteractions();
+    }
+
+    @Test
+    void poll_ShouldResumeFromTheSettledCheckpointNotTheNewestAppliedId() {
+        DetectionTimelineRollup rollup = new DetectionTimelineRollup(labDetectionRepo, bucketRepository,
+                checkpointRepository, transactionManager, thresholdEvaluator, labStatsTracker);
+        ReflectionTestUtils.setField(rollup, "commitLagSeconds", 0L);
+        DetectionTickDto t5 = new DetectionTickDto(5, 7, "20250701_122120", 3, 0, null, false);
+        DetectionTickDto t6 = new DetectionTickDto(6, 7, "20250701_122121", 3, 0, null, false);
+        when(checkpointRepository.findById(DetectionTimelineRollup.CHECKPOINT)).thenReturn(Optional.of(
+                MigrationCheckpoint.builder().name(DetectionTimelineRollup.CHECKPOINT).lastId(4).build()));
+        when(labDetectionRepo.findTicksAfter(eq(4), any())).thenReturn(List.of(t5, t6));
+
+        rollup.poll();
+
+        verify(bucketRepository, never()).findWatermark();
+        ArgumentCaptor<MigrationCheckpoint> saved = ArgumentCaptor.forClass(MigrationCheckpoint.class);
+        verify(checkpointRepository).save(saved.capture());
+        assertThat(saved.getValue().getLastId()).isEqualTo(6);
+        assertThat(saved.getValue().getRowsProcessed()).isEqualTo(2);
+    }
+}
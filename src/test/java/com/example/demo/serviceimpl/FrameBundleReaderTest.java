@@ -0,0 +1,97 @@
+package com.example.demo.serviceimpl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FrameBundleReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private FrameCache cache;
+    private FrameBundleReader reader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new FrameCache();
+        ReflectionTestUtils.setField(cache, "profileDirectory", dir.toString() + "/");
+        reader = new FrameBundleReader(cache);
+        ReflectionTestUtils.setField(reader, "maxFrames", 3);
+        Files.createDirectories(dir.resolve("frames"));
+        Files.write(dir.resolve("frames/a.jpg"), "first".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("frames/b.jpg"), new byte[70_000]);
+    }
+
+    @Test
+    void write_ShouldLengthPrefixFramesInRequestOrderAndMarkMissingOnes() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int sent = reader.write(reader.open(List.of("frames/b.jpg", "frames/gone.jpg", "frames/a.jpg")), out);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(sent).isEqualTo(2);
+        assertThat(in.readInt()).isEqualTo(3);
+
+        assertThat(readPath(in)).isEqualTo("frames/b.jpg");
+        assertThat(in.readInt()).isEqualTo(70_000);
+        in.skipNBytes(70_000);
+
+        assertThat(readPath(in)).isEqualTo("frames/gone.jpg");
+        assertThat(in.readInt()).isEqualTo(FrameBundleReader.MISSING);
+
+        assertThat(readPath(in)).isEqualTo("frames/a.jpg");
+        assertThat(new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8)).isEqualTo("first");
+        assertThat(in.available()).isZero();
+
+        // Both reads went through the memory tier
+        assertThat(cache.stats()).containsEntry("entries", 2);
+    }
+
+    @Test
+    void write_ShouldSendFramesAboveTheEntryLimitOrPastTheBundleBudgetAsMissing() throws Exception {
+        ReflectionTestUtils.setField(cache, "maxEntryBytes", 60_000L);
+        Files.write(dir.resolve("frames/c.jpg"), new byte[40_000]);
+        Files.write(dir.resolve("frames/d.jpg"), new byte[30_000]);
+        ReflectionTestUtils.setField(reader, "maxBytes", 50_000L);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int sent = reader.write(reader.open(List.of("frames/b.jpg", "frames/c.jpg", "frames/d.jpg")), out);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(sent).isEqualTo(1);
+        assertThat(in.readInt()).isEqualTo(3);
+        assertThat(readPath(in)).isEqualTo("frames/b.jpg");
+        assertThat(in.readInt()).isEqualTo(FrameBundleReader.MISSING);
+        assertThat(readPath(in)).isEqualTo("frames/c.jpg");
+        assertThat(in.readInt()).isEqualTo(40_000);
+        in.skipNBytes(40_000);
+        // 40 000 of the 50 000 byte budget are taken
+        assertThat(readPath(in)).isEqualTo("frames/d.jpg");
+        assertThat(in.readInt()).isEqualTo(FrameBundleReader.MISSING);
+        assertThat(in.available()).isZero();
+    }
+
+    @Test
+    void open_ShouldRejectOversizedWindowsAndEscapingPaths() {
+        assertThatThrownBy(() -> reader.open(List.of("a", "b", "c", "d")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> reader.open(List.of("../etc/passwd")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String readPath(DataInputStream in) throws Exception {
+        return new String(in.readNBytes(in.readUnsignedShort()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.serviceimpl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FrameCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private FrameCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new FrameCache();
+        ReflectionTestUtils.setField(cache, "profileDirectory", dir.toString() + "/");
+        ReflectionTestUtils.setField(cache, "maxBytes", 250L);
+        Files.createDirectories(dir.resolve("frames"));
+        for (String name : new String[]{"a.jpg", "b.jpg", "c.jpg"}) {
+            Files.write(dir.resolve("frames").resolve(name), new byte[100]);
+        }
+    }
+
+    @Test
+    void open_ShouldServeRepeatsFromMemoryAndEvictLeastRecentlyUsed() throws Exception {
+        cache.open(cache.stat("frames/a.jpg"));
+        cache.open(cache.stat("frames/b.jpg"));
+        cache.open(cache.stat("frames/a.jpg"));   // hit, a becomes most recent
+        cache.open(cache.stat("frames/c.jpg"));   // 300 bytes > 250: evicts b
+        cache.open(cache.stat("frames/a.jpg"));   // still cached
+
+        assertThat(cache.stats())
+                .containsEntry("hits", 2L)
+                .containsEntry("misses", 3L)
+                .containsEntry("evictions", 1L)
+                .containsEntry("usedBytes", 200L);
+    }
+
+    @Test
+    void stat_ShouldRejectPathsOutsideTheFrameDirectory() {
+        assertThatThrownBy(() -> cache.stat("../etc/passwd"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
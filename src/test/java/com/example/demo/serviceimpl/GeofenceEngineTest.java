@@ -0,0 +1,152 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.Employee;
+import com.example.demo.entity.Geofence;
+import com.example.demo.entity.GeofenceEvent;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.GeofenceEventRepository;
+import com.example.demo.repository.GeofenceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GeofenceEngineTest {
+
+    @Mock
+    private GeofenceRepository geofenceRepository;
+
+    @Mock
+    private GeofenceEventRepository geofenceEventRepository;
+
+    @Mock
+    private SimpMessagingTemplate messaging;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private GeofenceEngine geofenceEngine;
+
+    private Employee employee;
+
+    @BeforeEach
+    void setUp() {
+        Geofence site = Geofence.builder()
+                .id(1L).name("Lucknow Lab").shape(Geofence.SHAPE_CIRCLE)
+                .fenceType(Geofence.TYPE_ASSIGNED_SITE)
+                .scopeType(Geofence.SCOPE_DISTRICT).scopeValue("Lucknow")
+                .centerLat(26.8467).centerLon(80.9462).radiusMeters(500.0)
+                .build();
+        Geofence restricted = Geofence.builder()
+                .id(2L).name("Restricted Yard").shape(Geofence.SHAPE_POLYGON)
+                .fenceType(Geofence.TYPE_RESTRICTED)
+                .scopeType(Geofence.SCOPE_ALL)
+                .polygon("26.90,80.90;26.90,80.92;26.92,80.92;26.92,80.90")
+                .build();
+        when(geofenceRepository.findAllActive()).thenReturn(Arrays.asList(site, restricted));
+        lenient().when(geofenceEventRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        geofenceEngine.reload();
+
+        employee = Employee.builder().username("wff1").district("Lucknow").build();
+    }
+
+    @Test
+    void evaluate_ShouldAdoptMembershipSilentlyOnFirstFix() {
+        assertThat(geofenceEngine.evaluate(employee, fix(26.8467, 80.9462))).isEmpty();
+    }
+
+    @Test
+    void evaluate_ShouldEmitExitAndEnterOnTransitions() {
+        geofenceEngine.evaluate(employee, fix(26.8467, 80.9462));
+
+        List<GeofenceEvent> events = geofenceEngine.evaluate(employee, fix(26.91, 80.91));
+
+        assertThat(events).extracting(GeofenceEvent::getGeofenceId, GeofenceEvent::getEventType)
+                .containsExactlyInAnyOrder(
+                        tuple(2L, GeofenceEvent.ENTER),
+                        tuple(1L, GeofenceEvent.EXIT));
+    }
+
+    @Test
+    void evaluate_ShouldKeepTheTransitionForTheNextFixWhenStoringFails() {
+        geofenceEngine.evaluate(employee, fix(26.8467, 80.9462));
+        when(geofenceEventRepository.saveAll(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        assertThatThrownBy(() -> geofenceEngine.evaluate(employee, fix(26.91, 80.91)))
+                .isInstanceOf(IllegalStateException.class);
+        verify(messaging, never()).convertAndSend(anyString(), any(Object.class));
+
+        doAnswer(inv -> inv.getArgument(0)).when(geofenceEventRepository).saveAll(anyList());
+        assertThat(geofenceEngine.evaluate(employee, fix(26.91, 80.91)))
+                .extracting(GeofenceEvent::getEventType)
+                .containsExactlyInAnyOrder(GeofenceEvent.ENTER, GeofenceEvent.EXIT);
+    }
+
+    @Test
+    void evaluate_ShouldIgnoreFencesScopedToOtherDistricts() {
+        Employee other = Employee.builder().username("wff2").district("Agra").build();
+        geofenceEngine.evaluate(other, fix("wff2", 26.0, 80.0));
+
+        List<GeofenceEvent> events = geofenceEngine.evaluate(other, fix("wff2", 26.8467, 80.9462));
+
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void nearestBoundaryMeters_ShouldMeasureToCircleAndPolygonEdges() {
+        // 100 m inside the 500 m circle -> 400 m from its edge
+        assertThat(geofenceEngine.nearestBoundaryMeters(employee, "wff1", 26.8467 + 0.000898, 80.9462, 1000)
+                .getAsDouble()).isCloseTo(400, within(2.0));
+        // ~111 m south of the restricted yard's southern edge
+        assertThat(geofenceEngine.nearestBoundaryMeters(employee, "wff1", 26.899, 80.91, 300)
+                .getAsDouble()).isCloseTo(111, within(2.0));
+        assertThat(geofenceEngine.nearestBoundaryMeters(employee, "wff1", 26.5, 80.5, 300)).isEmpty();
+    }
+
+    @Test
+    void compile_ShouldRejectPolygonWithTooFewVertices() {
+        Geofence bad = Geofence.builder()
+                .shape(Geofence.SHAPE_POLYGON).scopeType(Geofence.SCOPE_ALL)
+                .polygon("26.90,80.90;26.91,80.91")
+                .build();
+
+        assertThatThrownBy(() -> GeofenceEngine.compile(bad))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private WffLocationTracking fix(double lat, double lon) {
+        return fix(employee.getUsername(), lat, lon);
+    }
+
+    private WffLocationTracking fix(String userName, double lat, double lon) {
+        return WffLocationTracking.builder()
+                .userName(userName)
+                .lat(lat)
+                .lon(lon)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
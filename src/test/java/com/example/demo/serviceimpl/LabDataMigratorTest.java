@@ -0,0 +1,109 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.LabDetection;
+import com.example.demo.entity.LabDetectionImage;
+import com.example.demo.entity.MigrationCheckpoint;
+import com.example.demo.repository.AllAlertNotificationRepo;
+import com.example.demo.repository.LabDetectionImageRepository;
+import com.example.demo.repository.LabDetectionRepo;
+import com.example.demo.repository.MigrationCheckpointRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LabDataMigratorTest {
+
+    @Mock
+    private LabDetectionRepo labDetectionRepo;
+
+    @Mock
+    private LabDetectionImageRepository imageRepository;
+
+    @Mock
+    private AllAlertNotificationRepo alertRepo;
+
+    @Mock
+    private MigrationCheckpointRepository checkpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private LabDataMigrator migrator;
+
+    @BeforeEach
+    void setUp() {
+        migrator = new LabDataMigrator(labDetectionRepo, imageRepository, alertRepo, checkpointRepository, transactionManager);
+        ReflectionTestUtils.setField(migrator, "entityManager", entityManager);
+        when(checkpointRepository.findById(any())).thenReturn(Optional.empty());
+        when(alertRepo.findByIdGreaterThanOrderByIdAsc(eq(0), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void run_ShouldConvertARowThatCommitsAfterAHigherId() {
+        LabDetection d1 = detection(1);
+        LabDetection d2 = detection(2);
+        LabDetection d3 = detection(3);
+        LabDetection d4 = detection(4);
+        // Row 3 is still uncommitted on the first run
+        when(labDetectionRepo.findByIdGreaterThanOrderByIdAsc(eq(0), any()))
+                .thenReturn(List.of(d1, d2, d4))
+                .thenReturn(List.of(d1, d2, d3, d4));
+
+        migrator.run();
+        migrator.run();
+
+        assertThat(d3.getDetectedAt()).isEqualTo(LocalDateTime.of(2025, 7, 1, 12, 21, 23));
+        ArgumentCaptor<LabDetectionImage> images = ArgumentCaptor.forClass(LabDetectionImage.class);
+        verify(entityManager, times(4)).persist(images.capture());
+        assertThat(images.getAllValues()).extracting(LabDetectionImage::getDetectionId).containsExactly(1, 2, 4, 3);
+        // Nothing has been converted for the whole commit lag yet, so the checkpoint has not moved
+        assertThat(migrator.detectionCheckpoint()).isZero();
+    }
+
+    @Test
+    void run_ShouldAdvanceTheCheckpointOnceRowsAreOlderThanTheCommitLag() {
+        ReflectionTestUtils.setField(migrator, "commitLagSeconds", 0L);
+        when(labDetectionRepo.findByIdGreaterThanOrderByIdAsc(eq(0), any()))
+                .thenReturn(List.of(detection(1), detection(2)));
+        assertThat(migrator.detectionsCaughtUp()).isFalse();
+
+        migrator.run();
+        migrator.run();
+
+        assertThat(migrator.detectionsCaughtUp()).isTrue();
+
+        ArgumentCaptor<MigrationCheckpoint> saved = ArgumentCaptor.forClass(MigrationCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(saved.capture());
+        assertThat(saved.getValue().getLastId()).isEqualTo(2);
+        assertThat(migrator.detectionCheckpoint()).isEqualTo(2);
+    }
+
+    private static LabDetection detection(int id) {
+        return LabDetection.builder()
+                .id(id)
+                .timestamp(String.format("20250701_1221%02d", 20 + id))
+                .frameImgPath("/f/" + id + ".jpg")
+                .build();
+    }
+}
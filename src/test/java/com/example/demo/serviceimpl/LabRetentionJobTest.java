@@ -0,0 +1,189 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LabDetectionImagesDto;
+import com.example.demo.dto.RetentionCandidateDto;
+import com.example.demo.dto.RetentionReportDto;
+import com.example.demo.entity.AllLabRtspUrl;
+import com.example.demo.entity.LabRetentionPolicy;
+import com.example.demo.repository.AllAlertNotificationRepo;
+import com.example.demo.repository.AllLabRtspUrlRepo;
+import com.example.demo.repository.LabDetectionImageRepository;
+import com.example.demo.repository.LabDetectionRepo;
+import com.example.demo.repository.LabRetentionPolicyRepository;
+import com.example.demo.repository.MigrationCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LabRetentionJobTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private AllLabRtspUrlRepo labRepo;
+
+    @Mock
+    private LabRetentionPolicyRepository policyRepository;
+
+    @Mock
+    private LabDetectionRepo labDetectionRepo;
+
+    @Mock
+    private LabDetectionImageRepository imageRepository;
+
+    @Mock
+    private AllAlertNotificationRepo alertRepo;
+
+    @Mock
+    private MigrationCheckpointRepository checkpointRepository;
+
+    @Mock
+    private LabDataMigrator labDataMigrator;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LabRetentionJob job;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FrameCache frameCache = new FrameCache();
+        ReflectionTestUtils.setField(frameCache, "profileDirectory", dir.toString() + "/");
+        Files.createDirectories(dir.resolve("frames"));
+        Files.write(dir.resolve("frames/plain.jpg"), new byte[1000]);
+        Files.write(dir.resolve("frames/alerted.jpg"), new byte[500]);
+        Files.write(dir.resolve("frames/fire.jpg"), new byte[700]);
+        Files.write(dir.resolve("frames/shared.jpg"), new byte[300]);
+        Files.write(dir.resolve("frames/unsplit.jpg"), new byte[200]);
+
+        job = new LabRetentionJob(labRepo, policyRepository, labDetectionRepo, imageRepository, alertRepo,
+                checkpointRepository, frameCache, labDataMigrator, transactionManager);
+        ReflectionTestUtils.setField(job, "workStartHour", 0);
+        ReflectionTestUtils.setField(job, "workEndHour", 0);
+        ReflectionTestUtils.setField(job, "pauseMs", 0L);
+        lenient().when(labDataMigrator.detectionsCaughtUp()).thenReturn(true);
+    }
+
+    @Test
+    void run_ShouldKeepSignificantDetectionsAndDeleteUnreferencedFrames() {
+        when(labRepo.findAll()).thenReturn(List.of(AllLabRtspUrl.builder()
+                .id(7).crowdThreshold("5").thingsToBeDetected("knife").build()));
+        when(policyRepository.findAll()).thenReturn(List.of(LabRetentionPolicy.builder()
+                .labId(7).fullDetailDays(30).significantDays(0).alertDays(0).build()));
+        when(checkpointRepository.findById(LabRetentionJob.CHECKPOINT_PREFIX + 7)).thenReturn(Optional.empty());
+        when(labDetectionRepo.findRetentionCandidates(eq(7), anyInt(), any(), any())).thenReturn(List.of(
+                candidate(1, 2, null, false, "frames/plain.jpg,frames/alerted.jpg"),
+                candidate(2, 1, null, true, "frames/fire.jpg"),
+                candidate(3, 9, null, false, null),
+                candidate(4, 0, "Chair, Knife", false, null)));
+        when(imageRepository.deleteByDetectionIdIn(List.of(1))).thenReturn(2);
+        when(alertRepo.findReferencedFramePaths(eq(7), anyCollection())).thenReturn(List.of("frames/alerted.jpg"));
+
+        RetentionReportDto report = job.run();
+
+        verify(labDetectionRepo).deleteAllByIdInBatch(List.of(1));
+        assertThat(report.isCompleted()).isTrue();
+        assertThat(report.getDetectionsDeleted()).isEqualTo(1);
+        assertThat(report.getDetectionsKept()).isEqualTo(3);
+        assertThat(report.getImageRowsDeleted()).isEqualTo(2);
+        assertThat(report.getFilesDeleted()).isEqualTo(1);
+        assertThat(report.getBytesReclaimed()).isEqualTo(1000);
+        assertThat(dir.resolve("frames/plain.jpg")).doesNotExist();
+        assertThat(dir.resolve("frames/alerted.jpg")).exists();
+        assertThat(dir.resolve("frames/fire.jpg")).exists();
+    }
+
+    @Test
+    void run_ShouldKeepFramesSharedWithSurvivingDetections() {
+        when(labRepo.findAll()).thenReturn(List.of(AllLabRtspUrl.builder().id(7).build()));
+        when(policyRepository.findAll()).thenReturn(List.of(LabRetentionPolicy.builder()
+                .labId(7).fullDetailDays(30).significantDays(0).alertDays(0).build()));
+        when(checkpointRepository.findById(LabRetentionJob.CHECKPOINT_PREFIX + 7)).thenReturn(Optional.empty());
+        when(labDetectionRepo.findRetentionCandidates(eq(7), anyInt(), any(), any())).thenReturn(List.of(
+                candidate(1, 0, null, true, "frames/shared.jpg"),
+                candidate(2, 0, null, false, "frames/shared.jpg,frames/plain.jpg,frames/alerted.jpg,frames/unsplit.jpg")));
+        // alerted.jpg is listed by a newer, already split detection; unsplit.jpg by one the migrator has not reached
+        when(imageRepository.findReferencedPaths(eq(7), anyCollection())).thenReturn(List.of("frames/alerted.jpg"));
+        when(labDataMigrator.detectionCheckpoint()).thenReturn(500L);
+        when(labDetectionRepo.findPackedImagesAfter(7, 500)).thenReturn(List.of(
+                LabDetectionImagesDto.builder().id(501).frameImgPath("frames/unsplit.jpg, frames/other.jpg").build()));
+
+        RetentionReportDto report = job.run();
+
+        verify(labDetectionRepo).deleteAllByIdInBatch(List.of(2));
+        assertThat(report.getFilesDeleted()).isEqualTo(1);
+        assertThat(dir.resolve("frames/plain.jpg")).doesNotExist();
+        assertThat(dir.resolve("frames/shared.jpg")).exists();
+        assertThat(dir.resolve("frames/alerted.jpg")).exists();
+        assertThat(dir.resolve("frames/unsplit.jpg")).exists();
+    }
+
+    @Test
+    void run_ShouldDeleteFramesOfExpiredAlertsThatNothingElseShows() {
+        when(labRepo.findAll()).thenReturn(List.of(AllLabRtspUrl.builder().id(7).build()));
+        when(policyRepository.findAll()).thenReturn(List.of(LabRetentionPolicy.builder()
+                .labId(7).fullDetailDays(0).significantDays(0).alertDays(180).build()));
+        when(alertRepo.findIdsGeneratedBefore(eq(7), any(), any())).thenReturn(List.of(10, 11));
+        when(alertRepo.findFramePathsByIdIn(List.of(10, 11))).thenReturn(List.of("frames/plain.jpg", "frames/alerted.jpg"));
+        // A newer alert still shows alerted.jpg
+        when(alertRepo.findReferencedFramePaths(eq(7), anyCollection())).thenReturn(List.of("frames/alerted.jpg"));
+
+        RetentionReportDto report = job.run();
+
+        verify(alertRepo).deleteAllByIdInBatch(List.of(10, 11));
+        assertThat(report.getAlertsDeleted()).isEqualTo(2);
+        assertThat(report.getFilesDeleted()).isEqualTo(1);
+        assertThat(report.getBytesReclaimed()).isEqualTo(1000);
+        assertThat(dir.resolve("frames/plain.jpg")).doesNotExist();
+        assertThat(dir.resolve("frames/alerted.jpg")).exists();
+    }
+
+    @Test
+    void run_ShouldWaitUntilTheMigratorHasCaughtUp() {
+        when(labDataMigrator.detectionsCaughtUp()).thenReturn(false);
+
+        assertThat(job.run()).isNull();
+
+        verifyNoInteractions(labRepo, labDetectionRepo, alertRepo);
+        assertThat(dir.resolve("frames/plain.jpg")).exists();
+    }
+
+    @Test
+    void significant_ShouldMatchFireThresholdAndWatchedObjects() {
+        Set<String> watched = Set.of("knife");
+
+        assertThat(LabRetentionJob.significant(candidate(1, 0, null, true, null), 5, watched)).isTrue();
+        assertThat(LabRetentionJob.significant(candidate(1, 6, null, false, null), 5, watched)).isTrue();
+        assertThat(LabRetentionJob.significant(candidate(1, 5, "knife", false, null), null, watched)).isTrue();
+        assertThat(LabRetentionJob.significant(candidate(1, 5, "chair", false, null), 5, watched)).isFalse();
+    }
+
+    private static RetentionCandidateDto candidate(int id, int persons, String objects, boolean fire, String frames) {
+        return RetentionCandidateDto.builder()
+                .id(id).personCount(persons).objectName(objects).fireDetected(fire).frameImgPath(frames)
+                .build();
+    }
+}
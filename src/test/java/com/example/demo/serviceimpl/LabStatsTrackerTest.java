@@ -0,0 +1,67 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.DetectionTickDto;
+import com.example.demo.dto.LabAlertEvent;
+import com.example.demo.dto.LabStatsDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LabStatsTrackerTest {
+
+    private static final DateTimeFormatter TS = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    @Mock
+    private SimpMessagingTemplate messaging;
+
+    @InjectMocks
+    private LabStatsTracker tracker;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void snapshot_ShouldRollDetectionsAndAlertsIntoWindows() {
+        tracker.recordDetections(List.of(
+                tick(1, now.minusMinutes(10), 9, false),   // outside the 5 minute window
+                tick(2, now.minusMinutes(2), 4, true),
+                tick(3, now.minusSeconds(20), 6, false),
+                tick(4, now.minusMinutes(1), 2, false)));  // late row: counted, but not the current count
+        tracker.recordAlert(LabAlertEvent.builder().labId(7).message("Overcrowd detected").receivedAt(now).build());
+
+        LabStatsDto stats = tracker.snapshot().get(0);
+
+        assertThat(stats.getLabId()).isEqualTo(7);
+        assertThat(stats.getPersonCount()).isEqualTo(6);
+        assertThat(stats.getDetectionsLastWindow()).isEqualTo(3);
+        assertThat(stats.getLastFireAt()).isEqualTo(now.minusMinutes(2).withNano(0));
+        assertThat(stats.getAlertsLastHour()).isEqualTo(1);
+    }
+
+    @Test
+    void push_ShouldOnlySendLabsThatChanged() {
+        tracker.recordDetections(List.of(tick(1, now, 3, false)));
+
+        tracker.push();
+        tracker.push();
+
+        verify(messaging, times(1)).convertAndSend(eq(LabStatsTracker.TOPIC), any(Object.class));
+    }
+
+    private static DetectionTickDto tick(int id, LocalDateTime at, int persons, boolean fire) {
+        return new DetectionTickDto(id, 7, at.format(TS), persons, 0, null, fire);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.DetectionTickDto;
+import com.example.demo.entity.AllLabRtspUrl;
+import com.example.demo.repository.AllLabRtspUrlRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LabThresholdEvaluatorTest {
+
+    private static final DateTimeFormatter TS = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    @Mock
+    private AllLabRtspUrlRepo labRepo;
+
+    @Mock
+    private AlertIngestPipeline alertPipeline;
+
+    private LabThresholdEvaluator evaluator;
+
+    private final LocalDateTime start = LocalDateTime.now().minusMinutes(3);
+    private int nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        when(labRepo.findAll()).thenReturn(List.of(AllLabRtspUrl.builder()
+                .id(7).labName("Lab A").crowdThreshold("5").thingsToBeDetected("Knife").build()));
+        evaluator = new LabThresholdEvaluator(labRepo, alertPipeline, new ObjectMapper());
+        evaluator.reloadRules();
+    }
+
+    @Test
+    void accept_ShouldAlertOnceWhenCrowdHoldsForTheWholeWindow() {
+        List<DetectionTickDto> batch = new ArrayList<>();
+        // 10 s cadence: 50 s over the threshold is not yet a full 60 s window
+        for (int s = 0; s <= 50; s += 10) {
+            batch.add(tick(s, 8, null));
+        }
+        evaluator.accept(batch);
+        verify(alertPipeline, times(0)).submit(anyString());
+
+        evaluator.accept(List.of(tick(60, 3, null), tick(70, 9, null), tick(80, 9, null)));
+
+        ArgumentCaptor<String> alert = ArgumentCaptor.forClass(String.class);
+        verify(alertPipeline, times(1)).submit(alert.capture());
+        assertThat(alert.getValue()).contains("\"labId\":7").contains("Overcrowd detected in Lab A");
+    }
+
+    @Test
+    void accept_ShouldAlertOnWatchedObjectAndIgnoreStaleDetections() {
+        List<DetectionTickDto> stale = new ArrayList<>();
+        for (int s = -600; s <= -500; s += 10) {
+            stale.add(tick(s, 0, "knife"));
+        }
+        evaluator.accept(stale);
+        verify(alertPipeline, times(0)).submit(anyString());
+
+        List<DetectionTickDto> batch = new ArrayList<>();
+        for (int s = 0; s <= 60; s += 10) {
+            batch.add(tick(s, 0, "chair, knife"));
+        }
+        evaluator.accept(batch);
+
+        ArgumentCaptor<String> alert = ArgumentCaptor.forClass(String.class);
+        verify(alertPipeline).submit(alert.capture());
+        assertThat(alert.getValue()).contains("knife detected in Lab A");
+    }
+
+    @Test
+    void accept_ShouldAlertWhenCrowdHoldsAtAHighDetectionRate() {
+        List<DetectionTickDto> batch = new ArrayList<>();
+        // 20 detections per second: far more samples than the window has seconds
+        for (int s = 0; s < 60; s++) {
+            for (int i = 0; i < 20; i++) {
+                batch.add(tick(s, 8, null));
+            }
+        }
+        evaluator.accept(batch);
+        verify(alertPipeline, times(0)).submit(anyString());
+
+        List<DetectionTickDto> next = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            next.add(tick(60, 8, null));
+        }
+        evaluator.accept(next);
+
+        ArgumentCaptor<String> alert = ArgumentCaptor.forClass(String.class);
+        verify(alertPipeline, times(1)).submit(alert.capture());
+        assertThat(alert.getValue()).contains("Overcrowd detected in Lab A");
+    }
+
+    @Test
+    void sampleRing_ShouldCountLateSamplesInTheirSecondAndRestartAfterAGap() {
+        LabThresholdEvaluator.SampleRing ring = new LabThresholdEvaluator.SampleRing(10);
+        for (int s = 0; s <= 10; s++) {
+            ring.add(1_000 + s, true);
+        }
+        ring.add(1_005, false);
+        ring.add(980, true); // outside the window
+
+        LabThresholdEvaluator.SampleRing.Window w = ring.window();
+        assertThat(w.total()).isEqualTo(12);
+        assertThat(w.hits()).isEqualTo(11);
+        assertThat(w.covered()).isTrue();
+
+        ring.add(2_000, true);
+        w = ring.window();
+        assertThat(w.total()).isEqualTo(1);
+        assertThat(w.covered()).isFalse();
+    }
+
+    private DetectionTickDto tick(int second, int persons, String objects) {
+        return new DetectionTickDto(nextId++, 7, start.plusSeconds(second).format(TS), persons, 0, objects, false);
+    }
+}
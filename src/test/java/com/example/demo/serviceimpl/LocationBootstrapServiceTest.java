@@ -0,0 +1,86 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationBootstrapResponse;
+import com.example.demo.dto.LocationFixDto;
+import com.example.demo.entity.DailyLocationTrack;
+import com.example.demo.repository.DailyLocationTrackRepository;
+import com.example.demo.repository.EmployeeRepository;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import com.example.demo.util.LocationBatchCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationBootstrapServiceTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private WffLocationTrackingRepository locationTrackingRepository;
+
+    @Mock
+    private DailyLocationTrackRepository trackRepository;
+
+    @Mock
+    private LocationSpatialIndex spatialIndex;
+
+    @Mock
+    private LocationSyncCursor syncCursor;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LocationBootstrapService service;
+
+    @BeforeEach
+    void setUp() {
+        DailyTrackStore dailyTrackStore = new DailyTrackStore(trackRepository, locationTrackingRepository, transactionManager);
+        ReflectionTestUtils.setField(dailyTrackStore, "mode", DailyTrackStore.MODE_COMPACT);
+        service = new LocationBootstrapService(employeeRepository, locationTrackingRepository, spatialIndex,
+                syncCursor, dailyTrackStore, Runnable::run);
+        when(syncCursor.settled()).thenReturn(42L);
+        when(employeeRepository.findRosterForDate(any())).thenReturn(List.of());
+        when(spatialIndex.all()).thenReturn(List.of());
+    }
+
+    @Test
+    void bootstrap_ShouldIncludeSealedFixesInTracksThatSpanMidnight() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime sealedAt = now.minusHours(20);
+        List<LocationFixDto> sealedFixes = List.of(
+                new LocationFixDto("wff1", sealedAt, 26.80, 80.90),
+                new LocationFixDto("wff1", sealedAt.plusHours(1), 26.90, 80.95));
+        DailyLocationTrack blob = DailyLocationTrack.builder()
+                .userName("wff1")
+                .trackDate(sealedAt.toLocalDate())
+                .fixCount(2)
+                .data(LocationBatchCodec.encode(sealedFixes, 1_000_000))
+                .build();
+        when(trackRepository.findByTrackDateBetweenOrderByTrackDateDesc(any(), any())).thenReturn(List.of(blob));
+        when(locationTrackingRepository.findFixesSince(any()))
+                .thenReturn(List.of(new LocationFixDto("wff1", now.minusHours(1), 26.85, 81.05)));
+
+        LocationBootstrapResponse response = service.bootstrap(true, 24);
+
+        assertThat(response.getCursor()).isEqualTo(42L);
+        List<double[]> track = response.getTracks().get("wff1");
+        assertThat(track).hasSize(3);
+        assertThat(track.get(0)[1]).isCloseTo(26.80, within(1e-6));
+        assertThat(track.get(1)[1]).isCloseTo(26.90, within(1e-6));
+        assertThat(track.get(2)[1]).isCloseTo(26.85, within(1e-6));
+    }
+}
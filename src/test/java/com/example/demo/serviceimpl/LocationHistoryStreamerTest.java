@@ -0,0 +1,165 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationFixDto;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationHistoryStreamerTest {
+
+    @Mock
+    private WffLocationTrackingRepository locationTrackingRepository;
+
+    @Mock
+    private DailyTrackStore dailyTrackStore;
+
+    private LocationHistoryStreamer streamer;
+
+    private final LocalDate day1 = LocalDate.of(2025, 7, 1);
+    private final LocalDate day2 = day1.plusDays(1);
+
+    // Raw table after sealing day 1: its 18:00 anchor plus day 2, which is still open
+    private final List<LocationFixDto> raw = List.of(
+            fix(day1.atTime(18, 0)), fix(day2.atTime(10, 0)), fix(day2.atTime(11, 0)));
+    // Day 1's blob, with a late upload after the anchor
+    private final List<LocationFixDto> sealed = List.of(
+            fix(day1.atTime(9, 0)), fix(day1.atTime(12, 0)), fix(day1.atTime(19, 0)));
+
+    @BeforeEach
+    void setUp() {
+        streamer = new LocationHistoryStreamer(locationTrackingRepository, new ObjectMapper(), dailyTrackStore);
+        lenient().when(locationTrackingRepository.streamHistoryForUser(eq("wff1"), any(), any())).thenAnswer(inv ->
+                newestFirst(raw, inv.getArgument(1), inv.getArgument(2)).stream());
+        lenient().when(dailyTrackStore.sealedDayNewestFirst(eq("wff1"), any(), any(), any())).thenAnswer(inv ->
+                newestFirst(sealed, inv.getArgument(2), inv.getArgument(3)));
+    }
+
+    @Test
+    void stream_ShouldInterleaveSealedAndRawFixesNewestFirstAcrossDays() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = streamer.stream("wff1", day1.atStartOfDay(), day2.atTime(23, 0),
+                LocationHistoryStreamer.FORMAT_NDJSON, out);
+
+        List<String> timestamps = new ArrayList<>();
+        ObjectMapper mapper = new ObjectMapper();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode node = mapper.readTree(line);
+            timestamps.add(node.get("timestamp").asText());
+        }
+        assertThat(rows).isEqualTo(6);
+        assertThat(timestamps).containsExactly(
+                "2025-07-02T11:00:00", "2025-07-02T10:00:00",
+                "2025-07-01T19:00:00", "2025-07-01T18:00:00", "2025-07-01T12:00:00", "2025-07-01T09:00:00");
+    }
+
+    @Test
+    void stream_ShouldReadEachDaysBlobsBeforeOpeningItsCursorAndCloseTheCursor() throws Exception {
+        AtomicInteger closed = new AtomicInteger();
+        when(locationTrackingRepository.streamHistoryForUser(eq("wff1"), any(), any())).thenAnswer(inv ->
+                newestFirst(raw, inv.getArgument(1), inv.getArgument(2)).stream().onClose(closed::incrementAndGet));
+        LocalDateTime from = day1.atTime(10, 0);
+        LocalDateTime to = day2.atTime(10, 30);
+
+        long rows = streamer.stream("wff1", from, to, LocationHistoryStreamer.FORMAT_NDJSON, new ByteArrayOutputStream());
+
+        // Day 2 from midnight to the end of the range, then day 1 from the start of the range to its last microsecond
+        LocalDateTime day1End = day2.atStartOfDay().minusNanos(1000);
+        InOrder order = inOrder(dailyTrackStore, locationTrackingRepository);
+        order.verify(dailyTrackStore).sealedDayNewestFirst("wff1", day2, day2.atStartOfDay(), to);
+        order.verify(locationTrackingRepository).streamHistoryForUser("wff1", day2.atStartOfDay(), to);
+        order.verify(dailyTrackStore).sealedDayNewestFirst("wff1", day1, from, day1End);
+        order.verify(locationTrackingRepository).streamHistoryForUser("wff1", from, day1End);
+        assertThat(closed).hasValue(2);
+        assertThat(rows).isEqualTo(4);
+    }
+
+    @Test
+    void stream_ShouldWriteOneNewlineTerminatedObjectPerFixAsNdjson() throws Exception {
+        when(locationTrackingRepository.streamHistory(any(), any())).thenAnswer(inv ->
+                newestFirst(List.of(fix(day2.atTime(10, 0)), new LocationFixDto("wff2", day2.atTime(9, 0), 26.9, 80.9)),
+                        inv.getArgument(0), inv.getArgument(1)).stream());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        streamer.stream(null, day2.atStartOfDay(), day2.atTime(23, 0), LocationHistoryStreamer.FORMAT_NDJSON, out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode second = new ObjectMapper().readTree(lines[1]);
+        assertThat(second.get("userName").asText()).isEqualTo("wff2");
+        assertThat(second.get("lat").asDouble()).isEqualTo(26.9);
+        assertThat(second.get("lon").asDouble()).isEqualTo(80.9);
+        assertThat(second.get("timestamp").asText()).isEqualTo("2025-07-02T09:00:00");
+    }
+
+    @Test
+    void stream_ShouldDropTheUserColumnFromCompactRowsForASingleUser() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        streamer.stream("wff1", day2.atStartOfDay(), day2.atTime(23, 0), LocationHistoryStreamer.FORMAT_COMPACT, out);
+
+        JsonNode body = new ObjectMapper().readTree(out.toByteArray());
+        assertThat(body.get("fields")).extracting(JsonNode::asText).containsExactly("ts", "lat", "lon");
+        assertThat(body.get("rows")).hasSize(2);
+        JsonNode first = body.get("rows").get(0);
+        assertThat(first).hasSize(3);
+        assertThat(first.get(0).asLong()).isEqualTo(
+                day2.atTime(11, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        assertThat(first.get(1).asDouble()).isEqualTo(26.8467);
+    }
+
+    @Test
+    void stream_ShouldKeepTheUserColumnInCompactRowsForAllUsers() throws Exception {
+        when(locationTrackingRepository.streamHistory(any(), any())).thenAnswer(inv ->
+                newestFirst(raw, inv.getArgument(0), inv.getArgument(1)).stream());
+        when(dailyTrackStore.sealedDayNewestFirst(isNull(), any(), any(), any())).thenReturn(List.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = streamer.stream(null, day2.atStartOfDay(), day2.atTime(23, 0),
+                LocationHistoryStreamer.FORMAT_COMPACT, out);
+
+        JsonNode body = new ObjectMapper().readTree(out.toByteArray());
+        assertThat(body.get("fields")).extracting(JsonNode::asText).containsExactly("userName", "ts", "lat", "lon");
+        assertThat(rows).isEqualTo(2);
+        assertThat(body.get("rows").get(0).get(0).asText()).isEqualTo("wff1");
+        assertThat(body.get("rows").get(0)).hasSize(4);
+    }
+
+    private static List<LocationFixDto> newestFirst(List<LocationFixDto> fixes, LocalDateTime from, LocalDateTime to) {
+        return fixes.stream()
+                .filter(f -> !f.getTimestamp().isBefore(from) && !f.getTimestamp().isAfter(to))
+                .sorted(Comparator.comparing(LocationFixDto::getTimestamp).reversed())
+                .toList();
+    }
+
+    private static LocationFixDto fix(LocalDateTime at) {
+        return new LocationFixDto("wff1", at, 26.8467, 80.9462);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationFixDto;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationIngestFilterTest {
+
+    @Mock
+    private WffLocationTrackingRepository locationTrackingRepository;
+
+    @InjectMocks
+    private LocationIngestFilter ingestFilter;
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 7, 1, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        when(locationTrackingRepository.findLatestForUserOne("wff1")).thenReturn(WffLocationTracking.builder()
+                .userName("wff1").lat(26.8467).lon(80.9462).timestamp(start).build());
+    }
+
+    @Test
+    void check_ShouldDropStationaryFixUntilHeartbeatIsDue() {
+        assertThat(ingestFilter.check("wff1", start.plusSeconds(30), 26.84672, 80.94621))
+                .isEqualTo(LocationIngestFilter.Decision.DROP_STATIONARY);
+        assertThat(ingestFilter.check("wff1", start.plusMinutes(5), 26.84672, 80.94621))
+                .isEqualTo(LocationIngestFilter.Decision.ACCEPT);
+    }
+
+    @Test
+    void check_ShouldRejectImpossibleJumpAndAcceptRealMovement() {
+        // ~11 km in 10 seconds
+        assertThat(ingestFilter.check("wff1", start.plusSeconds(10), 26.9467, 80.9462))
+                .isEqualTo(LocationIngestFilter.Decision.REJECT_SPEED);
+        // ~110 m in 30 seconds
+        assertThat(ingestFilter.check("wff1", start.plusSeconds(30), 26.8477, 80.9462))
+                .isEqualTo(LocationIngestFilter.Decision.ACCEPT);
+    }
+
+    @Test
+    void filterBatch_ShouldCompareEachFixWithTheLastKeptOne() {
+        List<LocationFixDto> kept = ingestFilter.filterBatch("wff1", List.of(
+                new LocationFixDto("wff1", start.plusSeconds(10), 26.84671, 80.9462),
+                new LocationFixDto("wff1", start.plusSeconds(40), 26.8477, 80.9462),
+                new LocationFixDto("wff1", start.plusSeconds(50), 26.84771, 80.9462),
+                new LocationFixDto("wff1", start.plusSeconds(80), 26.8487, 80.9462)
+        ));
+
+        assertThat(kept).extracting(LocationFixDto::getTimestamp)
+                .containsExactly(start.plusSeconds(40), start.plusSeconds(80));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationClusterDto;
+import com.example.demo.dto.LocationClusterResponse;
+import com.example.demo.dto.LocationPointDto;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationSpatialIndexTest {
+
+    @Mock
+    private WffLocationTrackingRepository locationTrackingRepository;
+
+    @InjectMocks
+    private LocationSpatialIndex spatialIndex;
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 7, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        when(locationTrackingRepository.findLatestPerUser()).thenReturn(Arrays.asList(
+                fix("lucknow1", 26.8467, 80.9462),
+                fix("lucknow2", 26.8500, 80.9500),
+                fix("kanpur", 26.4499, 80.3319),
+                fix("agra", 27.1767, 78.0081)
+        ));
+        spatialIndex.rebuild();
+    }
+
+    @Test
+    void withinRadius_ShouldReturnOnlyUsersInsideRadiusSortedByDistance() {
+        List<LocationPointDto> result = spatialIndex.withinRadius(26.8467, 80.9462, 5000);
+
+        assertThat(result).extracting(LocationPointDto::getUserName)
+                .containsExactly("lucknow1", "lucknow2");
+        assertThat(result.get(0).getDistanceMeters()).isLessThan(1.0);
+    }
+
+    @Test
+    void withinBox_ShouldReturnUsersInsideBox() {
+        List<LocationPointDto> result = spatialIndex.withinBox(26.0, 80.0, 27.0, 81.0);
+
+        assertThat(result).extracting(LocationPointDto::getUserName)
+                .containsExactlyInAnyOrder("lucknow1", "lucknow2", "kanpur");
+    }
+
+    @Test
+    void nearest_ShouldReturnKClosestUsers() {
+        List<LocationPointDto> result = spatialIndex.nearest(26.5, 80.4, 2);
+
+        assertThat(result).extracting(LocationPointDto::getUserName)
+                .containsExactly("kanpur", "lucknow1");
+    }
+
+    @Test
+    void nearest_ShouldReturnAllUsersWhenKExceedsSize() {
+        List<LocationPointDto> result = spatialIndex.nearest(0, 0, 10);
+
+        assertThat(result).hasSize(4);
+        assertThat(result.get(3).getUserName()).isEqualTo("lucknow2");
+    }
+
+    @Test
+    void clusters_ShouldGroupNearbyUsersAtLowZoomAndSplitWhenZoomedIn() {
+        // Zoom 8 cells are ~0.35 degrees wide: the two Lucknow users share one, Kanpur and Agra stand alone
+        LocationClusterResponse state = spatialIndex.clusters(8, 24.0, 76.0, 30.0, 84.0);
+
+        assertThat(state.isClustered()).isTrue();
+        assertThat(state.getClusters()).extracting(LocationClusterDto::getCount)
+                .containsExactlyInAnyOrder(2, 1, 1);
+        LocationClusterDto lucknow = state.getClusters().stream().filter(c -> c.getCount() == 2).findFirst().get();
+        assertThat(lucknow.getLat()).isBetween(26.8467, 26.85);
+
+        LocationClusterResponse street = spatialIndex.clusters(17, 26.84, 80.94, 26.86, 80.96);
+        assertThat(street.isClustered()).isFalse();
+        assertThat(street.getPoints()).hasSize(2);
+    }
+
+    @Test
+    void clusters_ShouldFollowUsersAcrossCells() {
+        WffLocationTracking moved = fix("kanpur", 26.8470, 80.9470);
+        moved.setTimestamp(now.plusMinutes(5));
+        spatialIndex.update(moved);
+
+        LocationClusterResponse state = spatialIndex.clusters(8, 24.0, 76.0, 30.0, 84.0);
+
+        assertThat(state.getClusters()).extracting(LocationClusterDto::getCount)
+                .containsExactlyInAnyOrder(3, 1);
+    }
+
+    @Test
+    void update_ShouldMoveUserAndIgnoreOlderFixes() {
+        WffLocationTracking moved = fix("agra", 26.4500, 80.3300);
+        moved.setTimestamp(now.plusMinutes(5));
+        spatialIndex.update(moved);
+
+        WffLocationTracking stale = fix("agra", 27.1767, 78.0081);
+        stale.setTimestamp(now.minusMinutes(5));
+        spatialIndex.update(stale);
+
+        assertThat(spatialIndex.withinRadius(26.4499, 80.3319, 1000))
+                .extracting(LocationPointDto::getUserName)
+                .containsExactlyInAnyOrder("kanpur", "agra");
+        assertThat(spatialIndex.withinRadius(27.1767, 78.0081, 1000)).isEmpty();
+        assertThat(spatialIndex.size()).isEqualTo(4);
+    }
+
+    private WffLocationTracking fix(String userName, double lat, double lon) {
+        return WffLocationTracking.builder()
+                .userName(userName)
+                .lat(lat)
+                .lon(lon)
+                .timestamp(now)
+                .build();
+    }
+}
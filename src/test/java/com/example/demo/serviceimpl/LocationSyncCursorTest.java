@@ -0,0 +1,77 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.dto.LocationSyncResponse;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationSyncCursorTest {
+
+    @Mock
+    private WffLocationTrackingRepository locationTrackingRepository;
+
+    private AttendanceServiceImpl attendanceService;
+
+    @BeforeEach
+    void setUp() {
+        LocationSyncCursor syncCursor = new LocationSyncCursor(locationTrackingRepository);
+        attendanceService = new AttendanceServiceImpl(null, null, null, null, null, null, null, null, syncCursor);
+        ReflectionTestUtils.setField(attendanceService, "locationTrackingRepository", locationTrackingRepository);
+    }
+
+    @Test
+    void syncLocations_ShouldNotMovePastALowerIdThatHasNotCommittedYet() {
+        // Row 3 is still in its ingest transaction while 4 is already visible
+        when(locationTrackingRepository.findSyncPage(0L, null, Limit.of(11))).thenReturn(List.of(fix(1), fix(2), fix(4)));
+        when(locationTrackingRepository.findFirstIdStoredAfter(any(LocalDateTime.class))).thenReturn(4L).thenReturn(null);
+        when(locationTrackingRepository.findMaxIdBelow(4L)).thenReturn(2L);
+
+        LocationSyncResponse first = attendanceService.syncLocations(0L, null, 10);
+
+        assertThat(first.getFixes()).extracting(WffLocationTracking::getId).containsExactly(1L, 2L, 4L);
+        assertThat(first.getCursor()).isEqualTo(2L);
+
+        // Row 3 commits; by now everything is older than the lag
+        when(locationTrackingRepository.findSyncPage(2L, null, Limit.of(11))).thenReturn(List.of(fix(3), fix(4)));
+        when(locationTrackingRepository.findMaxId()).thenReturn(4L);
+
+        LocationSyncResponse second = attendanceService.syncLocations(first.getCursor(), null, 10);
+
+        assertThat(second.getFixes()).extracting(WffLocationTracking::getId).containsExactly(3L, 4L);
+        assertThat(second.getCursor()).isEqualTo(4L);
+        assertThat(second.isHasMore()).isFalse();
+    }
+
+    @Test
+    void syncLocations_ShouldStopPagingAtTheSettledId() {
+        when(locationTrackingRepository.findSyncPage(0L, null, Limit.of(3)))
+                .thenReturn(List.of(fix(1), fix(2), fix(3)));
+        when(locationTrackingRepository.findFirstIdStoredAfter(any(LocalDateTime.class))).thenReturn(2L);
+        when(locationTrackingRepository.findMaxIdBelow(2L)).thenReturn(1L);
+
+        LocationSyncResponse page = attendanceService.syncLocations(0L, null, 2);
+
+        assertThat(page.getFixes()).extracting(WffLocationTracking::getId).containsExactly(1L, 2L);
+        assertThat(page.getCursor()).isEqualTo(1L);
+        // The client waits for its next poll instead of re-reading the same rows straight away
+        assertThat(page.isHasMore()).isFalse();
+    }
+
+    private static WffLocationTracking fix(long id) {
+        return WffLocationTracking.builder().id(id).userName("u").lat(26.0).lon(80.0).build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.DailyMovementSummary;
+import com.example.demo.entity.Employee;
+import com.example.demo.entity.WffLocationTracking;
+import com.example.demo.repository.DailyMovementSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MovementSummaryAggregatorTest {
+
+    @Mock
+    private DailyMovementSummaryRepository summaryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private MovementSummaryAggregator aggregator;
+
+    private final Employee employee = Employee.builder().username("wff1").district("Lucknow").build();
+    private final LocalDateTime start = LocalDateTime.now().withHour(9).withMinute(0).withSecond(0).withNano(0);
+
+    @Test
+    void record_ShouldAccumulateDistanceAndDetectStops() {
+        when(summaryRepository.findByUserNameAndSummaryDate("wff1", start.toLocalDate())).thenReturn(Optional.empty());
+        when(summaryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        // ~1.1 km north, then parked for 10 minutes with a few metres of jitter
+        aggregator.record(employee, fix(0, 26.8400, 80.9462));
+        aggregator.record(employee, fix(120, 26.8500, 80.9462));
+        aggregator.record(employee, fix(300, 26.85001, 80.94622));
+        aggregator.record(employee, fix(480, 26.84999, 80.94619));
+        aggregator.record(employee, fix(720, 26.85002, 80.94621));
+        aggregator.flush();
+
+        ArgumentCaptor<DailyMovementSummary> saved = ArgumentCaptor.forClass(DailyMovementSummary.class);
+        verify(summaryRepository).save(saved.capture());
+        DailyMovementSummary s = saved.getValue();
+        assertThat(s.getFixCount()).isEqualTo(5);
+        assertThat(s.getDistanceMeters()).isCloseTo(1112, within(5.0));
+        assertThat(s.getStopCount()).isEqualTo(1);
+        assertThat(s.getDwellSeconds()).isEqualTo(600);
+        assertThat(s.getActiveMinutes()).isEqualTo(12);
+        assertThat(s.getDistrict()).isEqualTo("Lucknow");
+        assertThat(s.getFirstFixAt()).isEqualTo(start);
+    }
+
+    @Test
+    void record_ShouldIgnoreLateFixesAndSkipCleanFlush() {
+        when(summaryRepository.findByUserNameAndSummaryDate("wff1", start.toLocalDate())).thenReturn(Optional.empty());
+        when(summaryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        aggregator.record(employee, fix(60, 26.84, 80.94));
+        aggregator.record(employee, fix(0, 26.90, 80.94));
+        aggregator.flush();
+        aggregator.flush();
+
+        ArgumentCaptor<DailyMovementSummary> saved = ArgumentCaptor.forClass(DailyMovementSummary.class);
+        verify(summaryRepository, times(1)).save(saved.capture());
+        assertThat(saved.getValue().getFixCount()).isEqualTo(1);
+        assertThat(saved.getValue().getSummaryDate()).isEqualTo(LocalDate.now());
+    }
+
+    @Test
+    void record_ShouldLoadAndWriteStateOutsideTheCallersTransaction() {
+        DailyMovementSummary stored = DailyMovementSummary.builder()
+                .id(5L).userName("wff1").summaryDate(start.toLocalDate()).build();
+        when(summaryRepository.findByUserNameAndSummaryDate("wff1", start.toLocalDate())).thenReturn(Optional.of(stored));
+        when(summaryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        aggregator.record(employee, fix(0, 26.84, 80.94));
+        aggregator.flush();
+
+        // One new transaction for the load and one for the write, never the ingest transaction
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(2)).getTransaction(definitions.capture());
+        assertThat(definitions.getAllValues()).extracting(TransactionDefinition::getPropagationBehavior)
+                .containsOnly(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        verify(transactionManager, atLeastOnce()).commit(any());
+        assertThat(stored.getFixCount()).isEqualTo(1);
+    }
+
+    private WffLocationTracking fix(int secondsAfterStart, double lat, double lon) {
+        return WffLocationTracking.builder()
+                .userName("wff1")
+                .lat(lat)
+                .lon(lon)
+                .timestamp(start.plusSeconds(secondsAfterStart))
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.repository.EmployeeRepository;
+import com.example.demo.repository.WffLocationTrackingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceTrackerTest {
+
+    // Defaults: 300 s TTL on 5 s ticks -> 60 ticks
+    private static final int TTL_TICKS = 60;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private WffLocationTrackingRepository locationTrackingRepository;
+
+    @Mock
+    private SimpMessagingTemplate messaging;
+
+    @InjectMocks
+    private PresenceTracker presenceTracker;
+
+    @BeforeEach
+    void setUp() {
+        presenceTracker.init();
+    }
+
+    @Test
+    void ping_ShouldWriteOnlyTheTransitionToActive() {
+        presenceTracker.ping("wff1", true);
+        presenceTracker.tick();
+        presenceTracker.ping("wff1", true);
+        presenceTracker.tick();
+
+        verify(employeeRepository, times(1)).updateActiveByUsername("wff1", true);
+        verify(messaging, times(1)).convertAndSend(eq("/topic/presence"), any(Object.class));
+        assertThat(presenceTracker.isOnline("wff1")).isTrue();
+    }
+
+    @Test
+    void tick_ShouldExpireUsersThatStopPinging() {
+        presenceTracker.ping("wff1", true);
+        for (int i = 0; i < TTL_TICKS - 1; i++) {
+            presenceTracker.tick();
+        }
+        assertThat(presenceTracker.isOnline("wff1")).isTrue();
+
+        presenceTracker.tick();
+
+        assertThat(presenceTracker.isOnline("wff1")).isFalse();
+        verify(employeeRepository).updateActiveByUsername("wff1", false);
+    }
+
+    @Test
+    void ping_ShouldKeepUserOnlineWhileRearmed() {
+        presenceTracker.ping("wff1", true);
+        for (int i = 0; i < TTL_TICKS * 3; i++) {
+            presenceTracker.tick();
+            presenceTracker.ping("wff1", true);
+        }
+
+        assertThat(presenceTracker.isOnline("wff1")).isTrue();
+        verify(employeeRepository, never()).updateActiveByUsername(anyString(), eq(false));
+    }
+
+    @Test
+    void ping_ShouldGoOfflineImmediatelyWhenTrackingStops() {
+        presenceTracker.ping("wff1", true);
+        presenceTracker.tick();
+        presenceTracker.ping("wff1", false);
+        presenceTracker.tick();
+
+        verify(employeeRepository).updateActiveByUsername("wff1", false);
+        verify(employeeRepository, times(2)).updateActiveByUsername(anyString(), anyBoolean());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.serviceimpl;
+
+import com.example.demo.entity.Employee;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.OptionalDouble;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReportIntervalAdvisorTest {
+
+    @Mock
+    private GeofenceEngine geofenceEngine;
+
+    @InjectMocks
+    private ReportIntervalAdvisor advisor;
+
+    private final Employee employee = Employee.builder().username("wff1").build();
+    private final LocalDateTime start = LocalDateTime.of(2025, 7, 1, 9, 0);
+
+    @Test
+    void recommend_ShouldShortenIntervalAsSpeedRises() {
+        when(geofenceEngine.nearestBoundaryMeters(any(), anyString(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(OptionalDouble.empty());
+
+        int standing = advisor.recommend(employee, "wff1", start, 26.8467, 80.9462);
+        // ~1.1 km in 60 s twice: smoothed speed ~13.9 m/s -> ~7 s, clamped to the 10 s minimum
+        advisor.recommend(employee, "wff1", start.plusSeconds(60), 26.8567, 80.9462);
+        int driving = advisor.recommend(employee, "wff1", start.plusSeconds(120), 26.8667, 80.9462);
+
+        assertThat(standing).isEqualTo(300);
+        assertThat(driving).isEqualTo(10);
+    }
+
+    @Test
+    void recommend_ShouldUseMinimumNearFenceAndBackOffUnderLoad() {
+        when(geofenceEngine.nearestBoundaryMeters(any(), anyString(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(OptionalDouble.of(40));
+
+        assertThat(advisor.recommend(employee, "wff1", start, 26.8467, 80.9462)).isEqualTo(10);
+
+        for (int i = 0; i < 150; i++) {
+            advisor.ingestStarted();
+        }
+        assertThat(advisor.recommend(employee, "wff1", start.plusSeconds(30), 26.8467, 80.9462)).isEqualTo(30);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.util;
+
+import com.example.demo.dto.LocationBatchRequest;
+import com.example.demo.dto.LocationFixDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class LocationBatchCodecTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 7, 1, 9, 30);
+
+    @Test
+    void binary_ShouldRoundTripFixes() {
+        List<LocationFixDto> fixes = Arrays.asList(
+                new LocationFixDto("wff1", start, 26.846700, 80.946200),
+                new LocationFixDto("wff1", start.plusSeconds(5), 26.846712, 80.946170),
+                new LocationFixDto("wff1", start.plusSeconds(10), 26.846712, 80.946170)
+        );
+
+        byte[] encoded = LocationBatchCodec.encode(fixes, 1_000_000);
+        List<LocationFixDto> decoded = LocationBatchCodec.decode("wff1", encoded);
+
+        assertThat(decoded).hasSize(3);
+        assertThat(decoded.get(1).getTimestamp()).isEqualTo(start.plusSeconds(5));
+        assertThat(decoded.get(1).getLat()).isCloseTo(26.846712, within(1e-9));
+        assertThat(decoded.get(2).getLon()).isCloseTo(80.946170, within(1e-9));
+        // A stationary fix is just the time delta plus two zero deltas
+        assertThat(encoded.length).isLessThan(40);
+    }
+
+    @Test
+    void json_ShouldApplyTimeAndCoordinateDeltas() {
+        LocationBatchRequest request = new LocationBatchRequest();
+        request.setUserName("wff1");
+        request.setBaseTime(start.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        request.setFixes(Arrays.asList(
+                new long[]{0, 26846700, 80946200},
+                new long[]{5000, 12, -30}
+        ));
+
+        List<LocationFixDto> decoded = LocationBatchCodec.decode(request);
+
+        assertThat(decoded.get(0).getTimestamp()).isEqualTo(start);
+        assertThat(decoded.get(1).getTimestamp()).isEqualTo(start.plusSeconds(5));
+        assertThat(decoded.get(1).getLat()).isCloseTo(26.846712, within(1e-9));
+        assertThat(decoded.get(1).getLon()).isCloseTo(80.946170, within(1e-9));
+    }
+
+    @Test
+    void binary_ShouldRejectTruncatedBody() {
+        byte[] encoded = LocationBatchCodec.encode(
+                List.of(new LocationFixDto("wff1", start, 26.8467, 80.9462)), 1_000_000);
+
+        assertThatThrownBy(() -> LocationBatchCodec.decode("wff1", Arrays.copyOf(encoded, encoded.length - 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
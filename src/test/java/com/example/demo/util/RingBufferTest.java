@@ -0,0 +1,28 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferTest {
+
+    @Test
+    void offer_ShouldRefuseWhenFullAndWrapAroundAfterDraining() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.offer(i)).isTrue();
+        }
+        assertThat(ring.offer(4)).isFalse();
+
+        assertThat(ring.poll()).isEqualTo(0);
+        assertThat(ring.offer(4)).isTrue();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(ring.drainTo(drained, 10)).isEqualTo(4);
+        assertThat(drained).containsExactly(1, 2, 3, 4);
+        assertThat(ring.poll()).isNull();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TrackSimplifierTest {
+
+    @Test
+    void simplify_ShouldKeepEndpointsAndCorners() {
+        // East along a street for ~1 km, then north; each step ~11 m with a little GPS wobble
+        List<double[]> track = new ArrayList<>();
+        long t = 0;
+        for (int i = 0; i <= 100; i++) {
+            track.add(new double[]{t += 5000, 26.8467 + (i % 2) * 0.00002, 80.9400 + i * 0.0001});
+        }
+        for (int i = 1; i <= 100; i++) {
+            track.add(new double[]{t += 5000, 26.8467 + i * 0.0001, 80.9500});
+        }
+
+        List<double[]> simplified = TrackSimplifier.simplify(track, 15);
+
+        assertThat(simplified).hasSize(3);
+        assertThat(simplified.get(0)).isSameAs(track.get(0));
+        assertThat(simplified.get(1)[2]).isEqualTo(80.9500, within(1e-6));
+        assertThat(simplified.get(2)).isSameAs(track.get(track.size() - 1));
+    }
+}